@@ -0,0 +1,36 @@
+package com.example.benchmarks;
+
+import com.example.demo1.config.JacksonConfig;
+import com.example.demo1.entity.User;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Shared fixtures: the application's ObjectMapper and pages of users shaped like production rows.
+ */
+final class BenchmarkData {
+
+    private static final LocalDateTime CREATED_AT = LocalDateTime.of(2024, 1, 15, 10, 30, 0);
+
+    private BenchmarkData() {
+    }
+
+    static ObjectMapper applicationObjectMapper() {
+        return new JacksonConfig().objectMapper(new Jackson2ObjectMapperBuilder());
+    }
+
+    static List<User> users(int count) {
+        List<User> users = new ArrayList<>(count);
+        for (int i = 1; i <= count; i++) {
+            User user = new User("User Number " + i, "user" + i + "@example.com");
+            user.setId((long) i);
+            user.setCreatedAt(CREATED_AT.plusSeconds(i));
+            users.add(user);
+        }
+        return users;
+    }
+}
@@ -0,0 +1,30 @@
+package com.example.benchmarks;
+
+import org.openjdk.jmh.Main;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Runs JMH with machine-readable JSON results by default, so runs of different releases can be compared.
+ * Any JMH option can be passed through, e.g. {@code java -jar benchmarks.jar UserSerialization -rff before.json}.
+ */
+public final class BenchmarkMain {
+
+    private BenchmarkMain() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        List<String> arguments = new ArrayList<>(Arrays.asList(args));
+        if (!arguments.contains("-rf")) {
+            arguments.add("-rf");
+            arguments.add("json");
+        }
+        if (!arguments.contains("-rff")) {
+            arguments.add("-rff");
+            arguments.add("jmh-result.json");
+        }
+        Main.main(arguments.toArray(new String[0]));
+    }
+}
@@ -0,0 +1,50 @@
+package com.example.benchmarks;
+
+import com.example.demo1.exception.GlobalExceptionHandler;
+import com.example.demo1.exception.ResourceNotFoundException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Building and serializing the error body of GlobalExceptionHandler, as for a 404 on GET /api/users/{id}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ErrorResponseBenchmark {
+
+    private ObjectMapper objectMapper;
+    private GlobalExceptionHandler exceptionHandler;
+    private ResourceNotFoundException notFound;
+
+    @Setup
+    public void setUp() {
+        objectMapper = BenchmarkData.applicationObjectMapper();
+        exceptionHandler = new GlobalExceptionHandler();
+        notFound = new ResourceNotFoundException("User not found with ID: 99");
+    }
+
+    @Benchmark
+    public Object buildErrorResponse() {
+        return exceptionHandler.handleNotFound(notFound);
+    }
+
+    @Benchmark
+    public byte[] buildAndSerializeErrorResponse() throws Exception {
+        return objectMapper.writeValueAsBytes(exceptionHandler.handleNotFound(notFound).getBody());
+    }
+}
@@ -0,0 +1,94 @@
+package com.example.benchmarks;
+
+import com.example.demo1.config.ApiResponseHttpMessageConverter;
+import com.example.demo1.controller.UserController;
+import com.example.demo1.entity.User;
+import com.example.userapi.dto.ApiResponse;
+import com.example.userapi.dto.PaginationInfo;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import org.apache.logging.log4j.Logger;
+import org.apache.logging.log4j.core.LoggerContext;
+import org.apache.logging.log4j.core.async.AsyncLoggerContextSelector;
+import org.apache.logging.log4j.core.config.Configurator;
+import org.apache.logging.log4j.core.selector.ClassLoaderContextSelector;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.util.FileSystemUtils;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Request throughput of a small GET /api/users page with its INFO request log line written to a rolling file,
+ * on several threads: {@code sync} is the previous setup (synchronous loggers, RollingFile flushed per event),
+ * {@code async} the current one (all-async loggers, garbage-free, batched RollingRandomAccessFile writes).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Threads(4)
+@Fork(1)
+public class LoggingBenchmark {
+
+    @Param({"sync", "async"})
+    private String mode;
+
+    private Path logDirectory;
+    private LoggerContext loggerContext;
+    private Logger logger;
+    private ObjectWriter writer;
+    private List<User> users;
+    private PaginationInfo pagination;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        // Log4j reads these once, so they must be set before anything initializes it (Spring's logging bridge included)
+        logDirectory = Files.createTempDirectory("logging-benchmark");
+        System.setProperty("logging.benchmark.dir", logDirectory.toString());
+        if ("async".equals(mode)) {
+            // Ring buffer, queue-full policy and garbage-free settings come from demo1's log4j2.component.properties
+            System.setProperty("log4j2.contextSelector", AsyncLoggerContextSelector.class.getName());
+        } else {
+            System.setProperty("log4j2.contextSelector", ClassLoaderContextSelector.class.getName());
+            // Before: Log4j treated the service as a web app and disabled its thread-local buffers
+            System.setProperty("log4j2.isWebapp", "true");
+        }
+        loggerContext = Configurator.initialize("logging-benchmark", "logging-benchmark-" + mode + ".xml");
+        logger = loggerContext.getLogger(UserController.class.getName());
+
+        writer = new ApiResponseHttpMessageConverter(BenchmarkData.applicationObjectMapper()).getWriter(false);
+        users = BenchmarkData.users(10);
+        pagination = PaginationInfo.of(new PageImpl<>(users, PageRequest.of(0, 10), 50_000));
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        Configurator.shutdown(loggerContext);
+        FileSystemUtils.deleteRecursively(logDirectory);
+    }
+
+    @Benchmark
+    public byte[] listUsersWithRequestLog() throws Exception {
+        logger.info("Fetching users - page: {}, size: {}", 0, 10);
+        return writer.writeValueAsBytes(ApiResponse.page("Users retrieved successfully", users, pagination));
+    }
+}
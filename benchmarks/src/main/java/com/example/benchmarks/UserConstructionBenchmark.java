@@ -0,0 +1,51 @@
+package com.example.benchmarks;
+
+import com.example.demo1.entity.User;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.LocalDateTime;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of creating User instances. The no-arg constructor used by Hibernate and Jackson calls
+ * LocalDateTime.now(), which hydration then overwrites.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class UserConstructionBenchmark {
+
+    private final LocalDateTime createdAt = LocalDateTime.of(2024, 1, 15, 10, 30, 0);
+    private long nextId;
+
+    @Benchmark
+    public User noArgConstructor() {
+        return new User();
+    }
+
+    @Benchmark
+    public User nameEmailConstructor() {
+        return new User("User Number 1", "user1@example.com");
+    }
+
+    @Benchmark
+    public User hydrateLikeHibernate() {
+        User user = new User();
+        user.setId(++nextId);
+        user.setName("User Number 1");
+        user.setEmail("user1@example.com");
+        user.setCreatedAt(createdAt);
+        return user;
+    }
+}
@@ -0,0 +1,79 @@
+package com.example.benchmarks;
+
+import com.example.demo1.config.ApiResponseHttpMessageConverter;
+import com.example.demo1.controller.UserController;
+import com.example.demo1.entity.User;
+import com.example.demo1.service.UserCache;
+import com.example.demo1.service.UserService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * GET /api/users from controller call to serialized bytes: the typed envelope through the
+ * precompiled compact and pretty writers, and through the generic ObjectMapper path for comparison.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class UserEnvelopeBenchmark {
+
+    @Param({"1000"})
+    private int pageSize;
+
+    private ObjectMapper objectMapper;
+    private ObjectWriter compactWriter;
+    private ObjectWriter prettyWriter;
+    private UserController userController;
+
+    @Setup
+    public void setUp() {
+        objectMapper = BenchmarkData.applicationObjectMapper();
+        ApiResponseHttpMessageConverter converter = new ApiResponseHttpMessageConverter(objectMapper);
+        compactWriter = converter.getWriter(false);
+        prettyWriter = converter.getWriter(true);
+        Page<User> page = new PageImpl<>(BenchmarkData.users(pageSize), PageRequest.of(0, pageSize), 50_000);
+        // Serves a fixed page so only controller and serialization cost is measured
+        UserService userService = new UserService(null, null, null, null) {
+            @Override
+            public Page<User> getAllUsers(int pageNumber, int size) {
+                return page;
+            }
+        };
+        // Listing tags are not remembered, so every call loads, tags and returns the page
+        userController = new UserController(userService, null, null, new UserCache(false, 1, 1, 0), null);
+    }
+
+    @Benchmark
+    public byte[] compactWriter() throws Exception {
+        return compactWriter.writeValueAsBytes(userController.getAllUsers(0, pageSize, null, "none", null).getBody());
+    }
+
+    @Benchmark
+    public byte[] prettyWriter() throws Exception {
+        return prettyWriter.writeValueAsBytes(userController.getAllUsers(0, pageSize, null, "none", null).getBody());
+    }
+
+    @Benchmark
+    public byte[] genericObjectMapper() throws Exception {
+        return objectMapper.writeValueAsBytes(userController.getAllUsers(0, pageSize, null, "none", null).getBody());
+    }
+}
@@ -0,0 +1,52 @@
+package com.example.benchmarks;
+
+import com.example.demo1.entity.User;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Serializing a full page of users through the JacksonConfig ObjectMapper, with and without INDENT_OUTPUT.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class UserSerializationBenchmark {
+
+    @Param({"1000"})
+    private int pageSize;
+
+    @Param({"true", "false"})
+    private boolean indentOutput;
+
+    private ObjectMapper objectMapper;
+    private List<User> users;
+
+    @Setup
+    public void setUp() {
+        objectMapper = BenchmarkData.applicationObjectMapper();
+        objectMapper.configure(SerializationFeature.INDENT_OUTPUT, indentOutput);
+        users = BenchmarkData.users(pageSize);
+    }
+
+    @Benchmark
+    public byte[] serializeUserPage() throws Exception {
+        return objectMapper.writeValueAsBytes(users);
+    }
+}
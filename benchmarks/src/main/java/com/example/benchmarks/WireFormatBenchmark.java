@@ -0,0 +1,104 @@
+package com.example.benchmarks;
+
+import com.example.demo1.config.ApiResponseHttpMessageConverter;
+import com.example.demo1.entity.User;
+import com.example.userapi.dto.ApiResponse;
+import com.example.userapi.dto.PaginationInfo;
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * A page of users as demo2 receives it from demo1: encode and decode CPU for JSON, Smile (what demo1 serves to
+ * {@code Accept: application/x-jackson-smile}) and CBOR. Bytes on the wire, raw and gzipped, are printed at setup.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class WireFormatBenchmark {
+
+    @Param({"1000"})
+    private int pageSize;
+
+    @Param({"json", "smile", "cbor"})
+    private String format;
+
+    private ApiResponse<List<User>> page;
+    private ObjectWriter writer;
+    private ObjectReader reader;
+    private byte[] encoded;
+
+    @Setup
+    public void setUp() throws IOException {
+        ObjectMapper objectMapper = BenchmarkData.applicationObjectMapper();
+        ApiResponseHttpMessageConverter converter = new ApiResponseHttpMessageConverter(objectMapper);
+        PageImpl<User> users = new PageImpl<>(BenchmarkData.users(pageSize), PageRequest.of(0, pageSize), 50_000);
+        page = ApiResponse.page("Users retrieved successfully", users.getContent(), PaginationInfo.of(users));
+
+        JavaType pageType = objectMapper.getTypeFactory().constructParametricType(ApiResponse.class,
+                objectMapper.getTypeFactory().constructCollectionType(List.class, User.class));
+        switch (format) {
+            case "json" -> {
+                writer = converter.getWriter(false);
+                reader = objectMapper.readerFor(pageType);
+            }
+            case "smile" -> {
+                writer = converter.getSmileWriter();
+                reader = objectMapper.copyWith(new SmileFactory()).readerFor(pageType);
+            }
+            case "cbor" -> {
+                ObjectMapper cborMapper = objectMapper.copyWith(new CBORFactory());
+                writer = cborMapper.writerFor(ApiResponse.class).without(SerializationFeature.INDENT_OUTPUT);
+                reader = cborMapper.readerFor(pageType);
+            }
+            default -> throw new IllegalArgumentException("Unknown format: " + format);
+        }
+        encoded = writer.writeValueAsBytes(page);
+        System.out.printf("%n%s, %d users: %d bytes, %d gzipped%n", format, pageSize, encoded.length,
+                gzip(encoded).length);
+    }
+
+    @Benchmark
+    public byte[] encode() throws IOException {
+        return writer.writeValueAsBytes(page);
+    }
+
+    @Benchmark
+    public ApiResponse<List<User>> decode() throws IOException {
+        return reader.readValue(encoded);
+    }
+
+    private static byte[] gzip(byte[] bytes) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (GZIPOutputStream gzip = new GZIPOutputStream(out)) {
+            gzip.write(bytes);
+        }
+        return out.toByteArray();
+    }
+}
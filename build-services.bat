@@ -21,9 +21,9 @@ echo.
 echo Build completed successfully!
 echo.
 echo JAR files are located at:
-echo - demo1/target/demo1-0.0.1-SNAPSHOT.jar
+echo - demo1/target/demo1-0.0.1-SNAPSHOT-exec.jar
 echo - demo2/target/demo2-0.0.1-SNAPSHOT.jar
 echo.
 echo To run the services, use:
-echo java -jar demo1/target/demo1-0.0.1-SNAPSHOT.jar
+echo java -jar demo1/target/demo1-0.0.1-SNAPSHOT-exec.jar
 echo java -jar demo2/target/demo2-0.0.1-SNAPSHOT.jar 
\ No newline at end of file
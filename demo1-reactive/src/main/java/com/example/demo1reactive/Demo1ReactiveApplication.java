@@ -0,0 +1,11 @@
+package com.example.demo1reactive;
+
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.autoconfigure.SpringBootApplication;
+
+@SpringBootApplication
+public class Demo1ReactiveApplication {
+    public static void main(String[] args) {
+        SpringApplication.run(Demo1ReactiveApplication.class, args);
+    }
+}
@@ -0,0 +1,44 @@
+package com.example.demo1reactive.config;
+
+import io.r2dbc.spi.Option;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.r2dbc.ConnectionFactoryOptionsBuilderCustomizer;
+import org.springframework.boot.web.embedded.netty.NettyServerCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import reactor.netty.resources.LoopResources;
+
+/**
+ * Runs the HTTP server and the PostgreSQL driver on one set of {@code event-loop-threads} Netty event loops, so the
+ * service uses a known, fixed number of threads for all its I/O. 0 keeps Reactor Netty's defaults (one loop per
+ * core, at least four, shared by server and driver).
+ */
+@Configuration
+public class EventLoopConfig {
+
+    // r2dbc-postgresql's option, referenced by name: the driver is only a runtime dependency
+    private static final Option<LoopResources> LOOP_RESOURCES = Option.valueOf("loopResources");
+
+    @Value("${demo1.reactive.event-loop-threads:0}")
+    private int eventLoopThreads;
+
+    @Bean(destroyMethod = "dispose")
+    public LoopResources demo1EventLoops() {
+        return LoopResources.create("demo1-reactive", eventLoopThreads > 0 ? eventLoopThreads
+                : LoopResources.DEFAULT_IO_WORKER_COUNT, true);
+    }
+
+    @Bean
+    public NettyServerCustomizer eventLoopServerCustomizer(LoopResources demo1EventLoops) {
+        return server -> eventLoopThreads > 0 ? server.runOn(demo1EventLoops) : server;
+    }
+
+    @Bean
+    public ConnectionFactoryOptionsBuilderCustomizer eventLoopConnectionCustomizer(LoopResources demo1EventLoops) {
+        return options -> {
+            if (eventLoopThreads > 0) {
+                options.option(LOOP_RESOURCES, demo1EventLoops);
+            }
+        };
+    }
+}
@@ -0,0 +1,57 @@
+package com.example.demo1reactive.config;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.web.codec.CodecCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.http.codec.json.Jackson2SmileDecoder;
+import org.springframework.http.codec.json.Jackson2SmileEncoder;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.util.MimeType;
+
+@Configuration
+public class JacksonConfig {
+
+    public static final String APPLICATION_SMILE_VALUE = "application/x-jackson-smile";
+
+    @Value("${demo1.json.pretty-print:false}")
+    private boolean prettyPrint;
+
+    @Bean
+    @Primary
+    public ObjectMapper objectMapper(Jackson2ObjectMapperBuilder builder) {
+        ObjectMapper objectMapper = builder.createXmlMapper(false).build();
+
+        // Same settings as demo1, so both variants write identical JSON
+        objectMapper.configure(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS, false);
+        objectMapper.configure(SerializationFeature.FAIL_ON_EMPTY_BEANS, false);
+        objectMapper.configure(SerializationFeature.INDENT_OUTPUT, prettyPrint);
+        objectMapper.setSerializationInclusion(JsonInclude.Include.NON_NULL);
+        objectMapper.registerModule(new JavaTimeModule());
+
+        return objectMapper;
+    }
+
+    /**
+     * Smile codecs derived from the application ObjectMapper instead of WebFlux's defaults (which would write
+     * timestamps as arrays), so a Smile body carries the same content as the JSON one, as it does from demo1.
+     * They keep the default codecs' place after JSON, so JSON stays the answer to clients that accept anything.
+     */
+    @Bean
+    public CodecCustomizer smileCodecCustomizer(ObjectMapper objectMapper) {
+        ObjectMapper smileMapper = objectMapper.copyWith(new SmileFactory())
+                .configure(SerializationFeature.INDENT_OUTPUT, false);
+        // Without explicit types these codecs would claim application/json
+        MimeType smile = MimeType.valueOf(APPLICATION_SMILE_VALUE);
+        return configurer -> {
+            configurer.defaultCodecs().jackson2SmileEncoder(new Jackson2SmileEncoder(smileMapper, smile));
+            configurer.defaultCodecs().jackson2SmileDecoder(new Jackson2SmileDecoder(smileMapper, smile));
+        };
+    }
+}
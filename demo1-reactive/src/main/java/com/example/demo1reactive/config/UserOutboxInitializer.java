@@ -0,0 +1,53 @@
+package com.example.demo1reactive.config;
+
+import com.example.demo1reactive.service.UserOutbox;
+import io.r2dbc.spi.ConnectionFactory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.r2dbc.connection.init.ResourceDatabasePopulator;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+/**
+ * Applies {@code db/user-outbox.sql} (the same idempotent script as demo1's, PostgreSQL 13+) before the web
+ * server accepts requests, for databases demo1 has not initialized. Turn {@code create-table} off where the
+ * schema is managed elsewhere.
+ */
+@Component
+public class UserOutboxInitializer implements SmartInitializingSingleton {
+
+    private static final Logger logger = LoggerFactory.getLogger(UserOutboxInitializer.class);
+    private static final String SCRIPT = "db/user-outbox.sql";
+    private static final Duration TIMEOUT = Duration.ofSeconds(30);
+
+    private final ConnectionFactory connectionFactory;
+    private final UserOutbox userOutbox;
+
+    @Value("${demo1.users.outbox.create-table:true}")
+    private boolean createTable;
+
+    @Autowired
+    public UserOutboxInitializer(ConnectionFactory connectionFactory, UserOutbox userOutbox) {
+        this.connectionFactory = connectionFactory;
+        this.userOutbox = userOutbox;
+    }
+
+    // Runs on the main thread, which may block, before the server is started
+    @Override
+    public void afterSingletonsInstantiated() {
+        if (!userOutbox.isEnabled() || !createTable) {
+            return;
+        }
+        try {
+            new ResourceDatabasePopulator(new ClassPathResource(SCRIPT)).populate(connectionFactory).block(TIMEOUT);
+        } catch (RuntimeException e) {
+            logger.error("Could not create the user outbox (PostgreSQL 13+ required), "
+                    + "user writes will fail until {} is applied: {}", SCRIPT, e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,160 @@
+package com.example.demo1reactive.controller;
+
+import com.example.demo1reactive.config.JacksonConfig;
+import com.example.demo1reactive.entity.User;
+import com.example.demo1reactive.service.UserExportService;
+import com.example.demo1reactive.service.UserService;
+import com.example.userapi.ExportFormat;
+import com.example.userapi.TotalCountMode;
+import com.example.userapi.UserETags;
+import com.example.userapi.dto.ApiResponse;
+import com.example.userapi.dto.PaginationInfo;
+import com.example.userapi.dto.UserBatchRequest;
+import com.example.userapi.dto.UserBatchResult;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The routes and JSON contract of demo1's {@code UserController}, served without blocking: every handler returns
+ * a publisher and no request holds a thread while it waits for PostgreSQL.
+ * <p>
+ * Search, bulk import, sign-up ingest, cache statistics and the change feed stay with demo1.
+ */
+@RestController
+@RequestMapping("/api/users")
+@CrossOrigin(origins = "*")
+public class UserController {
+
+    private static final Logger logger = LoggerFactory.getLogger(UserController.class);
+    private final UserService userService;
+    private final UserExportService userExportService;
+
+    // 0 means clients may keep responses but must revalidate them (cheap: a 304 carries no body)
+    @Value("${demo1.users.http-cache.max-age-seconds:0}")
+    private long maxAgeSeconds;
+
+    @Autowired
+    public UserController(UserService userService, UserExportService userExportService) {
+        this.userService = userService;
+        this.userExportService = userExportService;
+    }
+
+    @GetMapping(produces = {MediaType.APPLICATION_JSON_VALUE, JacksonConfig.APPLICATION_SMILE_VALUE})
+    public Mono<ResponseEntity<ApiResponse<List<User>>>> getAllUsers(
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "1000") int size,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "none") String total) {
+
+        return listUsers(page, size, cursor, total);
+    }
+
+    // Streams from a server-side cursor at the pace the client reads
+    @GetMapping("/export")
+    public ResponseEntity<Flux<DataBuffer>> exportUsers(@RequestParam(defaultValue = "ndjson") String format,
+                                                        ServerWebExchange exchange) {
+        ExportFormat exportFormat = ExportFormat.fromParameter(format);
+        logger.debug("Exporting users - format: {}", exportFormat);
+
+        Flux<DataBuffer> body = userExportService.export(exportFormat, exchange.getResponse().bufferFactory());
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(exportFormat.getContentType()))
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=users." + exportFormat.getFileExtension())
+                .body(body);
+    }
+
+    @GetMapping(value = "/batch", produces = {MediaType.APPLICATION_JSON_VALUE, JacksonConfig.APPLICATION_SMILE_VALUE})
+    public Mono<ResponseEntity<ApiResponse<UserBatchResult>>> getUsersByIds(@RequestParam List<Long> ids) {
+        return userService.getUsersByIds(ids).map(result -> ResponseEntity.ok(
+                ApiResponse.ok("Found " + result.found() + " of " + result.requested() + " users", result)));
+    }
+
+    @PostMapping(value = "/batch", consumes = MediaType.APPLICATION_JSON_VALUE,
+            produces = {MediaType.APPLICATION_JSON_VALUE, JacksonConfig.APPLICATION_SMILE_VALUE})
+    public Mono<ResponseEntity<ApiResponse<UserBatchResult>>> getUsersByIds(@RequestBody UserBatchRequest request) {
+        return getUsersByIds(request.ids());
+    }
+
+    @GetMapping(value = "/{id}", produces = {MediaType.APPLICATION_JSON_VALUE, JacksonConfig.APPLICATION_SMILE_VALUE})
+    public Mono<ResponseEntity<ApiResponse<User>>> getUserById(@PathVariable Long id) {
+        // A matching If-None-Match is answered with 304 by WebFlux before the body is encoded
+        return userService.getUserById(id).map(user -> ResponseEntity.ok().eTag(UserETags.of(user))
+                .cacheControl(cacheControl()).varyBy(HttpHeaders.ACCEPT)
+                .body(ApiResponse.ok("User retrieved successfully", user)));
+    }
+
+    @PostMapping(consumes = MediaType.APPLICATION_JSON_VALUE, produces = MediaType.APPLICATION_JSON_VALUE)
+    public Mono<ResponseEntity<ApiResponse<User>>> createUser(@RequestBody User user) {
+        return userService.createUser(user)
+                .map(createdUser -> ResponseEntity.ok(ApiResponse.ok("User created successfully", createdUser)));
+    }
+
+    @PutMapping(value = "/{id}", consumes = MediaType.APPLICATION_JSON_VALUE, produces = MediaType.APPLICATION_JSON_VALUE)
+    public Mono<ResponseEntity<ApiResponse<User>>> updateUser(@PathVariable Long id, @RequestBody User user) {
+        user.setId(id);
+        return userService.updateUser(user)
+                .map(updatedUser -> ResponseEntity.ok(ApiResponse.ok("User updated successfully", updatedUser)));
+    }
+
+    @DeleteMapping(value = "/{id}", produces = MediaType.APPLICATION_JSON_VALUE)
+    public Mono<ResponseEntity<ApiResponse<Void>>> deleteUser(@PathVariable Long id) {
+        return userService.deleteUser(id)
+                .then(Mono.fromSupplier(() -> ResponseEntity.ok(ApiResponse.<Void>deleted("User deleted successfully", id))));
+    }
+
+    // Kept for existing clients; same body as GET /api/users
+    @GetMapping(value = "/json-tree", produces = MediaType.APPLICATION_JSON_VALUE)
+    public Mono<ResponseEntity<ApiResponse<List<User>>>> getUsersAsJsonTree(
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "1000") int size,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "none") String total) {
+
+        return listUsers(page, size, cursor, total);
+    }
+
+    /**
+     * Lists users with an entity tag. Unlike demo1 no tags are remembered between requests, so a conditional
+     * request still loads the page; WebFlux answers 304 when its tag matches instead of encoding it.
+     */
+    private Mono<ResponseEntity<ApiResponse<List<User>>>> listUsers(int page, int size, String cursor, String total) {
+        return loadUsers(page, size, cursor, total).map(body -> ResponseEntity.ok()
+                // The tag covers the data, not its encoding; Vary keeps the JSON and Smile bodies apart in shared caches
+                .eTag(UserETags.of(body.data(), body.pagination()))
+                .cacheControl(cacheControl()).varyBy(HttpHeaders.ACCEPT)
+                .body(body));
+    }
+
+    private Mono<ApiResponse<List<User>>> loadUsers(int page, int size, String cursor, String total) {
+        // Any cursor parameter (an empty one starts at the beginning) switches to keyset paging
+        if (cursor != null) {
+            logger.debug("Fetching users - cursor: {}, size: {}", cursor, size);
+            return userService.getUsersAfter(cursor, size, TotalCountMode.fromParameter(total))
+                    .map(userPage -> ApiResponse.page("Users retrieved successfully", userPage.content(),
+                            PaginationInfo.of(userPage)));
+        }
+
+        logger.debug("Fetching users - page: {}, size: {}", page, size);
+        return userService.getAllUsers(page, size)
+                .map(userPage -> ApiResponse.page("Users retrieved successfully", userPage.getContent(),
+                        PaginationInfo.of(userPage)));
+    }
+
+    private CacheControl cacheControl() {
+        return maxAgeSeconds > 0 ? CacheControl.maxAge(maxAgeSeconds, TimeUnit.SECONDS) : CacheControl.noCache();
+    }
+}
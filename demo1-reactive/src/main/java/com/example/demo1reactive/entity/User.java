@@ -0,0 +1,87 @@
+package com.example.demo1reactive.entity;
+
+import com.example.userapi.UserData;
+import com.fasterxml.jackson.annotation.JsonFormat;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.relational.core.mapping.Column;
+import org.springframework.data.relational.core.mapping.Table;
+
+import java.time.LocalDateTime;
+
+/**
+ * Row of {@code demo.users}, mapped by Spring Data R2DBC; serialized exactly like demo1's JPA entity.
+ */
+@Table(name = "users", schema = "demo")
+public class User implements UserData {
+
+    @Id
+    @JsonProperty("id")
+    private Long id;
+
+    @Column("name")
+    @JsonProperty("name")
+    private String name;
+
+    @Column("email")
+    @JsonProperty("email")
+    private String email;
+
+    @Column("created_at")
+    @JsonProperty("createdAt")
+    @JsonFormat(pattern = "yyyy-MM-dd HH:mm:ss")
+    private LocalDateTime createdAt;
+
+    // Default constructor for Jackson and Spring Data
+    public User() {
+        this.createdAt = LocalDateTime.now();
+    }
+
+    public User(String name, String email) {
+        this.name = name;
+        this.email = email;
+        this.createdAt = LocalDateTime.now();
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public void setName(String name) {
+        this.name = name;
+    }
+
+    public String getEmail() {
+        return email;
+    }
+
+    public void setEmail(String email) {
+        this.email = email;
+    }
+
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+
+    public void setCreatedAt(LocalDateTime createdAt) {
+        this.createdAt = createdAt;
+    }
+
+    @Override
+    public String toString() {
+        return "User{" +
+                "id=" + id +
+                ", name='" + name + '\'' +
+                ", email='" + email + '\'' +
+                ", createdAt=" + createdAt +
+                '}';
+    }
+}
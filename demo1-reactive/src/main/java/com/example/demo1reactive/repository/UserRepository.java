@@ -0,0 +1,56 @@
+package com.example.demo1reactive.repository;
+
+import com.example.demo1reactive.entity.User;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.r2dbc.repository.Query;
+import org.springframework.data.repository.reactive.ReactiveCrudRepository;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+@Repository
+public interface UserRepository extends ReactiveCrudRepository<User, Long> {
+
+    /**
+     * Offset page of users, ordered by the pageable's sort.
+     * @param pageable page number, size and sort
+     * @return the users on that page
+     */
+    Flux<User> findAllBy(Pageable pageable);
+
+    /**
+     * Keyset page: users with an id greater than the given one, in id order.
+     * Runs as a single range scan on the primary key without a COUNT query.
+     * @param id the last id of the previous page (0 for the first page)
+     * @param limit maximum number of rows to return
+     * @return users following the given id
+     */
+    @Query("SELECT id, name, email, created_at FROM demo.users WHERE id > :id ORDER BY id LIMIT :limit")
+    Flux<User> findAfter(Long id, int limit);
+
+    /**
+     * Planner row estimate for the users table, maintained by ANALYZE/autovacuum.
+     * @return the estimated row count, or a negative value if the table was never analyzed
+     */
+    @Query("SELECT CAST(reltuples AS bigint) FROM pg_class WHERE oid = to_regclass('demo.users')")
+    Mono<Long> estimateCount();
+
+    /**
+     * Updates name and email in one statement and returns the updated row.
+     * A duplicate email surfaces as a {@code DataIntegrityViolationException} from the unique constraint.
+     * @param id the id of the user to update
+     * @param name the new name
+     * @param email the new email address
+     * @return the updated user, or empty if no user has the given id
+     */
+    @Query("UPDATE demo.users SET name = :name, email = :email WHERE id = :id RETURNING id, name, email, created_at")
+    Mono<User> updateReturning(Long id, String name, String email);
+
+    /**
+     * Deletes a user in one statement.
+     * @param id the id of the user to delete
+     * @return the email of the deleted user, or empty if no user has the given id
+     */
+    @Query("DELETE FROM demo.users WHERE id = :id RETURNING email")
+    Mono<String> deleteReturningEmail(Long id);
+}
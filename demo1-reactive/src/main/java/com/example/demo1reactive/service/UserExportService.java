@@ -0,0 +1,144 @@
+package com.example.demo1reactive.service;
+
+import com.example.demo1reactive.entity.User;
+import com.example.userapi.ExportFormat;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import io.r2dbc.spi.Readable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferFactory;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.reactive.TransactionalOperator;
+import reactor.core.publisher.Flux;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Streams the whole users table as response buffers, in the same formats as demo1's export.
+ * <p>
+ * Backpressure reaches the database: the driver fetches {@code fetch-size} rows at a time from a portal and only
+ * asks for more once the buffers written so far have gone out to the client, so a slow reader holds one batch
+ * in memory rather than the table.
+ */
+@Service
+public class UserExportService {
+
+    private static final Logger logger = LoggerFactory.getLogger(UserExportService.class);
+    private static final String EXPORT_SQL = "SELECT id, name, email, created_at FROM demo.users ORDER BY id";
+    private static final DateTimeFormatter CSV_DATE_FORMAT = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+    private static final byte[] CSV_HEADER = "id,name,email,createdAt\n".getBytes(StandardCharsets.UTF_8);
+
+    private final DatabaseClient databaseClient;
+    private final TransactionalOperator transactionalOperator;
+    private final ObjectWriter userWriter;
+
+    @Value("${demo1.users.export.fetch-size:1000}")
+    private int fetchSize;
+
+    // Rows per response buffer
+    @Value("${demo1.users.export.flush-every:1000}")
+    private int flushEvery;
+
+    @Autowired
+    public UserExportService(DatabaseClient databaseClient, TransactionalOperator transactionalOperator,
+                             ObjectMapper objectMapper) {
+        this.databaseClient = databaseClient;
+        this.transactionalOperator = transactionalOperator;
+        // One compact object per line, all written into the same buffer
+        this.userWriter = objectMapper.writerFor(User.class)
+                .without(JsonGenerator.Feature.AUTO_CLOSE_TARGET)
+                .without(SerializationFeature.INDENT_OUTPUT)
+                .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+    }
+
+    /**
+     * Every user, encoded in batches. Cancelling (a client disconnect) stops the query and is not an error.
+     */
+    public Flux<DataBuffer> export(ExportFormat format, DataBufferFactory bufferFactory) {
+        AtomicLong rows = new AtomicLong();
+        Flux<DataBuffer> body = streamUsers()
+                .buffer(flushEvery)
+                .map(batch -> {
+                    rows.addAndGet(batch.size());
+                    return encode(format, batch, bufferFactory);
+                });
+        if (format == ExportFormat.CSV) {
+            body = Flux.concat(Flux.defer(() -> Flux.just(bufferFactory.wrap(CSV_HEADER))), body);
+        }
+        return body
+                .doOnComplete(() -> logger.info("User export finished - format: {}, rows: {}", format, rows.get()))
+                .doOnCancel(() -> logger.info("User export aborted after {} rows", rows.get()));
+    }
+
+    // A portal is only kept open across fetches inside a transaction
+    private Flux<User> streamUsers() {
+        return databaseClient.sql(EXPORT_SQL)
+                .filter(statement -> statement.fetchSize(fetchSize))
+                .map(UserExportService::mapUser)
+                .all()
+                .as(transactionalOperator::transactional);
+    }
+
+    private DataBuffer encode(ExportFormat format, List<User> batch, DataBufferFactory bufferFactory) {
+        DataBuffer buffer = bufferFactory.allocateBuffer(batch.size() * 96);
+        try (OutputStream out = buffer.asOutputStream()) {
+            for (User user : batch) {
+                if (format == ExportFormat.CSV) {
+                    writeCsv(out, user);
+                } else {
+                    userWriter.writeValue(out, user);
+                    out.write('\n');
+                }
+            }
+            return buffer;
+        } catch (IOException e) {
+            DataBufferUtils.release(buffer);
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static void writeCsv(OutputStream out, User user) throws IOException {
+        StringBuilder line = new StringBuilder(96)
+                .append(user.getId()).append(',')
+                .append(csvField(user.getName())).append(',')
+                .append(csvField(user.getEmail())).append(',');
+        if (user.getCreatedAt() != null) {
+            line.append(CSV_DATE_FORMAT.format(user.getCreatedAt()));
+        }
+        out.write(line.append('\n').toString().getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static User mapUser(Readable row) {
+        User user = new User();
+        user.setId(row.get("id", Long.class));
+        user.setName(row.get("name", String.class));
+        user.setEmail(row.get("email", String.class));
+        user.setCreatedAt(row.get("created_at", LocalDateTime.class));
+        return user;
+    }
+
+    private static String csvField(String value) {
+        if (value == null) {
+            return "";
+        }
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0 && value.indexOf('\r') < 0) {
+            return value;
+        }
+        return '"' + value.replace("\"", "\"\"") + '"';
+    }
+}
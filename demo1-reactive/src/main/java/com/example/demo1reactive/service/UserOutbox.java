@@ -0,0 +1,64 @@
+package com.example.demo1reactive.service;
+
+import com.example.demo1reactive.entity.User;
+import com.example.userapi.dto.UserChangeOperation;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Mono;
+
+import java.time.LocalDateTime;
+
+/**
+ * Writing side of demo1's transactional outbox ({@code demo.user_outbox}). demo1 serves the feed and purges it;
+ * recording writes made here too keeps demo2's replica complete when both variants share the database.
+ */
+@Service
+public class UserOutbox {
+
+    private static final String INSERT_SQL = """
+            INSERT INTO demo.user_outbox (user_id, operation, name, email, created_at)
+            VALUES (:userId, :operation, :name, :email, :createdAt)""";
+
+    private final DatabaseClient databaseClient;
+
+    @Value("${demo1.users.outbox.enabled:true}")
+    private boolean enabled;
+
+    @Autowired
+    public UserOutbox(DatabaseClient databaseClient) {
+        this.databaseClient = databaseClient;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Records a created or updated user; must be subscribed within the transaction that wrote it.
+     */
+    public Mono<Void> recordWritten(UserChangeOperation operation, User user) {
+        return record(user.getId(), operation, user.getName(), user.getEmail(), user.getCreatedAt());
+    }
+
+    public Mono<Void> recordDeleted(Long id, String email) {
+        return record(id, UserChangeOperation.DELETED, null, email, null);
+    }
+
+    private Mono<Void> record(Long userId, UserChangeOperation operation, String name, String email,
+                              LocalDateTime createdAt) {
+        if (!enabled) {
+            return Mono.empty();
+        }
+        DatabaseClient.GenericExecuteSpec insert = databaseClient.sql(INSERT_SQL)
+                .bind("userId", userId)
+                .bind("operation", operation.toJson())
+                .bind("email", email);
+        // Deletes carry no name or creation time; a null still needs its type
+        insert = name != null ? insert.bind("name", name) : insert.bindNull("name", String.class);
+        insert = createdAt != null
+                ? insert.bind("createdAt", createdAt) : insert.bindNull("createdAt", LocalDateTime.class);
+        return insert.then();
+    }
+}
@@ -0,0 +1,188 @@
+package com.example.demo1reactive.service;
+
+import com.example.demo1reactive.entity.User;
+import com.example.demo1reactive.exception.ConflictException;
+import com.example.demo1reactive.exception.ResourceNotFoundException;
+import com.example.demo1reactive.repository.UserRepository;
+import com.example.userapi.TotalCountMode;
+import com.example.userapi.UserCursor;
+import com.example.userapi.dto.CursorPage;
+import com.example.userapi.dto.UserBatchEntry;
+import com.example.userapi.dto.UserBatchResult;
+import com.example.userapi.dto.UserChangeOperation;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import reactor.core.publisher.Mono;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Non-blocking counterpart of demo1's {@code UserService}: the same queries and rules, returning publishers.
+ * Nothing is cached in memory, every call reaches the database.
+ */
+@Service
+public class UserService {
+
+    private final UserRepository userRepository;
+    private final UserOutbox userOutbox;
+    private static final int DEFAULT_PAGE_SIZE = 1000;
+
+    @Value("${demo1.users.count-cache-ttl-ms:30000}")
+    private long countCacheTtlMs;
+
+    @Value("${demo1.users.batch.max-ids:1000}")
+    private int maxBatchIds;
+
+    private volatile CachedCount cachedCount;
+
+    @Autowired
+    public UserService(UserRepository userRepository, UserOutbox userOutbox) {
+        this.userRepository = userRepository;
+        this.userOutbox = userOutbox;
+    }
+
+    public Mono<Page<User>> getAllUsers(int page, int size) {
+        Pageable pageable = PageRequest.of(page, Math.min(size, DEFAULT_PAGE_SIZE), Sort.by("id"));
+        // Page and count run concurrently, each on its own pooled connection
+        return Mono.zip(userRepository.findAllBy(pageable).collectList(), userRepository.count())
+                .map(pageAndCount -> new PageImpl<>(pageAndCount.getT1(), pageable, pageAndCount.getT2()));
+    }
+
+    public Mono<CursorPage<User>> getUsersAfter(String cursor, int size, TotalCountMode totalMode) {
+        int pageSize = Math.min(size, DEFAULT_PAGE_SIZE);
+        if (pageSize < 1) {
+            return Mono.error(new IllegalArgumentException("Page size must not be less than one"));
+        }
+        long lastId;
+        try {
+            lastId = UserCursor.decode(cursor);
+        } catch (IllegalArgumentException e) {
+            return Mono.error(e);
+        }
+
+        // Fetch one extra row to learn whether another page exists without a COUNT query
+        Mono<List<User>> rows = userRepository.findAfter(lastId, pageSize + 1).collectList();
+        Mono<TotalCount> total = switch (totalMode) {
+            case NONE -> Mono.just(TotalCount.NONE);
+            case CACHED -> getCachedTotalUsers().map(count -> new TotalCount(count, false));
+            // reltuples is -1 until the table has been analyzed at least once
+            case ESTIMATE -> userRepository.estimateCount()
+                    .filter(estimate -> estimate >= 0)
+                    .map(estimate -> new TotalCount(estimate, true))
+                    .switchIfEmpty(Mono.defer(() -> getCachedTotalUsers().map(count -> new TotalCount(count, false))));
+        };
+        return Mono.zip(rows, total).map(rowsAndTotal -> {
+            List<User> fetched = rowsAndTotal.getT1();
+            boolean hasNext = fetched.size() > pageSize;
+            List<User> content = hasNext ? fetched.subList(0, pageSize) : fetched;
+            String nextCursor = hasNext ? UserCursor.encode(content.get(content.size() - 1).getId()) : null;
+            TotalCount totalCount = rowsAndTotal.getT2();
+            return new CursorPage<>(content, pageSize, hasNext, nextCursor, totalCount.items(),
+                    totalCount.estimated());
+        });
+    }
+
+    public Mono<User> getUserById(Long id) {
+        return userRepository.findById(id)
+                .switchIfEmpty(Mono.error(() -> new ResourceNotFoundException("User not found with ID: " + id)));
+    }
+
+    /**
+     * Looks up many users with a single {@code WHERE id IN (...)} query. Entries follow the request order,
+     * duplicates included.
+     */
+    public Mono<UserBatchResult> getUsersByIds(List<Long> ids) {
+        if (ids == null || ids.isEmpty()) {
+            return Mono.error(new IllegalArgumentException("At least one id is required"));
+        }
+        if (ids.size() > maxBatchIds) {
+            return Mono.error(new IllegalArgumentException("At most " + maxBatchIds + " ids may be requested at once"));
+        }
+        if (ids.contains(null)) {
+            return Mono.error(new IllegalArgumentException("Ids must not be null"));
+        }
+
+        Set<Long> distinctIds = new LinkedHashSet<>(ids);
+        return userRepository.findAllById(distinctIds).collectMap(User::getId).map(found -> toBatchResult(ids, found));
+    }
+
+    @Transactional
+    public Mono<User> createUser(User user) {
+        // Set creation timestamp if not already set
+        if (user.getCreatedAt() == null) {
+            user.setCreatedAt(LocalDateTime.now());
+        }
+        // Always an INSERT; a null id is what makes save insert rather than update
+        user.setId(null);
+
+        // One INSERT; the unique email constraint replaces a check-then-act lookup
+        return userRepository.save(user)
+                .onErrorMap(DuplicateKeyException.class, e -> conflict(user.getEmail()))
+                .flatMap(saved -> userOutbox.recordWritten(UserChangeOperation.CREATED, saved).thenReturn(saved));
+    }
+
+    @Transactional
+    public Mono<User> updateUser(User user) {
+        // One UPDATE ... RETURNING; no row means the user does not exist
+        return userRepository.updateReturning(user.getId(), user.getName(), user.getEmail())
+                .onErrorMap(DuplicateKeyException.class, e -> conflict(user.getEmail()))
+                .switchIfEmpty(Mono.error(() -> new ResourceNotFoundException("User not found with ID: " + user.getId())))
+                .flatMap(updated -> userOutbox.recordWritten(UserChangeOperation.UPDATED, updated).thenReturn(updated));
+    }
+
+    @Transactional
+    public Mono<Void> deleteUser(Long id) {
+        // One DELETE ... RETURNING; no row means the user does not exist
+        return userRepository.deleteReturningEmail(id)
+                .switchIfEmpty(Mono.error(() -> new ResourceNotFoundException("User not found with ID: " + id)))
+                .flatMap(email -> userOutbox.recordDeleted(id, email));
+    }
+
+    private static UserBatchResult toBatchResult(List<Long> ids, Map<Long, User> found) {
+        List<UserBatchEntry> entries = new ArrayList<>(ids.size());
+        List<Long> missingIds = new ArrayList<>();
+        for (Long id : ids) {
+            User user = found.get(id);
+            if (user != null) {
+                entries.add(UserBatchEntry.found(user));
+            } else {
+                entries.add(UserBatchEntry.notFound(id));
+                missingIds.add(id);
+            }
+        }
+        return new UserBatchResult(ids.size(), ids.size() - missingIds.size(), missingIds, entries);
+    }
+
+    private static ConflictException conflict(String email) {
+        return new ConflictException("User with email " + email + " already exists");
+    }
+
+    private Mono<Long> getCachedTotalUsers() {
+        CachedCount current = cachedCount;
+        long now = System.currentTimeMillis();
+        if (current != null && now - current.loadedAt() <= countCacheTtlMs) {
+            return Mono.just(current.value());
+        }
+        return userRepository.count().doOnNext(count -> cachedCount = new CachedCount(count, now));
+    }
+
+    private record CachedCount(long value, long loadedAt) {
+    }
+
+    private record TotalCount(Long items, boolean estimated) {
+        static final TotalCount NONE = new TotalCount(null, false);
+    }
+}
@@ -0,0 +1,24 @@
+-- Transactional outbox behind GET /api/users/changes. Every write to demo.users adds a row here in the same
+-- transaction. txid is the writing transaction; readers page by (txid, id) and stop at the oldest transaction
+-- still running, so a change that commits late is never skipped. Per user, id follows commit order.
+-- Requires PostgreSQL 13 or later (xid8). Idempotent.
+CREATE TABLE IF NOT EXISTS demo.user_outbox (
+    id          bigserial PRIMARY KEY,
+    txid        xid8 NOT NULL DEFAULT pg_current_xact_id(),
+    user_id     bigint NOT NULL,
+    operation   varchar(16) NOT NULL,
+    name        varchar(255),
+    email       varchar(255),
+    created_at  timestamp,
+    occurred_at timestamptz NOT NULL DEFAULT clock_timestamp()
+);
+CREATE INDEX IF NOT EXISTS user_outbox_position_idx ON demo.user_outbox (txid, id);
+CREATE INDEX IF NOT EXISTS user_outbox_user_idx ON demo.user_outbox (user_id, id);
+CREATE INDEX IF NOT EXISTS user_outbox_occurred_at_idx ON demo.user_outbox (occurred_at);
+
+-- Position of the newest purged change; feed cursors before it have missed changes
+CREATE TABLE IF NOT EXISTS demo.user_outbox_purge (
+    singleton boolean PRIMARY KEY DEFAULT true CHECK (singleton),
+    txid      xid8 NOT NULL,
+    id        bigint NOT NULL
+);
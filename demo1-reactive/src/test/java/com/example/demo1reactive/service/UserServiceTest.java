@@ -0,0 +1,151 @@
+package com.example.demo1reactive.service;
+
+import com.example.demo1reactive.entity.User;
+import com.example.demo1reactive.exception.ConflictException;
+import com.example.demo1reactive.exception.ResourceNotFoundException;
+import com.example.demo1reactive.repository.UserRepository;
+import com.example.userapi.TotalCountMode;
+import com.example.userapi.UserCursor;
+import com.example.userapi.dto.UserChangeOperation;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.domain.Pageable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class UserServiceTest {
+
+    @Mock
+    private UserRepository userRepository;
+
+    @Mock
+    private UserOutbox userOutbox;
+
+    private UserService userService;
+
+    @BeforeEach
+    void setUp() {
+        userService = new UserService(userRepository, userOutbox);
+    }
+
+    @Test
+    void getAllUsersCombinesPageAndCount() {
+        when(userRepository.findAllBy(any(Pageable.class))).thenReturn(Flux.just(user(3L), user(4L)));
+        when(userRepository.count()).thenReturn(Mono.just(6L));
+
+        StepVerifier.create(userService.getAllUsers(1, 2))
+                .assertNext(page -> {
+                    assertEquals(List.of(3L, 4L), page.getContent().stream().map(User::getId).toList());
+                    assertEquals(6L, page.getTotalElements());
+                    assertEquals(3, page.getTotalPages());
+                    assertTrue(page.hasNext());
+                })
+                .verifyComplete();
+    }
+
+    @Test
+    void getUsersAfterFetchesOneExtraRowForTheNextCursor() {
+        when(userRepository.findAfter(0L, 3)).thenReturn(Flux.just(user(1L), user(2L), user(3L)));
+
+        StepVerifier.create(userService.getUsersAfter(null, 2, TotalCountMode.NONE))
+                .assertNext(page -> {
+                    assertEquals(List.of(1L, 2L), page.content().stream().map(User::getId).toList());
+                    assertTrue(page.hasNext());
+                    assertEquals(UserCursor.encode(2L), page.nextCursor());
+                    assertNull(page.totalItems());
+                })
+                .verifyComplete();
+    }
+
+    @Test
+    void getUsersAfterLastPageHasNoCursor() {
+        when(userRepository.findAfter(2L, 3)).thenReturn(Flux.just(user(3L)));
+
+        StepVerifier.create(userService.getUsersAfter(UserCursor.encode(2L), 2, TotalCountMode.NONE))
+                .assertNext(page -> {
+                    assertEquals(1, page.content().size());
+                    assertFalse(page.hasNext());
+                    assertNull(page.nextCursor());
+                })
+                .verifyComplete();
+    }
+
+    @Test
+    void getUsersAfterRejectsMalformedCursor() {
+        StepVerifier.create(userService.getUsersAfter("not-a-cursor", 2, TotalCountMode.NONE))
+                .verifyError(IllegalArgumentException.class);
+        verifyNoInteractions(userRepository);
+    }
+
+    @Test
+    void createUserMapsDuplicateEmailToConflict() {
+        when(userRepository.save(any(User.class))).thenReturn(Mono.error(new DuplicateKeyException("users_email_key")));
+
+        StepVerifier.create(userService.createUser(new User("A", "a@x.com")))
+                .verifyError(ConflictException.class);
+        verify(userOutbox, never()).recordWritten(any(), any());
+    }
+
+    @Test
+    void createUserRecordsTheChange() {
+        User saved = user(5L);
+        when(userRepository.save(any(User.class))).thenReturn(Mono.just(saved));
+        when(userOutbox.recordWritten(UserChangeOperation.CREATED, saved)).thenReturn(Mono.empty());
+
+        StepVerifier.create(userService.createUser(new User("A", "a@x.com")))
+                .expectNext(saved)
+                .verifyComplete();
+    }
+
+    @Test
+    void getUserByIdErrorsWhenMissing() {
+        when(userRepository.findById(99L)).thenReturn(Mono.empty());
+
+        StepVerifier.create(userService.getUserById(99L))
+                .verifyError(ResourceNotFoundException.class);
+    }
+
+    @Test
+    void updateUserErrorsWhenMissing() {
+        User changes = new User("A", "a@x.com");
+        changes.setId(99L);
+        when(userRepository.updateReturning(99L, "A", "a@x.com")).thenReturn(Mono.empty());
+
+        StepVerifier.create(userService.updateUser(changes))
+                .verifyError(ResourceNotFoundException.class);
+        verifyNoInteractions(userOutbox);
+    }
+
+    @Test
+    void deleteUserErrorsWhenMissing() {
+        when(userRepository.deleteReturningEmail(99L)).thenReturn(Mono.empty());
+
+        StepVerifier.create(userService.deleteUser(99L))
+                .verifyError(ResourceNotFoundException.class);
+        verifyNoInteractions(userOutbox);
+    }
+
+    private static User user(long id) {
+        User user = new User("User " + id, "user" + id + "@x.com");
+        user.setId(id);
+        return user;
+    }
+}
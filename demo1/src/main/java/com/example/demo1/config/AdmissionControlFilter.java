@@ -0,0 +1,206 @@
+package com.example.demo1.config;
+
+import com.example.userapi.dto.ApiResponse;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import jakarta.servlet.AsyncEvent;
+import jakarta.servlet.AsyncListener;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Admission control for {@code /api/users}: at most {@link GradientConcurrencyLimit#limit()} requests are served at
+ * once and the rest are turned away at once with 503 and {@code Retry-After}.
+ * <p>
+ * Without it a slow database parks every Tomcat thread on the connection pool for up to its 30 s timeout, and the
+ * service stops answering anything. The limit follows latency, so it closes in on what the database can take.
+ * Reads may only use {@code read-share} of it; the remainder is kept for writes, so reads, which are cheap to retry
+ * and often cached by the caller, are shed first.
+ */
+@Component
+public class AdmissionControlFilter extends OncePerRequestFilter implements MeterBinder {
+
+    private static final String PATH = "/api/users";
+
+    private final ObjectMapper objectMapper;
+    private final boolean enabled;
+    private final double readShare;
+    private final long retryAfterSeconds;
+    private final GradientConcurrencyLimit limit;
+
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final AtomicLong admittedReads = new AtomicLong();
+    private final AtomicLong admittedWrites = new AtomicLong();
+    private final AtomicLong rejectedReads = new AtomicLong();
+    private final AtomicLong rejectedWrites = new AtomicLong();
+
+    @Autowired
+    public AdmissionControlFilter(ObjectMapper objectMapper,
+                                  @Value("${demo1.admission.enabled:false}") boolean enabled,
+                                  @Value("${demo1.admission.initial-limit:20}") int initialLimit,
+                                  @Value("${demo1.admission.min-limit:5}") int minLimit,
+                                  @Value("${demo1.admission.max-limit:200}") int maxLimit,
+                                  @Value("${demo1.admission.read-share:0.8}") double readShare,
+                                  @Value("${demo1.admission.tolerance:1.5}") double tolerance,
+                                  @Value("${demo1.admission.smoothing:0.2}") double smoothing,
+                                  @Value("${demo1.admission.backoff-ratio:0.9}") double backoffRatio,
+                                  @Value("${demo1.admission.window-ms:500}") long windowMs,
+                                  @Value("${demo1.admission.min-window-samples:10}") int minWindowSamples,
+                                  @Value("${demo1.admission.retry-after-seconds:1}") long retryAfterSeconds) {
+        this.objectMapper = objectMapper;
+        this.enabled = enabled;
+        this.readShare = readShare;
+        this.retryAfterSeconds = retryAfterSeconds;
+        this.limit = new GradientConcurrencyLimit(initialLimit, minLimit, maxLimit, tolerance, smoothing,
+                backoffRatio, TimeUnit.MILLISECONDS.toNanos(windowMs), minWindowSamples);
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        String path = request.getRequestURI().substring(request.getContextPath().length());
+        return !enabled || !(path.equals(PATH) || path.startsWith(PATH + "/"));
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        boolean write = isWrite(request);
+        int admittedAt = tryAcquire(write ? limit.limit() : readLimit());
+        if (admittedAt < 0) {
+            (write ? rejectedWrites : rejectedReads).incrementAndGet();
+            reject(response);
+            return;
+        }
+        (write ? admittedWrites : admittedReads).incrementAndGet();
+
+        long started = System.nanoTime();
+        boolean failed = true;
+        try {
+            chain.doFilter(request, response);
+            failed = response.getStatus() >= HttpStatus.INTERNAL_SERVER_ERROR.value();
+        } finally {
+            if (request.isAsyncStarted()) {
+                // Streamed responses (exports) hold their slot until done; their duration says nothing about load
+                request.getAsyncContext().addListener(new ReleasingListener());
+            } else {
+                inFlight.decrementAndGet();
+                long now = System.nanoTime();
+                limit.onSample(now, now - started, admittedAt, failed);
+            }
+        }
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("demo1.admission.limit", limit, GradientConcurrencyLimit::limit)
+                .description("Concurrent /api/users requests admitted; reads get read-share of it")
+                .register(registry);
+        Gauge.builder("demo1.admission.in.flight", inFlight, AtomicInteger::get)
+                .description("/api/users requests being served")
+                .register(registry);
+        Gauge.builder("demo1.admission.latency", limit, l -> l.shortRttNanos() / 1e9)
+                .tag("window", "short").baseUnit("seconds")
+                .description("Mean latency the limit is estimated from").register(registry);
+        Gauge.builder("demo1.admission.latency", limit, l -> l.longRttNanos() / 1e9)
+                .tag("window", "long").baseUnit("seconds")
+                .description("Mean latency the limit is estimated from").register(registry);
+        FunctionCounter.builder("demo1.admission.requests", admittedReads, AtomicLong::get)
+                .tags("class", "read", "outcome", "admitted").description("Admission decisions")
+                .register(registry);
+        FunctionCounter.builder("demo1.admission.requests", admittedWrites, AtomicLong::get)
+                .tags("class", "write", "outcome", "admitted").description("Admission decisions")
+                .register(registry);
+        FunctionCounter.builder("demo1.admission.requests", rejectedReads, AtomicLong::get)
+                .tags("class", "read", "outcome", "rejected").description("Admission decisions")
+                .register(registry);
+        FunctionCounter.builder("demo1.admission.requests", rejectedWrites, AtomicLong::get)
+                .tags("class", "write", "outcome", "rejected").description("Admission decisions")
+                .register(registry);
+    }
+
+    // POST /api/users/batch only looks users up
+    private static boolean isWrite(HttpServletRequest request) {
+        String method = request.getMethod();
+        if (HttpMethod.GET.matches(method) || HttpMethod.HEAD.matches(method) || HttpMethod.OPTIONS.matches(method)) {
+            return false;
+        }
+        return !request.getRequestURI().endsWith(PATH + "/batch");
+    }
+
+    private int readLimit() {
+        return Math.max(1, (int) (limit.limit() * readShare));
+    }
+
+    /**
+     * @return requests in flight with this one, or -1 when {@code max} are already
+     */
+    private int tryAcquire(int max) {
+        while (true) {
+            int current = inFlight.get();
+            if (current >= max) {
+                return -1;
+            }
+            if (inFlight.compareAndSet(current, current + 1)) {
+                return current + 1;
+            }
+        }
+    }
+
+    private void reject(HttpServletResponse response) throws IOException {
+        response.setStatus(HttpStatus.SERVICE_UNAVAILABLE.value());
+        response.setHeader(HttpHeaders.RETRY_AFTER, String.valueOf(retryAfterSeconds));
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        objectMapper.writeValue(response.getOutputStream(), ApiResponse.error(HttpStatus.SERVICE_UNAVAILABLE,
+                "Too many concurrent requests, retry in " + retryAfterSeconds + " s"));
+    }
+
+    private final class ReleasingListener implements AsyncListener {
+
+        private final AtomicBoolean released = new AtomicBoolean();
+
+        @Override
+        public void onComplete(AsyncEvent event) {
+            release();
+        }
+
+        @Override
+        public void onTimeout(AsyncEvent event) {
+            release();
+        }
+
+        @Override
+        public void onError(AsyncEvent event) {
+            release();
+        }
+
+        @Override
+        public void onStartAsync(AsyncEvent event) {
+            // Still the same request
+        }
+
+        private void release() {
+            if (released.compareAndSet(false, true)) {
+                inFlight.decrementAndGet();
+            }
+        }
+    }
+}
@@ -0,0 +1,89 @@
+package com.example.demo1.config;
+
+import com.example.userapi.dto.ApiResponse;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.http.HttpInputMessage;
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.AbstractHttpMessageConverter;
+import org.springframework.http.converter.HttpMessageNotReadableException;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import java.io.IOException;
+
+/**
+ * Writes {@link ApiResponse} envelopes with ObjectWriters built once at startup.
+ * Output is compact JSON unless the request asks for {@code ?pretty=true}.
+ * <p>
+ * Clients that send {@code Accept: application/x-jackson-smile} (demo2) get the same envelope in Smile, Jackson's
+ * binary JSON: field names repeated across a page are written once and back-referenced, and numbers are binary.
+ * The Smile writer is derived from the application ObjectMapper, so both encodings carry identical content.
+ */
+public class ApiResponseHttpMessageConverter extends AbstractHttpMessageConverter<ApiResponse<?>> {
+
+    public static final String APPLICATION_SMILE_VALUE = "application/x-jackson-smile";
+    public static final MediaType APPLICATION_SMILE = MediaType.parseMediaType(APPLICATION_SMILE_VALUE);
+
+    private static final String PRETTY_PARAMETER = "pretty";
+
+    private final ObjectWriter compactWriter;
+    private final ObjectWriter prettyWriter;
+    private final ObjectWriter smileWriter;
+
+    public ApiResponseHttpMessageConverter(ObjectMapper objectMapper) {
+        super(MediaType.APPLICATION_JSON, APPLICATION_SMILE);
+        this.compactWriter = objectMapper.writerFor(ApiResponse.class)
+                .without(SerializationFeature.INDENT_OUTPUT);
+        this.prettyWriter = objectMapper.writerFor(ApiResponse.class)
+                .with(SerializationFeature.INDENT_OUTPUT)
+                .withDefaultPrettyPrinter();
+        this.smileWriter = objectMapper.copyWith(new SmileFactory()).writerFor(ApiResponse.class)
+                .without(SerializationFeature.INDENT_OUTPUT);
+    }
+
+    public ObjectWriter getWriter(boolean pretty) {
+        return pretty ? prettyWriter : compactWriter;
+    }
+
+    public ObjectWriter getSmileWriter() {
+        return smileWriter;
+    }
+
+    @Override
+    protected boolean supports(Class<?> clazz) {
+        return ApiResponse.class.isAssignableFrom(clazz);
+    }
+
+    @Override
+    protected boolean canRead(MediaType mediaType) {
+        return false;
+    }
+
+    @Override
+    protected ApiResponse<?> readInternal(Class<? extends ApiResponse<?>> clazz, HttpInputMessage inputMessage) {
+        throw new HttpMessageNotReadableException("ApiResponse is a response-only type", inputMessage);
+    }
+
+    @Override
+    protected void writeInternal(ApiResponse<?> response, HttpOutputMessage outputMessage) throws IOException {
+        MediaType contentType = outputMessage.getHeaders().getContentType();
+        ObjectWriter writer = APPLICATION_SMILE.isCompatibleWith(contentType)
+                ? smileWriter : getWriter(isPrettyRequested());
+        writer.writeValue(outputMessage.getBody(), response);
+    }
+
+    private static boolean isPrettyRequested() {
+        RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+        if (attributes instanceof ServletRequestAttributes servletAttributes) {
+            HttpServletRequest request = servletAttributes.getRequest();
+            return Boolean.parseBoolean(request.getParameter(PRETTY_PARAMETER));
+        }
+        return false;
+    }
+}
@@ -1,18 +1,23 @@
 package com.example.demo1.config;
 
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.boot.jdbc.DataSourceBuilder;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.context.annotation.Primary;
 import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
 import org.springframework.orm.jpa.JpaTransactionManager;
 import org.springframework.orm.jpa.LocalContainerEntityManagerFactoryBean;
 import org.springframework.orm.jpa.vendor.HibernateJpaVendorAdapter;
 import org.springframework.transaction.PlatformTransactionManager;
 
 import javax.sql.DataSource;
+import java.sql.Connection;
 import java.util.Properties;
 
 @Configuration
@@ -30,6 +35,21 @@ public class DataSourceConfig {
     @Value("${spring.datasource.driver-class-name}")
     private String renderDriverClassName;
 
+    @Value("${spring.datasource.hikari.maximum-pool-size:10}")
+    private int renderMaximumPoolSize;
+
+    @Value("${spring.datasource.hikari.minimum-idle:5}")
+    private int renderMinimumIdle;
+
+    @Value("${spring.datasource.hikari.connection-timeout:30000}")
+    private long renderConnectionTimeout;
+
+    @Value("${spring.datasource.hikari.idle-timeout:600000}")
+    private long renderIdleTimeout;
+
+    @Value("${spring.datasource.hikari.max-lifetime:1800000}")
+    private long renderMaxLifetime;
+
     @Value("${supabase.datasource.url}")
     private String supabaseJdbcUrl;
 
@@ -42,25 +62,61 @@ public class DataSourceConfig {
     @Value("${supabase.datasource.driver-class-name}")
     private String supabaseDriverClassName;
 
+    @Value("${demo1.datasource.read-replica.enabled:false}")
+    private boolean readReplicaEnabled;
+
+    @Value("${demo1.datasource.read-replica.stickiness-ms:5000}")
+    private long readReplicaStickinessMs;
+
+    @Value("${demo1.datasource.connection-limiter.enabled:false}")
+    private boolean connectionLimiterEnabled;
+
+    // show_sql writes every statement synchronously to stdout, bypassing the asynchronous loggers
+    @Value("${spring.jpa.show-sql:false}")
+    private boolean showSql;
+
+    @Value("${demo1.jpa.statistics-enabled:true}")
+    private boolean hibernateStatisticsEnabled;
+
     @Primary
     @Bean(name = "renderDataSource")
     public DataSource renderDataSource() {
-        return DataSourceBuilder.create()
+        HikariDataSource dataSource = DataSourceBuilder.create()
+                .type(HikariDataSource.class)
                 .url(renderJdbcUrl)
                 .username(renderUsername)
                 .password(renderPassword)
                 .driverClassName(renderDriverClassName)
                 .build();
+        // Pool name is the "pool" tag of the hikaricp.* metrics
+        dataSource.setPoolName("render");
+        dataSource.setMaximumPoolSize(renderMaximumPoolSize);
+        dataSource.setMinimumIdle(renderMinimumIdle);
+        dataSource.setConnectionTimeout(renderConnectionTimeout);
+        dataSource.setIdleTimeout(renderIdleTimeout);
+        dataSource.setMaxLifetime(renderMaxLifetime);
+
+        if (connectionLimiterEnabled) {
+            // With virtual threads, thousands of requests may want a connection at once; queue them before the pool
+            return new ConnectionLimitingDataSource(dataSource, renderMaximumPoolSize, renderConnectionTimeout);
+        }
+        return dataSource;
     }
 
+    // The supabase datasource, its JPA stack and transaction manager are only built when configured (or used as the
+    // read replica); nothing else needs them, and a second Hibernate bootstrap roughly doubles JPA startup time
     @Bean(name = "supabaseDataSource")
+    @ConditionalOnProperty(name = "supabase.datasource.enabled", havingValue = "true")
     public DataSource supabaseDataSource() {
-        return DataSourceBuilder.create()
+        HikariDataSource dataSource = DataSourceBuilder.create()
+                .type(HikariDataSource.class)
                 .url(supabaseJdbcUrl)
                 .username(supabaseUsername)
                 .password(supabasePassword)
                 .driverClassName(supabaseDriverClassName)
                 .build();
+        dataSource.setPoolName("supabase");
+        return dataSource;
     }
 
     @Primary
@@ -70,16 +126,42 @@ public class DataSourceConfig {
     }
 
     @Bean(name = "supabaseJdbcTemplate")
+    @ConditionalOnProperty(name = "supabase.datasource.enabled", havingValue = "true")
     public JdbcTemplate supabaseJdbcTemplate(@Qualifier("supabaseDataSource") DataSource dataSource) {
         return new JdbcTemplate(dataSource);
     }
 
+    @Bean(name = "replicaHealthMonitor", initMethod = "start", destroyMethod = "stop")
+    @ConditionalOnProperty(name = "demo1.datasource.read-replica.enabled", havingValue = "true")
+    public ReplicaHealthMonitor replicaHealthMonitor(
+            @Qualifier("supabaseDataSource") DataSource replicaDataSource,
+            @Value("${demo1.datasource.read-replica.max-lag-ms:5000}") long maxLagMs,
+            @Value("${demo1.datasource.read-replica.health-check-interval-ms:2000}") long checkIntervalMs) {
+        return new ReplicaHealthMonitor(replicaDataSource, maxLagMs, checkIntervalMs);
+    }
+
     @Primary
     @Bean(name = "renderEntityManagerFactory")
     public LocalContainerEntityManagerFactoryBean renderEntityManagerFactory(
-            @Qualifier("renderDataSource") DataSource dataSource) {
+            @Qualifier("renderDataSource") DataSource dataSource,
+            @Qualifier("supabaseDataSource") ObjectProvider<DataSource> replicaDataSource,
+            ObjectProvider<ReplicaHealthMonitor> replicaHealthMonitor) {
         LocalContainerEntityManagerFactoryBean em = new LocalContainerEntityManagerFactoryBean();
-        em.setDataSource(dataSource);
+        if (readReplicaEnabled) {
+            if (replicaDataSource.getIfAvailable() == null) {
+                throw new IllegalStateException(
+                        "demo1.datasource.read-replica.enabled requires supabase.datasource.enabled");
+            }
+            // Read-only transactions go to the supabase datasource as a replica, writes stay on render
+            ReplicaRoutingDataSource routingDataSource = new ReplicaRoutingDataSource(dataSource,
+                    replicaDataSource.getObject(), replicaHealthMonitor.getObject(), readReplicaStickinessMs);
+            LazyConnectionDataSourceProxy lazyDataSource = new LazyConnectionDataSourceProxy(routingDataSource);
+            lazyDataSource.setDefaultAutoCommit(true);
+            lazyDataSource.setDefaultTransactionIsolation(Connection.TRANSACTION_READ_COMMITTED);
+            em.setDataSource(lazyDataSource);
+        } else {
+            em.setDataSource(dataSource);
+        }
         em.setPackagesToScan("com.example.demo1.entity");
 
         HibernateJpaVendorAdapter vendorAdapter = new HibernateJpaVendorAdapter();
@@ -88,14 +170,17 @@ public class DataSourceConfig {
         Properties properties = new Properties();
         properties.setProperty("hibernate.dialect", "org.hibernate.dialect.PostgreSQLDialect");
         properties.setProperty("hibernate.hbm2ddl.auto", "none");
-        properties.setProperty("hibernate.show_sql", "true");
+        properties.setProperty("hibernate.show_sql", String.valueOf(showSql));
         properties.setProperty("hibernate.format_sql", "true");
+        // Query, entity load and cache counters, exported as hibernate.* metrics
+        properties.setProperty("hibernate.generate_statistics", String.valueOf(hibernateStatisticsEnabled));
         em.setJpaProperties(properties);
 
         return em;
     }
 
     @Bean(name = "supabaseEntityManagerFactory")
+    @ConditionalOnProperty(name = "supabase.datasource.enabled", havingValue = "true")
     public LocalContainerEntityManagerFactoryBean supabaseEntityManagerFactory(
             @Qualifier("supabaseDataSource") DataSource dataSource) {
         LocalContainerEntityManagerFactoryBean em = new LocalContainerEntityManagerFactoryBean();
@@ -108,8 +193,10 @@ public class DataSourceConfig {
         Properties properties = new Properties();
         properties.setProperty("hibernate.dialect", "org.hibernate.dialect.PostgreSQLDialect");
         properties.setProperty("hibernate.hbm2ddl.auto", "none");
-        properties.setProperty("hibernate.show_sql", "true");
+        properties.setProperty("hibernate.show_sql", String.valueOf(showSql));
         properties.setProperty("hibernate.format_sql", "true");
+        // Query, entity load and cache counters, exported as hibernate.* metrics
+        properties.setProperty("hibernate.generate_statistics", String.valueOf(hibernateStatisticsEnabled));
         em.setJpaProperties(properties);
 
         return em;
@@ -125,6 +212,7 @@ public class DataSourceConfig {
     }
 
     @Bean(name = "supabaseTransactionManager")
+    @ConditionalOnProperty(name = "supabase.datasource.enabled", havingValue = "true")
     public PlatformTransactionManager supabaseTransactionManager(
             @Qualifier("supabaseEntityManagerFactory") LocalContainerEntityManagerFactoryBean entityManagerFactory) {
         JpaTransactionManager transactionManager = new JpaTransactionManager();
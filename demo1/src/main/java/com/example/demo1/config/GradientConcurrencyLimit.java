@@ -0,0 +1,126 @@
+package com.example.demo1.config;
+
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Concurrency limit estimated from latency, after the gradient algorithm of Netflix's concurrency-limits.
+ * <p>
+ * Completed requests are averaged per window (at least {@code windowNanos} and {@code minWindowSamples} long) into a
+ * short-term latency, and windows into a long-term baseline. While the short-term latency stays within
+ * {@code tolerance} of the baseline the limit grows by about its square root per window; beyond that it shrinks in
+ * proportion, down to half per window. A window with server errors backs the limit off multiplicatively, as
+ * AIMD does, since a failing dependency often fails fast rather than slowly.
+ */
+final class GradientConcurrencyLimit {
+
+    // Windows in the long-term average, and windows averaged plainly before it starts decaying
+    private static final int LONG_WINDOW = 600;
+    private static final int WARMUP_WINDOWS = 10;
+
+    private final int minLimit;
+    private final int maxLimit;
+    private final double tolerance;
+    private final double smoothing;
+    private final double backoffRatio;
+    private final long windowNanos;
+    private final int minWindowSamples;
+
+    // Not synchronized: callers may be virtual threads, which must not pin their carrier while waiting
+    private final ReentrantLock lock = new ReentrantLock();
+    private volatile double limit;
+    private volatile double shortRttNanos;
+    private volatile double longRttNanos;
+    private int baselineWindows;
+
+    private long windowStart;
+    private int windowSamples;
+    private long windowRttSum;
+    private int windowMaxInFlight;
+    private boolean windowFailed;
+
+    GradientConcurrencyLimit(int initialLimit, int minLimit, int maxLimit, double tolerance, double smoothing,
+                             double backoffRatio, long windowNanos, int minWindowSamples) {
+        if (minLimit < 1 || maxLimit < minLimit) {
+            throw new IllegalArgumentException("Concurrency limits must satisfy 1 <= min-limit <= max-limit");
+        }
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.tolerance = tolerance;
+        this.smoothing = smoothing;
+        this.backoffRatio = backoffRatio;
+        this.windowNanos = windowNanos;
+        this.minWindowSamples = minWindowSamples;
+        this.limit = clamp(initialLimit);
+    }
+
+    int limit() {
+        return (int) limit;
+    }
+
+    double shortRttNanos() {
+        return shortRttNanos;
+    }
+
+    double longRttNanos() {
+        return longRttNanos;
+    }
+
+    /**
+     * Records one completed request.
+     * @param inFlight requests in flight when it was admitted, itself included
+     * @param failed whether it ended in a server error
+     */
+    void onSample(long now, long rttNanos, int inFlight, boolean failed) {
+        lock.lock();
+        try {
+            if (windowSamples == 0) {
+                windowStart = now;
+            }
+            windowSamples++;
+            windowRttSum += rttNanos;
+            windowMaxInFlight = Math.max(windowMaxInFlight, inFlight);
+            windowFailed |= failed;
+            if (now - windowStart < windowNanos || windowSamples < minWindowSamples) {
+                return;
+            }
+            update((double) windowRttSum / windowSamples, windowMaxInFlight, windowFailed);
+            windowSamples = 0;
+            windowRttSum = 0;
+            windowMaxInFlight = 0;
+            windowFailed = false;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void update(double rtt, int inFlight, boolean failed) {
+        shortRttNanos = rtt;
+        if (failed) {
+            limit = clamp(limit * backoffRatio);
+            return;
+        }
+
+        if (baselineWindows < WARMUP_WINDOWS) {
+            longRttNanos = (longRttNanos * baselineWindows + rtt) / (baselineWindows + 1);
+            baselineWindows++;
+        } else {
+            longRttNanos += (rtt - longRttNanos) * 2 / (LONG_WINDOW + 1);
+        }
+        // Once a slow spell is over, catch the baseline up instead of waiting out the long window
+        if (longRttNanos > 2 * rtt) {
+            longRttNanos *= 0.95;
+        }
+        // Latency says nothing about a limit that is not being used; growing it anyway would let it run away
+        if (inFlight < limit / 2) {
+            return;
+        }
+
+        double gradient = Math.max(0.5, Math.min(1.0, tolerance * longRttNanos / rtt));
+        double target = limit * gradient + Math.sqrt(limit);
+        limit = clamp(limit * (1 - smoothing) + target * smoothing);
+    }
+
+    private double clamp(double value) {
+        return Math.max(minLimit, Math.min(maxLimit, value));
+    }
+}
@@ -4,6 +4,7 @@ import com.fasterxml.jackson.annotation.JsonInclude;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.SerializationFeature;
 import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.context.annotation.Primary;
@@ -12,6 +13,9 @@ import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
 @Configuration
 public class JacksonConfig {
 
+    @Value("${demo1.json.pretty-print:false}")
+    private boolean prettyPrint;
+
     @Bean
     @Primary
     public ObjectMapper objectMapper(Jackson2ObjectMapperBuilder builder) {
@@ -20,7 +24,8 @@ public class JacksonConfig {
         // Configure Jackson settings
         objectMapper.configure(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS, false);
         objectMapper.configure(SerializationFeature.FAIL_ON_EMPTY_BEANS, false);
-        objectMapper.configure(SerializationFeature.INDENT_OUTPUT, true);
+        // Compact output on the wire; individual requests can still ask for ?pretty=true
+        objectMapper.configure(SerializationFeature.INDENT_OUTPUT, prettyPrint);
         
         // Include only non-null values
         objectMapper.setSerializationInclusion(JsonInclude.Include.NON_NULL);
@@ -30,4 +35,10 @@ public class JacksonConfig {
         
         return objectMapper;
     }
-} 
\ No newline at end of file
+
+    @Bean
+    public ApiResponseHttpMessageConverter apiResponseHttpMessageConverter(ObjectMapper objectMapper) {
+        // Registered ahead of the generic Jackson converter by Spring Boot's HttpMessageConverters
+        return new ApiResponseHttpMessageConverter(objectMapper);
+    }
+}
@@ -0,0 +1,88 @@
+package com.example.demo1.config;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import javax.sql.DataSource;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Periodically probes the read replica and decides whether read-only transactions may use it.
+ */
+public class ReplicaHealthMonitor {
+
+    private static final Logger logger = LoggerFactory.getLogger(ReplicaHealthMonitor.class);
+    // Zero on a primary; on a standby the age of the last replayed transaction.
+    // An idle primary also lets this grow, which only makes routing more conservative.
+    private static final String LAG_SQL = "SELECT CASE WHEN pg_is_in_recovery() "
+            + "THEN COALESCE(CAST(EXTRACT(EPOCH FROM (now() - pg_last_xact_replay_timestamp())) * 1000 AS bigint), 0) "
+            + "ELSE 0 END";
+
+    private final JdbcTemplate replicaJdbcTemplate;
+    private final long maxLagMillis;
+    private final long checkIntervalMillis;
+    private final ScheduledExecutorService scheduler;
+
+    private volatile boolean available;
+    private volatile long lagMillis = -1;
+
+    public ReplicaHealthMonitor(DataSource replicaDataSource, long maxLagMillis, long checkIntervalMillis) {
+        this.replicaJdbcTemplate = new JdbcTemplate(replicaDataSource);
+        this.replicaJdbcTemplate.setQueryTimeout((int) Math.max(1, TimeUnit.MILLISECONDS.toSeconds(checkIntervalMillis)));
+        this.maxLagMillis = maxLagMillis;
+        this.checkIntervalMillis = checkIntervalMillis;
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "replica-health");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    public void start() {
+        scheduler.scheduleWithFixedDelay(this::check, 0, checkIntervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    public void stop() {
+        scheduler.shutdownNow();
+    }
+
+    /**
+     * @return true when the replica answered the last probe and is within the allowed lag
+     */
+    public boolean isUsable() {
+        return available && lagMillis <= maxLagMillis;
+    }
+
+    public long getLagMillis() {
+        return lagMillis;
+    }
+
+    /**
+     * Takes the replica out of rotation until the next successful probe.
+     */
+    public void markDown(Exception cause) {
+        if (available) {
+            logger.warn("Read replica marked down, reads fall back to the primary: {}", cause.getMessage());
+        }
+        available = false;
+    }
+
+    void check() {
+        try {
+            Long lag = replicaJdbcTemplate.queryForObject(LAG_SQL, Long.class);
+            lagMillis = lag != null ? lag : 0L;
+            if (!available) {
+                logger.info("Read replica available, lag: {} ms", lagMillis);
+            }
+            available = true;
+            if (lagMillis > maxLagMillis) {
+                logger.warn("Read replica lag {} ms exceeds {} ms, reads use the primary", lagMillis, maxLagMillis);
+            }
+        } catch (Exception e) {
+            markDown(e);
+        }
+    }
+}
@@ -0,0 +1,136 @@
+package com.example.demo1.config;
+
+import jakarta.servlet.http.Cookie;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.ResponseCookie;
+import org.springframework.jdbc.datasource.AbstractDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+
+/**
+ * Sends read-only transactions to the replica and everything else to the primary.
+ * Must be wrapped in a LazyConnectionDataSourceProxy so the connection is fetched after the
+ * transaction's read-only flag has been bound.
+ * <p>
+ * Read-your-writes is per client: a write answers with a {@value #LAST_WRITE_COOKIE} cookie holding its time,
+ * and that client's reads stay on the primary for {@code stickinessMillis} afterwards, on whichever instance
+ * they land. Other clients keep reading from the replica.
+ */
+public class ReplicaRoutingDataSource extends AbstractDataSource {
+
+    private final DataSource primary;
+    private final DataSource replica;
+    private final ReplicaHealthMonitor replicaHealthMonitor;
+    private final long stickinessMillis;
+
+    public static final String LAST_WRITE_COOKIE = "demo1_last_write";
+    // Write time within the current request, so its later reads stay on the primary before the cookie round trip
+    private static final String LAST_WRITE_ATTRIBUTE = ReplicaRoutingDataSource.class.getName() + ".lastWriteAt";
+
+    public ReplicaRoutingDataSource(DataSource primary, DataSource replica,
+                                    ReplicaHealthMonitor replicaHealthMonitor, long stickinessMillis) {
+        this.primary = primary;
+        this.replica = replica;
+        this.replicaHealthMonitor = replicaHealthMonitor;
+        this.stickinessMillis = stickinessMillis;
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        if (routeToReplica()) {
+            try {
+                return replica.getConnection();
+            } catch (SQLException e) {
+                replicaHealthMonitor.markDown(e);
+            }
+        }
+        return primary.getConnection();
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        if (routeToReplica()) {
+            try {
+                return replica.getConnection(username, password);
+            } catch (SQLException e) {
+                replicaHealthMonitor.markDown(e);
+            }
+        }
+        return primary.getConnection(username, password);
+    }
+
+    /**
+     * Whether the current request's client wrote within {@code stickinessMillis}, so that its reads belong on the
+     * primary. For work handed to another thread, where the request and its cookie are not visible.
+     */
+    public static boolean clientWroteWithin(long stickinessMillis) {
+        return System.currentTimeMillis() - lastWriteAt() < stickinessMillis;
+    }
+
+    private boolean routeToReplica() {
+        if (!TransactionSynchronizationManager.isActualTransactionActive()) {
+            return false;
+        }
+        long now = System.currentTimeMillis();
+        if (!TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            rememberWrite(now);
+            return false;
+        }
+        if (now - lastWriteAt() < stickinessMillis) {
+            return false;
+        }
+        return replicaHealthMonitor.isUsable();
+    }
+
+    private void rememberWrite(long now) {
+        // Background writers (ingest, purges) have no client waiting to read their writes back
+        if (!(RequestContextHolder.getRequestAttributes() instanceof ServletRequestAttributes attributes)) {
+            return;
+        }
+        HttpServletRequest request = attributes.getRequest();
+        boolean cookieSet = request.getAttribute(LAST_WRITE_ATTRIBUTE) != null;
+        request.setAttribute(LAST_WRITE_ATTRIBUTE, now);
+        HttpServletResponse response = attributes.getResponse();
+        if (cookieSet || response == null || response.isCommitted()) {
+            return;
+        }
+        ResponseCookie cookie = ResponseCookie.from(LAST_WRITE_COOKIE, Long.toString(now))
+                .path("/")
+                .httpOnly(true)
+                .maxAge((stickinessMillis + 999) / 1000)
+                .sameSite("Lax")
+                .build();
+        response.addHeader(HttpHeaders.SET_COOKIE, cookie.toString());
+    }
+
+    private static long lastWriteAt() {
+        if (!(RequestContextHolder.getRequestAttributes() instanceof ServletRequestAttributes attributes)) {
+            return 0L;
+        }
+        HttpServletRequest request = attributes.getRequest();
+        if (request.getAttribute(LAST_WRITE_ATTRIBUTE) instanceof Long writtenAt) {
+            return writtenAt;
+        }
+        Cookie[] cookies = request.getCookies();
+        if (cookies == null) {
+            return 0L;
+        }
+        for (Cookie cookie : cookies) {
+            if (LAST_WRITE_COOKIE.equals(cookie.getName())) {
+                try {
+                    return Long.parseLong(cookie.getValue());
+                } catch (NumberFormatException e) {
+                    return 0L;
+                }
+            }
+        }
+        return 0L;
+    }
+}
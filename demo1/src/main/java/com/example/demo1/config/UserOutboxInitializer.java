@@ -0,0 +1,59 @@
+package com.example.demo1.config;
+
+import com.example.demo1.service.UserOutbox;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.datasource.init.DatabasePopulatorUtils;
+import org.springframework.jdbc.datasource.init.ResourceDatabasePopulator;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+
+/**
+ * Applies {@code db/user-outbox.sql}, then starts purging old changes.
+ * <p>
+ * User writes fail while the outbox table is missing, so unlike the search indexes this runs during startup,
+ * once every bean exists and before the web server accepts requests. The script needs PostgreSQL 13 or later
+ * ({@code xid8}). Turn {@code create-table} off where the schema is managed elsewhere and apply the script by hand.
+ */
+@Component
+public class UserOutboxInitializer implements SmartInitializingSingleton {
+
+    private static final Logger logger = LoggerFactory.getLogger(UserOutboxInitializer.class);
+    private static final String SCRIPT = "db/user-outbox.sql";
+
+    private final DataSource dataSource;
+    private final UserOutbox userOutbox;
+
+    @Value("${demo1.users.outbox.create-table:true}")
+    private boolean createTable;
+
+    @Autowired
+    public UserOutboxInitializer(@Qualifier("renderDataSource") DataSource dataSource, UserOutbox userOutbox) {
+        this.dataSource = dataSource;
+        this.userOutbox = userOutbox;
+    }
+
+    @Override
+    public void afterSingletonsInstantiated() {
+        if (!userOutbox.isEnabled()) {
+            return;
+        }
+        if (createTable) {
+            try {
+                DatabasePopulatorUtils.execute(new ResourceDatabasePopulator(new ClassPathResource(SCRIPT)), dataSource);
+            } catch (DataAccessException e) {
+                logger.error("Could not create the user outbox (PostgreSQL 13+ required), "
+                        + "user writes will fail until {} is applied: {}", SCRIPT,
+                        e.getMostSpecificCause().getMessage());
+            }
+        }
+        userOutbox.startPurging();
+    }
+}
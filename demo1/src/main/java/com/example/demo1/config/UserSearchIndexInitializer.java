@@ -0,0 +1,54 @@
+package com.example.demo1.config;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.datasource.init.DatabasePopulatorUtils;
+import org.springframework.jdbc.datasource.init.ResourceDatabasePopulator;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+
+/**
+ * Applies {@code db/user-search-indexes.sql} to the primary database once the application is up.
+ * <p>
+ * Building the indexes on a large table takes a while, so it runs in the background; searches work meanwhile,
+ * only slower. Turn this off where the schema is managed elsewhere or the database user may not create
+ * extensions, and apply the script by hand.
+ */
+@Component
+@ConditionalOnProperty(name = "demo1.users.search.create-indexes", havingValue = "true", matchIfMissing = true)
+public class UserSearchIndexInitializer {
+
+    private static final Logger logger = LoggerFactory.getLogger(UserSearchIndexInitializer.class);
+    private static final String SCRIPT = "db/user-search-indexes.sql";
+
+    private final DataSource dataSource;
+
+    @Autowired
+    public UserSearchIndexInitializer(@Qualifier("renderDataSource") DataSource dataSource) {
+        this.dataSource = dataSource;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        Thread.ofVirtual().name("user-search-indexes").start(this::createIndexes);
+    }
+
+    void createIndexes() {
+        long started = System.nanoTime();
+        try {
+            DatabasePopulatorUtils.execute(new ResourceDatabasePopulator(new ClassPathResource(SCRIPT)), dataSource);
+            logger.info("User search indexes in place after {} ms", (System.nanoTime() - started) / 1_000_000);
+        } catch (DataAccessException e) {
+            logger.warn("Could not create user search indexes, searches will scan demo.users: {}",
+                    e.getMostSpecificCause().getMessage());
+        }
+    }
+}
@@ -12,7 +12,7 @@ public class HelloController {
 
     @GetMapping("/hello")
     public String hello() {
-        logger.info("Hello from demo1");
+        logger.debug("Hello from demo1");
         return "Hello from demo1";
     }
 
@@ -33,7 +33,7 @@ public class HelloController {
                     throw new IllegalArgumentException("Unknown error type: " + type);
             }
         } catch (Exception e) {
-            logger.error("Error occurred in demo1: " + e.getMessage(), e);
+            logger.error("Error occurred in demo1: {}", e.getMessage(), e);
             throw e; // Re-throw to let Spring handle it
         }
     }
@@ -0,0 +1,56 @@
+package com.example.demo1.controller;
+
+import com.example.demo1.config.ApiResponseHttpMessageConverter;
+import com.example.demo1.dto.UserChangeFeed;
+import com.example.demo1.dto.UserSnapshotPage;
+import com.example.demo1.exception.ResourceNotFoundException;
+import com.example.demo1.service.UserOutbox;
+import com.example.userapi.dto.ApiResponse;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+/**
+ * Feed of user changes from the outbox, for services that keep their own copy of demo1's users.
+ */
+@RestController
+@RequestMapping("/api/users/changes")
+public class UserChangeController {
+
+    private final UserOutbox userOutbox;
+
+    @Autowired
+    public UserChangeController(UserOutbox userOutbox) {
+        this.userOutbox = userOutbox;
+    }
+
+    @GetMapping(produces = {MediaType.APPLICATION_JSON_VALUE, ApiResponseHttpMessageConverter.APPLICATION_SMILE_VALUE})
+    public ResponseEntity<ApiResponse<UserChangeFeed>> getChanges(
+            @RequestParam(required = false) String after,
+            @RequestParam(defaultValue = "500") int limit) {
+
+        UserChangeFeed feed = outbox().changesAfter(after, limit);
+        return ResponseEntity.ok(ApiResponse.ok(feed.changes().size() + " user changes", feed));
+    }
+
+    @GetMapping(value = "/snapshot",
+            produces = {MediaType.APPLICATION_JSON_VALUE, ApiResponseHttpMessageConverter.APPLICATION_SMILE_VALUE})
+    public ResponseEntity<ApiResponse<UserSnapshotPage>> getSnapshot(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "1000") int size) {
+
+        UserSnapshotPage page = outbox().snapshot(cursor, size);
+        return ResponseEntity.ok(ApiResponse.ok("User snapshot retrieved successfully", page));
+    }
+
+    private UserOutbox outbox() {
+        if (!userOutbox.isEnabled()) {
+            throw new ResourceNotFoundException("User changes feed is disabled");
+        }
+        return userOutbox;
+    }
+}
@@ -1,20 +1,49 @@
 package com.example.demo1.controller;
 
+import com.example.demo1.config.ApiResponseHttpMessageConverter;
+import com.example.demo1.dto.BulkImportResult;
+import com.example.demo1.dto.CacheStatistics;
+import com.example.demo1.dto.IngestStatus;
+import com.example.demo1.dto.UserSummary;
 import com.example.demo1.entity.User;
+import com.example.demo1.exception.ResourceNotFoundException;
+import com.example.demo1.service.BulkConflictMode;
+import com.example.demo1.service.SearchMatch;
+import com.example.demo1.service.UserBulkService;
+import com.example.demo1.service.UserCache;
+import com.example.demo1.service.UserExportService;
+import com.example.demo1.service.UserIngestQueue;
 import com.example.demo1.service.UserService;
-import com.fasterxml.jackson.databind.ObjectMapper;
-import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.example.userapi.ExportFormat;
+import com.example.userapi.TotalCountMode;
+import com.example.userapi.UserETags;
+import com.example.userapi.dto.ApiResponse;
+import com.example.userapi.dto.CursorPage;
+import com.example.userapi.dto.PaginationInfo;
+import com.example.userapi.dto.UserBatchRequest;
+import com.example.userapi.dto.UserBatchResult;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.domain.Page;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.ServletWebRequest;
+import org.springframework.web.context.request.async.WebAsyncTask;
 
-import java.time.LocalDateTime;
-import java.util.HashMap;
-import java.util.Map;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
 
 @RestController
 @RequestMapping("/api/users")
@@ -23,117 +52,194 @@ public class UserController {
 
     private static final Logger logger = LoggerFactory.getLogger(UserController.class);
     private final UserService userService;
-    private final ObjectMapper objectMapper;
+    private final UserExportService userExportService;
+    private final UserBulkService userBulkService;
+    private final UserCache userCache;
+    private final UserIngestQueue userIngestQueue;
+
+    // 0 means clients may keep responses but must revalidate them (cheap: a 304 carries no body)
+    @Value("${demo1.users.http-cache.max-age-seconds:0}")
+    private long maxAgeSeconds;
+
+    @Value("${demo1.users.export.timeout-ms:1800000}")
+    private long exportTimeoutMs;
 
     @Autowired
-    public UserController(UserService userService, ObjectMapper objectMapper) {
+    public UserController(UserService userService, UserExportService userExportService,
+                          UserBulkService userBulkService, UserCache userCache, UserIngestQueue userIngestQueue) {
         this.userService = userService;
-        this.objectMapper = objectMapper;
+        this.userExportService = userExportService;
+        this.userBulkService = userBulkService;
+        this.userCache = userCache;
+        this.userIngestQueue = userIngestQueue;
     }
 
-    @GetMapping(produces = MediaType.APPLICATION_JSON_VALUE)
-    public ResponseEntity<Map<String, Object>> getAllUsers(
+    @GetMapping(produces = {MediaType.APPLICATION_JSON_VALUE, ApiResponseHttpMessageConverter.APPLICATION_SMILE_VALUE})
+    public ResponseEntity<ApiResponse<List<User>>> getAllUsers(
             @RequestParam(defaultValue = "0") int page,
-            @RequestParam(defaultValue = "1000") int size) {
+            @RequestParam(defaultValue = "1000") int size,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "none") String total,
+            HttpServletRequest request) {
 
-        logger.info("Fetching users - page: {}, size: {}", page, size);
-        Page<User> userPage = userService.getAllUsers(page, size);
+        return listUsers(page, size, cursor, total, request);
+    }
 
-        Map<String, Object> response = new HashMap<>();
-        response.put("success", true);
-        response.put("timestamp", LocalDateTime.now());
-        response.put("data", userPage.getContent());
-        response.put("pagination", createPaginationInfo(userPage));
-        response.put("message", "Users retrieved successfully");
+    @GetMapping(value = "/search",
+            produces = {MediaType.APPLICATION_JSON_VALUE, ApiResponseHttpMessageConverter.APPLICATION_SMILE_VALUE})
+    public ResponseEntity<ApiResponse<List<UserSummary>>> searchUsers(
+            @RequestParam String q,
+            @RequestParam(defaultValue = "contains") String match,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "20") int size) {
+
+        logger.debug("Searching users - match: {}, size: {}", match, size);
+        CursorPage<UserSummary> result = userService.searchUsers(q, SearchMatch.fromParameter(match), cursor, size);
+        return ResponseEntity.ok(ApiResponse.page("Found " + result.content().size() + " users",
+                result.content(), PaginationInfo.of(result)));
+    }
 
-        return ResponseEntity.ok(response);
+    @GetMapping("/export")
+    public WebAsyncTask<Void> exportUsers(@RequestParam(defaultValue = "ndjson") String format,
+                                          HttpServletResponse response) {
+        ExportFormat exportFormat = ExportFormat.fromParameter(format);
+        logger.debug("Exporting users - format: {}", exportFormat);
+
+        response.setContentType(exportFormat.getContentType());
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=users." + exportFormat.getFileExtension());
+        // Only the export outlives the default async request timeout; on expiry the task is cancelled
+        return new WebAsyncTask<>(exportTimeoutMs, () -> {
+            userExportService.export(exportFormat, response.getOutputStream());
+            return null;
+        });
     }
 
-    @GetMapping(value = "/{id}", produces = MediaType.APPLICATION_JSON_VALUE)
-    public ResponseEntity<Map<String, Object>> getUserById(@PathVariable Long id) {
-        User user = userService.getUserById(id);
+    @GetMapping(value = "/cache/stats", produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<ApiResponse<List<CacheStatistics>>> getCacheStatistics() {
+        return ResponseEntity.ok(ApiResponse.ok("Cache statistics retrieved successfully", userCache.statistics()));
+    }
 
-        Map<String, Object> response = new HashMap<>();
-        response.put("success", true);
-        response.put("timestamp", LocalDateTime.now());
-        response.put("data", user);
-        response.put("message", "User retrieved successfully");
+    @GetMapping(value = "/batch", produces = {MediaType.APPLICATION_JSON_VALUE, ApiResponseHttpMessageConverter.APPLICATION_SMILE_VALUE})
+    public ResponseEntity<ApiResponse<UserBatchResult>> getUsersByIds(@RequestParam List<Long> ids) {
+        UserBatchResult result = userService.getUsersByIds(ids);
+        return ResponseEntity.ok(ApiResponse.ok("Found " + result.found() + " of " + result.requested() + " users", result));
+    }
+
+    @PostMapping(value = "/batch", consumes = MediaType.APPLICATION_JSON_VALUE,
+            produces = {MediaType.APPLICATION_JSON_VALUE, ApiResponseHttpMessageConverter.APPLICATION_SMILE_VALUE})
+    public ResponseEntity<ApiResponse<UserBatchResult>> getUsersByIds(@RequestBody UserBatchRequest request) {
+        return getUsersByIds(request.ids());
+    }
 
-        return ResponseEntity.ok(response);
+    @GetMapping(value = "/{id}", produces = {MediaType.APPLICATION_JSON_VALUE, ApiResponseHttpMessageConverter.APPLICATION_SMILE_VALUE})
+    public ResponseEntity<ApiResponse<User>> getUserById(@PathVariable Long id) {
+        User user = userService.getUserById(id);
+        // Usually served from the user cache; a matching If-None-Match then costs neither a query nor serialization
+        return ResponseEntity.ok().eTag(UserETags.of(user)).cacheControl(cacheControl()).varyBy(HttpHeaders.ACCEPT)
+                .body(ApiResponse.ok("User retrieved successfully", user));
     }
 
     @PostMapping(consumes = MediaType.APPLICATION_JSON_VALUE, produces = MediaType.APPLICATION_JSON_VALUE)
-    public ResponseEntity<Map<String, Object>> createUser(@RequestBody User user) {
+    public ResponseEntity<ApiResponse<User>> createUser(@RequestBody User user) {
         User createdUser = userService.createUser(user);
+        return ResponseEntity.ok(ApiResponse.ok("User created successfully", createdUser));
+    }
+
+    // Accept-then-persist: 202 as soon as the user is journaled, 429 when the ingest queue is full
+    @PostMapping(value = "/ingest", consumes = MediaType.APPLICATION_JSON_VALUE, produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<ApiResponse<IngestStatus>> ingestUser(@RequestBody User user) {
+        IngestStatus status = ingestQueue().submit(user);
+        return ResponseEntity.accepted()
+                .location(URI.create("/api/users/ingest/" + status.trackingId()))
+                .body(ApiResponse.ok("User accepted for creation", status));
+    }
 
-        Map<String, Object> response = new HashMap<>();
-        response.put("success", true);
-        response.put("timestamp", LocalDateTime.now());
-        response.put("data", createdUser);
-        response.put("message", "User created successfully");
+    @GetMapping(value = "/ingest/{trackingId}", produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<ApiResponse<IngestStatus>> getIngestStatus(@PathVariable String trackingId) {
+        IngestStatus status = ingestQueue().status(trackingId)
+                .orElseThrow(() -> new ResourceNotFoundException("No ingest status for tracking id: " + trackingId));
+        return ResponseEntity.ok(ApiResponse.ok("Ingest status retrieved successfully", status));
+    }
+
+    @PostMapping(value = "/bulk",
+            consumes = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_NDJSON_VALUE},
+            produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<ApiResponse<BulkImportResult>> bulkImportUsers(
+            @RequestParam(defaultValue = "skip") String onConflict,
+            InputStream body) throws IOException {
 
-        return ResponseEntity.ok(response);
+        BulkImportResult result = userBulkService.importUsers(body, BulkConflictMode.fromParameter(onConflict));
+        return ResponseEntity.ok(ApiResponse.ok("Bulk import processed " + result.received() + " users", result));
     }
 
     @PutMapping(value = "/{id}", consumes = MediaType.APPLICATION_JSON_VALUE, produces = MediaType.APPLICATION_JSON_VALUE)
-    public ResponseEntity<Map<String, Object>> updateUser(@PathVariable Long id, @RequestBody User user) {
+    public ResponseEntity<ApiResponse<User>> updateUser(@PathVariable Long id, @RequestBody User user) {
         user.setId(id);
         User updatedUser = userService.updateUser(user);
-
-        Map<String, Object> response = new HashMap<>();
-        response.put("success", true);
-        response.put("timestamp", LocalDateTime.now());
-        response.put("data", updatedUser);
-        response.put("message", "User updated successfully");
-
-        return ResponseEntity.ok(response);
+        return ResponseEntity.ok(ApiResponse.ok("User updated successfully", updatedUser));
     }
 
     @DeleteMapping(value = "/{id}", produces = MediaType.APPLICATION_JSON_VALUE)
-    public ResponseEntity<Map<String, Object>> deleteUser(@PathVariable Long id) {
+    public ResponseEntity<ApiResponse<Void>> deleteUser(@PathVariable Long id) {
         userService.deleteUser(id);
-
-        Map<String, Object> response = new HashMap<>();
-        response.put("success", true);
-        response.put("timestamp", LocalDateTime.now());
-        response.put("message", "User deleted successfully");
-        response.put("deletedId", id);
-
-        return ResponseEntity.ok(response);
+        return ResponseEntity.ok(ApiResponse.deleted("User deleted successfully", id));
     }
 
+    // Kept for existing clients; same body as GET /api/users, written directly without an intermediate JSON tree
     @GetMapping(value = "/json-tree", produces = MediaType.APPLICATION_JSON_VALUE)
-    public ResponseEntity<ObjectNode> getUsersAsJsonTree(
+    public ResponseEntity<ApiResponse<List<User>>> getUsersAsJsonTree(
             @RequestParam(defaultValue = "0") int page,
-            @RequestParam(defaultValue = "1000") int size) {
+            @RequestParam(defaultValue = "1000") int size,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "none") String total,
+            HttpServletRequest request) {
+
+        return listUsers(page, size, cursor, total, request);
+    }
+
+    /**
+     * Lists users with an entity tag. A conditional request whose tag matches the one remembered for the same query
+     * is answered with 304 before touching the database; otherwise the page is loaded and, if its tag still
+     * matches, Spring answers 304 without serializing it.
+     */
+    private ResponseEntity<ApiResponse<List<User>>> listUsers(int page, int size, String cursor, String total,
+                                                              HttpServletRequest request) {
+        String query = page + ":" + size + ":" + cursor + ":" + total;
+        Optional<String> knownETag = userCache.getListETag(query);
+        if (knownETag.isPresent() && new ServletWebRequest(request).checkNotModified(knownETag.get())) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(knownETag.get())
+                    .cacheControl(cacheControl()).varyBy(HttpHeaders.ACCEPT).build();
+        }
+
+        long generation = userCache.listGeneration();
+        ApiResponse<List<User>> body = loadUsers(page, size, cursor, total);
+        String eTag = UserETags.of(body.data(), body.pagination());
+        userCache.putListETag(query, eTag, generation);
+        // The tag covers the data, not its encoding; Vary keeps the JSON and Smile bodies apart in shared caches
+        return ResponseEntity.ok().eTag(eTag).cacheControl(cacheControl()).varyBy(HttpHeaders.ACCEPT).body(body);
+    }
+
+    private ApiResponse<List<User>> loadUsers(int page, int size, String cursor, String total) {
+        // Any cursor parameter (an empty one starts at the beginning) switches to keyset paging
+        if (cursor != null) {
+            logger.debug("Fetching users - cursor: {}, size: {}", cursor, size);
+            CursorPage<User> userPage = userService.getUsersAfter(cursor, size, TotalCountMode.fromParameter(total));
+            return ApiResponse.page("Users retrieved successfully", userPage.content(), PaginationInfo.of(userPage));
+        }
 
+        logger.debug("Fetching users - page: {}, size: {}", page, size);
         Page<User> userPage = userService.getAllUsers(page, size);
+        return ApiResponse.page("Users retrieved successfully", userPage.getContent(), PaginationInfo.of(userPage));
+    }
+
+    private UserIngestQueue ingestQueue() {
+        if (userIngestQueue == null || !userIngestQueue.isEnabled()) {
+            throw new ResourceNotFoundException("User ingest is disabled");
+        }
+        return userIngestQueue;
+    }
 
-        ObjectNode rootNode = objectMapper.createObjectNode();
-        rootNode.put("success", true);
-        rootNode.put("timestamp", LocalDateTime.now().toString());
-        rootNode.put("message", "Users retrieved successfully");
-
-        ObjectNode paginationNode = rootNode.putObject("pagination");
-        paginationNode.put("currentPage", userPage.getNumber());
-        paginationNode.put("totalItems", userPage.getTotalElements());
-        paginationNode.put("totalPages", userPage.getTotalPages());
-        paginationNode.put("hasNext", userPage.hasNext());
-        paginationNode.put("hasPrevious", userPage.hasPrevious());
-        paginationNode.put("pageSize", userPage.getSize());
-
-        rootNode.set("data", objectMapper.valueToTree(userPage.getContent()));
-        return ResponseEntity.ok(rootNode);
-    }
-
-    private Map<String, Object> createPaginationInfo(Page<User> userPage) {
-        Map<String, Object> pagination = new HashMap<>();
-        pagination.put("currentPage", userPage.getNumber());
-        pagination.put("totalItems", userPage.getTotalElements());
-        pagination.put("totalPages", userPage.getTotalPages());
-        pagination.put("hasNext", userPage.hasNext());
-        pagination.put("hasPrevious", userPage.hasPrevious());
-        pagination.put("pageSize", userPage.getSize());
-        return pagination;
+    private CacheControl cacheControl() {
+        return maxAgeSeconds > 0 ? CacheControl.maxAge(maxAgeSeconds, TimeUnit.SECONDS) : CacheControl.noCache();
     }
 }
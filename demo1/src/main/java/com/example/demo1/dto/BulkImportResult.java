@@ -0,0 +1,18 @@
+package com.example.demo1.dto;
+
+import java.util.List;
+
+/**
+ * Summary and per-row outcomes of a bulk user import.
+ */
+public record BulkImportResult(
+        int received,
+        int created,
+        int updated,
+        int conflicts,
+        int invalid,
+        int batches,
+        long elapsedMs,
+        double rowsPerSecond,
+        List<BulkRowResult> results) {
+}
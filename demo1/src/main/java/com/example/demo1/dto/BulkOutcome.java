@@ -0,0 +1,20 @@
+package com.example.demo1.dto;
+
+import com.fasterxml.jackson.annotation.JsonValue;
+
+import java.util.Locale;
+
+/**
+ * Result of a single row in a bulk user import.
+ */
+public enum BulkOutcome {
+    CREATED,
+    UPDATED,
+    CONFLICT,
+    INVALID;
+
+    @JsonValue
+    public String toJson() {
+        return name().toLowerCase(Locale.ROOT);
+    }
+}
@@ -0,0 +1,10 @@
+package com.example.demo1.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+/**
+ * Outcome of one row of a bulk import, identified by its position in the request body.
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public record BulkRowResult(int index, String email, Long id, BulkOutcome status, String error) {
+}
@@ -0,0 +1,13 @@
+package com.example.demo1.dto;
+
+/**
+ * Point-in-time counters of one in-process cache.
+ */
+public record CacheStatistics(
+        String name,
+        long size,
+        long hits,
+        long misses,
+        double hitRate,
+        long evictions) {
+}
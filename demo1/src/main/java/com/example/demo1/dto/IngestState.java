@@ -0,0 +1,23 @@
+package com.example.demo1.dto;
+
+import com.fasterxml.jackson.annotation.JsonValue;
+
+import java.util.Locale;
+
+/**
+ * Where a user accepted by the ingest queue stands.
+ */
+public enum IngestState {
+    /** Journaled and queued, not yet written. */
+    PENDING,
+    CREATED,
+    /** A user with the same email already existed. */
+    CONFLICT,
+    /** The write kept failing and was given up. */
+    FAILED;
+
+    @JsonValue
+    public String toJson() {
+        return name().toLowerCase(Locale.ROOT);
+    }
+}
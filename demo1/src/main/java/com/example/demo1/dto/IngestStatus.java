@@ -0,0 +1,28 @@
+package com.example.demo1.dto;
+
+import com.fasterxml.jackson.annotation.JsonFormat;
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+import java.time.LocalDateTime;
+
+/**
+ * Outcome of one asynchronously created user, looked up by the tracking id returned with {@code 202 Accepted}.
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public record IngestStatus(
+        String trackingId,
+        IngestState state,
+        String email,
+        Long id,
+        String error,
+        @JsonFormat(pattern = "yyyy-MM-dd HH:mm:ss") LocalDateTime acceptedAt,
+        @JsonFormat(pattern = "yyyy-MM-dd HH:mm:ss") LocalDateTime completedAt) {
+
+    public static IngestStatus pending(String trackingId, String email, LocalDateTime acceptedAt) {
+        return new IngestStatus(trackingId, IngestState.PENDING, email, null, null, acceptedAt, null);
+    }
+
+    public IngestStatus complete(IngestState state, Long id, String error) {
+        return new IngestStatus(trackingId, state, email, id, error, acceptedAt, LocalDateTime.now());
+    }
+}
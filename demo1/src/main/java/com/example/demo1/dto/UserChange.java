@@ -0,0 +1,23 @@
+package com.example.demo1.dto;
+
+import com.example.userapi.dto.UserChangeOperation;
+import com.fasterxml.jackson.annotation.JsonFormat;
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+
+/**
+ * One entry of the user changes feed. Creates and updates carry the user as written; deletes only the id and the
+ * email it had. {@code changeId} increases with every change to the same user.
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public record UserChange(
+        long changeId,
+        UserChangeOperation operation,
+        Long userId,
+        String name,
+        String email,
+        @JsonFormat(pattern = "yyyy-MM-dd HH:mm:ss") LocalDateTime createdAt,
+        Instant occurredAt) {
+}
@@ -0,0 +1,10 @@
+package com.example.demo1.dto;
+
+import java.util.List;
+
+/**
+ * A page of the user changes feed. {@code nextCursor} resumes after the last change returned, or where this page
+ * started when there was nothing new.
+ */
+public record UserChangeFeed(List<UserChange> changes, String nextCursor, boolean hasMore) {
+}
@@ -0,0 +1,25 @@
+package com.example.demo1.dto;
+
+import com.example.demo1.entity.User;
+
+import java.time.LocalDateTime;
+
+/**
+ * Immutable copy of a {@link User} row, safe to share between threads and to keep outside a persistence context.
+ */
+public record UserSnapshot(Long id, String name, String email, LocalDateTime createdAt) {
+
+    public static UserSnapshot of(User user) {
+        return new UserSnapshot(user.getId(), user.getName(), user.getEmail(), user.getCreatedAt());
+    }
+
+    /**
+     * @return a new, detached {@link User} carrying this snapshot's values
+     */
+    public User toUser() {
+        User user = new User(name, email);
+        user.setId(id);
+        user.setCreatedAt(createdAt);
+        return user;
+    }
+}
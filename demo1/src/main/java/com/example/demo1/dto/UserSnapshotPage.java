@@ -0,0 +1,10 @@
+package com.example.demo1.dto;
+
+import java.util.List;
+
+/**
+ * A keyset page of all users for seeding a replica. {@code changesCursor} is where to start reading the changes
+ * feed once every page has been loaded; take it from the first page.
+ */
+public record UserSnapshotPage(List<UserVersion> users, String nextCursor, boolean hasMore, String changesCursor) {
+}
@@ -0,0 +1,7 @@
+package com.example.demo1.dto;
+
+/**
+ * Search hit: the columns a user picker needs, loaded as a projection rather than as managed entities.
+ */
+public record UserSummary(Long id, String name, String email) {
+}
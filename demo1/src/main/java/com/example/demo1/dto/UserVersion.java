@@ -0,0 +1,16 @@
+package com.example.demo1.dto;
+
+import com.fasterxml.jackson.annotation.JsonFormat;
+
+import java.time.LocalDateTime;
+
+/**
+ * A user as of its latest outbox change; {@code changeId} is 0 when that change has been purged.
+ */
+public record UserVersion(
+        Long id,
+        String name,
+        String email,
+        @JsonFormat(pattern = "yyyy-MM-dd HH:mm:ss") LocalDateTime createdAt,
+        long changeId) {
+}
@@ -1,5 +1,6 @@
 package com.example.demo1.entity;
 
+import com.example.userapi.UserData;
 import com.fasterxml.jackson.annotation.JsonFormat;
 import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
 import com.fasterxml.jackson.annotation.JsonProperty;
@@ -9,7 +10,7 @@ import java.time.LocalDateTime;
 @Entity
 @Table(name = "users", schema = "demo")
 @JsonIgnoreProperties({"hibernateLazyInitializer", "handler"})
-public class User {
+public class User implements UserData {
     
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
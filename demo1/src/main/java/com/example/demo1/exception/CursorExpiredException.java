@@ -0,0 +1,7 @@
+package com.example.demo1.exception;
+
+public class CursorExpiredException extends RuntimeException {
+    public CursorExpiredException(String message) {
+        super(message);
+    }
+}
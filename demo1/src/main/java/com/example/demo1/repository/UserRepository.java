@@ -1,9 +1,15 @@
 package com.example.demo1.repository;
 
+import com.example.demo1.dto.UserSummary;
 import com.example.demo1.entity.User;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
+import java.util.List;
 import java.util.Optional;
 
 @Repository
@@ -22,4 +28,98 @@ public interface UserRepository extends JpaRepository<User, Long> {
      * @return true if user exists, false otherwise
      */
     boolean existsByEmail(String email);
-} 
\ No newline at end of file
+
+    /**
+     * Keyset page: users with an id greater than the given one, in id order.
+     * Runs as a single range scan on the primary key without a COUNT query.
+     * @param id the last id of the previous page (0 for the first page)
+     * @param limit maximum number of rows to return
+     * @return users following the given id
+     */
+    List<User> findByIdGreaterThanOrderByIdAsc(Long id, Limit limit);
+
+    /**
+     * Keyset page of users whose name or email matches a LIKE pattern, ignoring case, as projections.
+     * Both prefix and substring patterns are served by the pg_trgm GIN indexes from {@code user-search-indexes.sql}.
+     * @param pattern the LIKE pattern, with backslash as the escape character
+     * @param afterId the last id of the previous page (0 for the first page)
+     * @param limit maximum number of rows to return
+     * @return matching users following the given id, in id order
+     */
+    @Query("SELECT new com.example.demo1.dto.UserSummary(u.id, u.name, u.email) FROM User u "
+            + "WHERE (u.name ILIKE :pattern ESCAPE '\\' OR u.email ILIKE :pattern ESCAPE '\\') AND u.id > :afterId "
+            + "ORDER BY u.id")
+    List<UserSummary> searchAfter(@Param("pattern") String pattern, @Param("afterId") Long afterId, Limit limit);
+
+    /**
+     * Makes the current transaction plan every statement for its actual parameters. A cached generic plan for
+     * {@link #searchAfter} cannot tell a selective pattern from a broad one and tends to settle on scanning the table.
+     * @return the new setting
+     */
+    @Query(value = "SELECT set_config('plan_cache_mode', 'force_custom_plan', true)", nativeQuery = true)
+    String forceCustomPlans();
+
+    /**
+     * Planner row estimate for the users table, maintained by ANALYZE/autovacuum.
+     * @return the estimated row count, or a negative value if the table was never analyzed
+     */
+    @Query(value = "SELECT CAST(reltuples AS bigint) FROM pg_class WHERE oid = to_regclass('demo.users')",
+            nativeQuery = true)
+    Long estimateCount();
+
+    /**
+     * Updates name and email in one statement and returns the updated row.
+     * A duplicate email surfaces as a {@code DataIntegrityViolationException} from the unique constraint.
+     * @param id the id of the user to update
+     * @param name the new name
+     * @param email the new email address
+     * @return the updated user, or empty if no user has the given id
+     */
+    @Query(value = "UPDATE demo.users SET name = :name, email = :email WHERE id = :id "
+            + "RETURNING id, name, email, created_at", nativeQuery = true)
+    Optional<User> updateReturning(@Param("id") Long id, @Param("name") String name, @Param("email") String email);
+
+    /**
+     * Deletes a user in one statement.
+     * @param id the id of the user to delete
+     * @return the email of the deleted user, or empty if no user has the given id
+     */
+    @Query(value = "DELETE FROM demo.users WHERE id = :id RETURNING email", nativeQuery = true)
+    Optional<String> deleteReturningEmail(@Param("id") Long id);
+
+    // The *RecordingChange variants add the demo.user_outbox row in the same statement (see UserOutbox)
+
+    /**
+     * Inserts a user and records the change in one statement.
+     * @return the inserted user with its generated id
+     */
+    @Query(value = "WITH written AS ("
+            + "INSERT INTO demo.users (name, email, created_at) VALUES (:name, :email, :createdAt) "
+            + "RETURNING id, name, email, created_at), "
+            + "changes AS (INSERT INTO demo.user_outbox (user_id, operation, name, email, created_at) "
+            + "SELECT id, 'created', name, email, created_at FROM written) "
+            + "SELECT id, name, email, created_at FROM written", nativeQuery = true)
+    User insertRecordingChange(@Param("name") String name, @Param("email") String email,
+                               @Param("createdAt") LocalDateTime createdAt);
+
+    /**
+     * {@link #updateReturning} that also records the change in the same statement.
+     */
+    @Query(value = "WITH written AS ("
+            + "UPDATE demo.users SET name = :name, email = :email WHERE id = :id "
+            + "RETURNING id, name, email, created_at), "
+            + "changes AS (INSERT INTO demo.user_outbox (user_id, operation, name, email, created_at) "
+            + "SELECT id, 'updated', name, email, created_at FROM written) "
+            + "SELECT id, name, email, created_at FROM written", nativeQuery = true)
+    Optional<User> updateReturningRecordingChange(@Param("id") Long id, @Param("name") String name,
+                                                  @Param("email") String email);
+
+    /**
+     * {@link #deleteReturningEmail} that also records the change in the same statement.
+     */
+    @Query(value = "WITH deleted AS (DELETE FROM demo.users WHERE id = :id RETURNING id, email), "
+            + "changes AS (INSERT INTO demo.user_outbox (user_id, operation, email) "
+            + "SELECT id, 'deleted', email FROM deleted) "
+            + "SELECT email FROM deleted", nativeQuery = true)
+    Optional<String> deleteReturningEmailRecordingChange(@Param("id") Long id);
+}
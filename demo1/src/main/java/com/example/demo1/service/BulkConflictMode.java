@@ -0,0 +1,24 @@
+package com.example.demo1.service;
+
+import java.util.Locale;
+
+/**
+ * What a bulk import does with rows whose email already exists.
+ */
+public enum BulkConflictMode {
+    /** Keep the existing row and report the input row as a conflict. */
+    SKIP,
+    /** Overwrite the existing row's name (upsert). */
+    UPDATE;
+
+    public static BulkConflictMode fromParameter(String value) {
+        if (value == null || value.isBlank()) {
+            return SKIP;
+        }
+        try {
+            return valueOf(value.trim().toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Unknown conflict mode: " + value + " (expected skip or update)");
+        }
+    }
+}
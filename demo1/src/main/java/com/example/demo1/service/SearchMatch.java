@@ -0,0 +1,30 @@
+package com.example.demo1.service;
+
+import java.util.Locale;
+
+/**
+ * How the search term is matched against user names and emails; both ignore case.
+ */
+public enum SearchMatch {
+    /** Name or email starts with the term. */
+    PREFIX,
+    /** Name or email contains the term anywhere. */
+    CONTAINS;
+
+    public static SearchMatch fromParameter(String value) {
+        if (value == null || value.isBlank()) {
+            return CONTAINS;
+        }
+        try {
+            return valueOf(value.trim().toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Unknown match mode: " + value + " (expected prefix or contains)");
+        }
+    }
+
+    String toLikePattern(String term) {
+        // The term is matched literally; LIKE wildcards in it are escaped
+        String escaped = term.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_");
+        return this == PREFIX ? escaped + "%" : "%" + escaped + "%";
+    }
+}
@@ -0,0 +1,247 @@
+package com.example.demo1.service;
+
+import com.example.demo1.dto.BulkImportResult;
+import com.example.demo1.dto.BulkOutcome;
+import com.example.demo1.dto.BulkRowResult;
+import com.example.demo1.entity.User;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Loads users in batches with multi-row {@code INSERT ... ON CONFLICT (email)} statements.
+ * This bypasses JPA, whose IDENTITY ids disable JDBC batching, and avoids a lookup per row.
+ */
+@Service
+public class UserBulkService {
+
+    private static final Logger logger = LoggerFactory.getLogger(UserBulkService.class);
+    // PostgreSQL accepts at most 65535 bind parameters per statement, three are used per row
+    static final int MAX_BATCH_SIZE = 10000;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ObjectReader userReader;
+    private final UserCache userCache;
+    private final UserOutbox userOutbox;
+
+    @Value("${demo1.users.bulk.batch-size:500}")
+    private int batchSize;
+
+    @Value("${demo1.users.bulk.max-rows:100000}")
+    private int maxRows;
+
+    @Autowired
+    public UserBulkService(@Qualifier("renderJdbcTemplate") JdbcTemplate jdbcTemplate, ObjectMapper objectMapper,
+                           UserCache userCache, UserOutbox userOutbox) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.userReader = objectMapper.readerFor(User.class);
+        this.userCache = userCache;
+        this.userOutbox = userOutbox;
+    }
+
+    /**
+     * Reads a JSON array or NDJSON stream of users and writes them batch by batch.
+     * The whole payload is parsed and counted before the first batch is written, so a malformed row or one past
+     * {@code max-rows} rejects the request with nothing written. Each batch is one statement and commits on its own.
+     */
+    public BulkImportResult importUsers(InputStream body, BulkConflictMode mode) throws IOException {
+        long start = System.nanoTime();
+        int effectiveBatchSize = Math.max(1, Math.min(batchSize, MAX_BATCH_SIZE));
+        List<BulkRowResult> results = new ArrayList<>();
+        List<IndexedUser> valid = new ArrayList<>();
+        int received = 0;
+
+        // Handles both a root-level JSON array and whitespace separated values (NDJSON)
+        try (MappingIterator<User> users = userReader.readValues(body)) {
+            while (hasNext(users, received)) {
+                if (received >= maxRows) {
+                    throw new IllegalArgumentException("Bulk request exceeds the limit of " + maxRows + " rows");
+                }
+                User user = nextUser(users, received);
+                int index = received++;
+                if (isBlank(user.getName()) || isBlank(user.getEmail())) {
+                    results.add(new BulkRowResult(index, user.getEmail(), null, BulkOutcome.INVALID,
+                            "name and email are required"));
+                    continue;
+                }
+                valid.add(new IndexedUser(index, user));
+            }
+        }
+
+        int batches = 0;
+        for (int from = 0; from < valid.size(); from += effectiveBatchSize) {
+            writeBatch(valid.subList(from, Math.min(from + effectiveBatchSize, valid.size())), mode, results);
+            batches++;
+        }
+
+        results.sort((left, right) -> Integer.compare(left.index(), right.index()));
+        long elapsedNanos = Math.max(1L, System.nanoTime() - start);
+        double rowsPerSecond = received * 1_000_000_000.0 / elapsedNanos;
+        BulkImportResult result = new BulkImportResult(
+                received,
+                count(results, BulkOutcome.CREATED),
+                count(results, BulkOutcome.UPDATED),
+                count(results, BulkOutcome.CONFLICT),
+                count(results, BulkOutcome.INVALID),
+                batches,
+                elapsedNanos / 1_000_000,
+                Math.round(rowsPerSecond * 10.0) / 10.0,
+                results);
+        logger.info("Bulk import finished - rows: {}, created: {}, updated: {}, conflicts: {}, invalid: {}, rows/s: {}",
+                received, result.created(), result.updated(), result.conflicts(), result.invalid(), result.rowsPerSecond());
+        return result;
+    }
+
+    /**
+     * Inserts validated users with one statement, keeping existing rows on email conflicts.
+     * Used by the ingest queue's writer; at most {@value #MAX_BATCH_SIZE} users.
+     * @return one result per user, in input order
+     */
+    List<BulkRowResult> insertBatch(List<User> users) {
+        List<IndexedUser> batch = new ArrayList<>(users.size());
+        for (int i = 0; i < users.size(); i++) {
+            batch.add(new IndexedUser(i, users.get(i)));
+        }
+        List<BulkRowResult> results = new ArrayList<>(users.size());
+        writeBatch(batch, BulkConflictMode.SKIP, results);
+        results.sort((left, right) -> Integer.compare(left.index(), right.index()));
+        return results;
+    }
+
+    private void writeBatch(List<IndexedUser> batch, BulkConflictMode mode, List<BulkRowResult> results) {
+        // A statement may not touch the same row twice, so repeated emails within a batch are rejected up front
+        List<IndexedUser> rows = new ArrayList<>(batch.size());
+        Set<String> seenEmails = new HashSet<>();
+        for (IndexedUser row : batch) {
+            if (seenEmails.add(row.user().getEmail())) {
+                rows.add(row);
+            } else {
+                results.add(new BulkRowResult(row.index(), row.user().getEmail(), null, BulkOutcome.CONFLICT,
+                        "duplicate email in request"));
+            }
+        }
+
+        Map<String, WrittenRow> written = new HashMap<>();
+        jdbcTemplate.query(
+                connection -> prepareInsert(connection.prepareStatement(
+                        buildInsertSql(rows.size(), mode, userOutbox.isEnabled())), rows),
+                (RowCallbackHandler) resultSet -> written.put(resultSet.getString("email"),
+                        new WrittenRow(resultSet.getLong("id"), resultSet.getBoolean("inserted"))));
+        if (!written.isEmpty()) {
+            userCache.invalidateLists();
+        }
+
+        for (IndexedUser row : rows) {
+            String email = row.user().getEmail();
+            WrittenRow outcome = written.get(email);
+            if (outcome == null) {
+                results.add(new BulkRowResult(row.index(), email, null, BulkOutcome.CONFLICT,
+                        "User with email " + email + " already exists"));
+            } else {
+                BulkOutcome status = outcome.inserted() ? BulkOutcome.CREATED : BulkOutcome.UPDATED;
+                if (status == BulkOutcome.UPDATED) {
+                    userCache.evict(outcome.id(), email);
+                }
+                results.add(new BulkRowResult(row.index(), email, outcome.id(), status, null));
+            }
+        }
+    }
+
+    private static PreparedStatement prepareInsert(PreparedStatement statement, List<IndexedUser> rows)
+            throws SQLException {
+        int parameter = 1;
+        for (IndexedUser row : rows) {
+            User user = row.user();
+            LocalDateTime createdAt = user.getCreatedAt() != null ? user.getCreatedAt() : LocalDateTime.now();
+            statement.setString(parameter++, user.getName());
+            statement.setString(parameter++, user.getEmail());
+            statement.setTimestamp(parameter++, Timestamp.valueOf(createdAt));
+        }
+        return statement;
+    }
+
+    private static String buildInsertSql(int rowCount, BulkConflictMode mode, boolean recordChanges) {
+        StringBuilder sql = new StringBuilder(384 + rowCount * 12);
+        if (recordChanges) {
+            sql.append("WITH written AS (");
+        }
+        sql.append("INSERT INTO demo.users (name, email, created_at) VALUES ");
+        for (int i = 0; i < rowCount; i++) {
+            sql.append(i == 0 ? "(?, ?, ?)" : ", (?, ?, ?)");
+        }
+        if (mode == BulkConflictMode.UPDATE) {
+            sql.append(" ON CONFLICT (email) DO UPDATE SET name = EXCLUDED.name");
+        } else {
+            sql.append(" ON CONFLICT (email) DO NOTHING");
+        }
+        // xmax is zero for freshly inserted tuples and set for rows rewritten by DO UPDATE
+        if (!recordChanges) {
+            sql.append(" RETURNING id, email, (xmax = 0) AS inserted");
+            return sql.toString();
+        }
+        // The outbox rows go in with the users, in the same statement and transaction (see UserOutbox)
+        sql.append(" RETURNING id, name, email, created_at, (xmax = 0) AS inserted), changes AS (")
+                .append("INSERT INTO demo.user_outbox (user_id, operation, name, email, created_at) ")
+                .append("SELECT id, CASE WHEN inserted THEN 'created' ELSE 'updated' END, name, email, created_at ")
+                .append("FROM written) SELECT id, email, inserted FROM written");
+        return sql.toString();
+    }
+
+    private static boolean hasNext(MappingIterator<User> users, int row) throws IOException {
+        try {
+            return users.hasNextValue();
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException("Malformed bulk payload after row " + row + ": " + e.getOriginalMessage());
+        }
+    }
+
+    private static User nextUser(MappingIterator<User> users, int row) throws IOException {
+        try {
+            return users.nextValue();
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException("Malformed user at row " + row + ": " + e.getOriginalMessage());
+        }
+    }
+
+    private static int count(List<BulkRowResult> results, BulkOutcome outcome) {
+        int count = 0;
+        for (BulkRowResult result : results) {
+            if (result.status() == outcome) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    private static boolean isBlank(String value) {
+        return value == null || value.isBlank();
+    }
+
+    private record IndexedUser(int index, User user) {
+    }
+
+    private record WrittenRow(long id, boolean inserted) {
+    }
+}
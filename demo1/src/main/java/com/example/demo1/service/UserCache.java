@@ -0,0 +1,244 @@
+package com.example.demo1.service;
+
+import com.example.demo1.dto.CacheStatistics;
+import com.example.demo1.dto.UserSnapshot;
+import com.example.demo1.entity.User;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Bounded in-process cache of users by id and by email.
+ * Entries are immutable snapshots; callers always receive a fresh, detached {@link User}. A loaded user is cached
+ * only if it was not evicted while it loaded, so a read racing a write cannot cache the row from before the write.
+ * <p>
+ * Also remembers the entity tag last computed for each listing query, so an unchanged conditional poll can be
+ * answered without a query. Local writes drop all of them.
+ */
+@Component
+public class UserCache implements MeterBinder {
+
+    private static final int GENERATION_STRIPES = 1024;
+
+    private final boolean enabled;
+    private final Cache<Long, UserSnapshot> usersById;
+    // Email index pointing into usersById, so an evicted or replaced user can never be served by email
+    private final Cache<String, Long> idsByEmail;
+    // Listing query -> entity tag; bounded by a short TTL because writes on other instances are not seen here
+    private final Cache<String, String> listETags;
+    private final boolean listETagsEnabled;
+    private final AtomicLong listGeneration = new AtomicLong();
+    // Bumped by each eviction of an id in the stripe; striped so that writes to other users rarely void a load
+    private final AtomicLongArray userGenerations = new AtomicLongArray(GENERATION_STRIPES);
+
+    @Autowired
+    public UserCache(@Value("${demo1.users.cache.enabled:true}") boolean enabled,
+                     @Value("${demo1.users.cache.maximum-size:10000}") long maximumSize,
+                     @Value("${demo1.users.cache.ttl-seconds:60}") long ttlSeconds,
+                     @Value("${demo1.users.etag.list-ttl-ms:5000}") long listETagTtlMs) {
+        this.enabled = enabled;
+        this.usersById = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(Duration.ofSeconds(ttlSeconds))
+                .recordStats()
+                .build();
+        this.idsByEmail = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(Duration.ofSeconds(ttlSeconds))
+                .recordStats()
+                .build();
+        this.listETagsEnabled = listETagTtlMs > 0;
+        this.listETags = Caffeine.newBuilder()
+                .maximumSize(1000)
+                .expireAfterWrite(Duration.ofMillis(Math.max(1, listETagTtlMs)))
+                .build();
+    }
+
+    public Optional<User> getById(Long id) {
+        if (!enabled || id == null) {
+            return Optional.empty();
+        }
+        UserSnapshot snapshot = usersById.getIfPresent(id);
+        return snapshot != null ? Optional.of(snapshot.toUser()) : Optional.empty();
+    }
+
+    public Optional<User> getByEmail(String email) {
+        if (!enabled || email == null) {
+            return Optional.empty();
+        }
+        Long id = idsByEmail.getIfPresent(email);
+        if (id == null) {
+            return Optional.empty();
+        }
+        UserSnapshot snapshot = usersById.getIfPresent(id);
+        if (snapshot == null || !email.equals(snapshot.email())) {
+            idsByEmail.invalidate(email);
+            return Optional.empty();
+        }
+        return Optional.of(snapshot.toUser());
+    }
+
+    /**
+     * Current generation of the user; read it before loading the user and pass it to {@link #put}.
+     */
+    public long generation(Long id) {
+        return userGenerations.get(stripe(id));
+    }
+
+    /**
+     * Caches a loaded user, unless it was evicted since {@code generation} was read: the row may then predate the
+     * write that evicted it.
+     */
+    public void put(User user, long generation) {
+        if (!enabled || user == null || user.getId() == null) {
+            return;
+        }
+        UserSnapshot snapshot = UserSnapshot.of(user);
+        cache(snapshot);
+        // Checked after the put: an eviction either sees the entry or changed the generation first
+        if (userGenerations.get(stripe(snapshot.id())) != generation) {
+            usersById.asMap().remove(snapshot.id(), snapshot);
+        }
+    }
+
+    /**
+     * Caches the user once the surrounding transaction has committed, or immediately without one.
+     */
+    public void putAfterCommit(User user) {
+        invalidateLists();
+        if (!enabled || user == null) {
+            return;
+        }
+        UserSnapshot snapshot = UserSnapshot.of(user);
+        runAfterCommit(() -> cache(snapshot));
+    }
+
+    /**
+     * Evicts the user and the given emails now and again after commit,
+     * so a concurrent reader cannot re-cache the pre-commit row.
+     */
+    public void evict(Long id, String... emails) {
+        invalidateLists();
+        if (!enabled) {
+            return;
+        }
+        evictNow(id, emails);
+        runAfterCommit(() -> evictNow(id, emails));
+    }
+
+    public void clear() {
+        usersById.invalidateAll();
+        idsByEmail.invalidateAll();
+        listETags.invalidateAll();
+    }
+
+    public Optional<String> getListETag(String query) {
+        return listETagsEnabled ? Optional.ofNullable(listETags.getIfPresent(query)) : Optional.empty();
+    }
+
+    /**
+     * Current list generation; read it before running a listing query and pass it to {@link #putListETag}.
+     */
+    public long listGeneration() {
+        return listGeneration.get();
+    }
+
+    /**
+     * Remembers the tag of a listing result, unless a write happened since {@code generation} was read:
+     * the result may then predate the write.
+     */
+    public void putListETag(String query, String eTag, long generation) {
+        if (!listETagsEnabled) {
+            return;
+        }
+        listETags.put(query, eTag);
+        if (listGeneration.get() != generation) {
+            listETags.invalidate(query);
+        }
+    }
+
+    /**
+     * Drops every remembered listing tag now and again after commit; for writes that add rows.
+     */
+    public void invalidateLists() {
+        invalidateListsNow();
+        runAfterCommit(this::invalidateListsNow);
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        CaffeineCacheMetrics.monitor(registry, usersById, "usersById");
+        CaffeineCacheMetrics.monitor(registry, idsByEmail, "idsByEmail");
+    }
+
+    public List<CacheStatistics> statistics() {
+        return List.of(
+                toStatistics("usersById", usersById),
+                toStatistics("idsByEmail", idsByEmail));
+    }
+
+    private void invalidateListsNow() {
+        listGeneration.incrementAndGet();
+        listETags.invalidateAll();
+    }
+
+    private void cache(UserSnapshot snapshot) {
+        usersById.put(snapshot.id(), snapshot);
+        if (snapshot.email() != null) {
+            idsByEmail.put(snapshot.email(), snapshot.id());
+        }
+    }
+
+    private void evictNow(Long id, String... emails) {
+        if (id != null) {
+            userGenerations.incrementAndGet(stripe(id));
+            UserSnapshot cached = usersById.getIfPresent(id);
+            if (cached != null && cached.email() != null) {
+                idsByEmail.invalidate(cached.email());
+            }
+            usersById.invalidate(id);
+        }
+        for (String email : emails) {
+            if (email != null) {
+                idsByEmail.invalidate(email);
+            }
+        }
+    }
+
+    private static int stripe(Long id) {
+        return Long.hashCode(id) & (GENERATION_STRIPES - 1);
+    }
+
+    private static void runAfterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+
+    private static CacheStatistics toStatistics(String name, Cache<?, ?> cache) {
+        CacheStats stats = cache.stats();
+        return new CacheStatistics(name, cache.estimatedSize(), stats.hitCount(), stats.missCount(),
+                stats.hitRate(), stats.evictionCount());
+    }
+}
@@ -0,0 +1,43 @@
+package com.example.demo1.service;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * Encodes a position in the user outbox, a transaction id and an outbox id, as an opaque, URL-safe token.
+ */
+record UserChangeCursor(long txid, long id) implements Comparable<UserChangeCursor> {
+
+    static final UserChangeCursor START = new UserChangeCursor(0, 0);
+    private static final String PREFIX = "chg:";
+
+    String encode() {
+        byte[] raw = (PREFIX + txid + ":" + id).getBytes(StandardCharsets.US_ASCII);
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw);
+    }
+
+    static UserChangeCursor decode(String cursor) {
+        // An empty cursor starts from the oldest change still kept
+        if (cursor == null || cursor.isBlank()) {
+            return START;
+        }
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor.trim()), StandardCharsets.US_ASCII);
+            int separator = raw.indexOf(':', PREFIX.length());
+            if (!raw.startsWith(PREFIX) || separator < 0) {
+                throw new IllegalArgumentException("Invalid cursor: " + cursor);
+            }
+            return new UserChangeCursor(Long.parseLong(raw.substring(PREFIX.length(), separator)),
+                    Long.parseLong(raw.substring(separator + 1)));
+        } catch (IllegalArgumentException e) {
+            // Also covers NumberFormatException and malformed Base64
+            throw new IllegalArgumentException("Invalid cursor: " + cursor);
+        }
+    }
+
+    @Override
+    public int compareTo(UserChangeCursor other) {
+        int byTransaction = Long.compare(txid, other.txid);
+        return byTransaction != 0 ? byTransaction : Long.compare(id, other.id);
+    }
+}
@@ -0,0 +1,181 @@
+package com.example.demo1.service;
+
+import com.example.demo1.entity.User;
+import com.example.userapi.ExportFormat;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SequenceWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+
+/**
+ * Streams the whole users table from a server-side cursor straight to an output stream,
+ * so memory use does not depend on the number of rows.
+ */
+@Service
+public class UserExportService {
+
+    private static final Logger logger = LoggerFactory.getLogger(UserExportService.class);
+    private static final String EXPORT_SQL = "SELECT id, name, email, created_at FROM demo.users ORDER BY id";
+    private static final DateTimeFormatter CSV_DATE_FORMAT = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ObjectMapper objectMapper;
+    private final ObjectWriter userWriter;
+
+    @Value("${demo1.users.export.fetch-size:1000}")
+    private int fetchSize;
+
+    @Value("${demo1.users.export.flush-every:1000}")
+    private int flushEvery;
+
+    @Autowired
+    public UserExportService(@Qualifier("renderJdbcTemplate") JdbcTemplate jdbcTemplate, ObjectMapper objectMapper) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.objectMapper = objectMapper;
+        // One compact object per line; flushing is batched by this service
+        this.userWriter = objectMapper.writerFor(User.class)
+                .without(SerializationFeature.INDENT_OUTPUT)
+                .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE)
+                .withRootValueSeparator("\n");
+    }
+
+    /**
+     * Writes every user to the given stream. A client disconnect stops the query and is not treated as an error.
+     * @return the number of rows written
+     */
+    public long export(ExportFormat format, OutputStream out) throws IOException {
+        RowCounter counter = new RowCounter();
+        try {
+            if (format == ExportFormat.CSV) {
+                exportCsv(out, counter);
+            } else {
+                exportNdjson(out, counter);
+            }
+        } catch (UncheckedIOException e) {
+            // Most likely the client went away; the cursor has been closed and the transaction rolled back
+            logger.info("User export aborted after {} rows: {}", counter.rows, e.getCause().getMessage());
+            return counter.rows;
+        }
+        logger.info("User export finished - format: {}, rows: {}", format, counter.rows);
+        return counter.rows;
+    }
+
+    private void exportNdjson(OutputStream out, RowCounter counter) throws IOException {
+        JsonGenerator generator = objectMapper.getFactory().createGenerator(out);
+        generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+        // The sequence leaves a caller's generator open; closing it writes out the rows still buffered
+        try (generator; SequenceWriter sequence = userWriter.writeValues(generator)) {
+            streamUsers(user -> {
+                sequence.write(user);
+                if (counter.increment() % flushEvery == 0) {
+                    sequence.flush();
+                }
+            });
+            if (counter.rows > 0) {
+                generator.writeRaw('\n');
+            }
+        }
+        out.flush();
+    }
+
+    private void exportCsv(OutputStream out, RowCounter counter) throws IOException {
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+        writer.write("id,name,email,createdAt\n");
+        streamUsers(user -> {
+            writer.write(String.valueOf(user.getId()));
+            writer.write(',');
+            writer.write(csvField(user.getName()));
+            writer.write(',');
+            writer.write(csvField(user.getEmail()));
+            writer.write(',');
+            if (user.getCreatedAt() != null) {
+                writer.write(CSV_DATE_FORMAT.format(user.getCreatedAt()));
+            }
+            writer.write('\n');
+            if (counter.increment() % flushEvery == 0) {
+                writer.flush();
+            }
+        });
+        writer.flush();
+    }
+
+    private void streamUsers(UserSink sink) {
+        jdbcTemplate.execute((ConnectionCallback<Void>) connection -> {
+            boolean autoCommit = connection.getAutoCommit();
+            // PostgreSQL only uses a server-side cursor for the fetch size outside auto-commit mode
+            connection.setAutoCommit(false);
+            try (PreparedStatement statement = connection.prepareStatement(EXPORT_SQL)) {
+                statement.setFetchSize(fetchSize);
+                try (ResultSet resultSet = statement.executeQuery()) {
+                    while (resultSet.next()) {
+                        sink.write(mapUser(resultSet));
+                    }
+                }
+                connection.commit();
+            } catch (IOException e) {
+                connection.rollback();
+                throw new UncheckedIOException(e);
+            } catch (SQLException | RuntimeException e) {
+                connection.rollback();
+                throw e;
+            } finally {
+                connection.setAutoCommit(autoCommit);
+            }
+            return null;
+        });
+    }
+
+    private static User mapUser(ResultSet resultSet) throws SQLException {
+        User user = new User();
+        user.setId(resultSet.getLong("id"));
+        user.setName(resultSet.getString("name"));
+        user.setEmail(resultSet.getString("email"));
+        user.setCreatedAt(resultSet.getObject("created_at", LocalDateTime.class));
+        return user;
+    }
+
+    private static String csvField(String value) {
+        if (value == null) {
+            return "";
+        }
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0 && value.indexOf('\r') < 0) {
+            return value;
+        }
+        return '"' + value.replace("\"", "\"\"") + '"';
+    }
+
+    @FunctionalInterface
+    private interface UserSink {
+        void write(User user) throws IOException;
+    }
+
+    private static final class RowCounter {
+        private long rows;
+
+        long increment() {
+            return ++rows;
+        }
+    }
+}
@@ -0,0 +1,202 @@
+package com.example.demo1.service;
+
+import com.example.demo1.entity.User;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Append-only local file of the users accepted by {@link UserIngestQueue}, so that a crash between
+ * {@code 202 Accepted} and the database write loses nothing.
+ * <p>
+ * One JSON line per user, numbered in acceptance order. A separate checkpoint file holds the highest number known
+ * to be written; later entries are replayed at startup. Replaying an entry that was in fact written is harmless,
+ * it comes back as an email conflict. Once everything has been written and the file has outgrown
+ * {@code compactBytes}, it is truncated. Appending only writes the line; {@link #sync} makes it durable, and one
+ * fsync covers every line appended before it. Not thread-safe apart from {@link #sync}; the queue serializes all
+ * other calls.
+ */
+class UserIngestJournal implements Closeable {
+
+    private static final Logger logger = LoggerFactory.getLogger(UserIngestJournal.class);
+    private static final String JOURNAL_FILE = "users.journal";
+    private static final String CHECKPOINT_FILE = "users.checkpoint";
+
+    private final Path journalFile;
+    private final Path checkpointFile;
+    private final boolean sync;
+    private final long compactBytes;
+    private final ObjectWriter entryWriter;
+    private final ObjectReader entryReader;
+    private final List<Entry> recovered;
+    private final FileChannel channel;
+    private final ReentrantLock syncLock = new ReentrantLock();
+    // Read by sync outside the queue's lock
+    private volatile long lastSeq;
+    private volatile long syncedSeq;
+    private long syncs;
+    private long checkpoint;
+
+    UserIngestJournal(Path directory, boolean sync, long compactBytes, ObjectMapper objectMapper) throws IOException {
+        Files.createDirectories(directory);
+        this.journalFile = directory.resolve(JOURNAL_FILE);
+        this.checkpointFile = directory.resolve(CHECKPOINT_FILE);
+        this.sync = sync;
+        this.compactBytes = compactBytes;
+        this.entryWriter = objectMapper.writerFor(Entry.class).without(SerializationFeature.INDENT_OUTPUT);
+        this.entryReader = objectMapper.readerFor(Entry.class);
+        this.checkpoint = Files.exists(checkpointFile)
+                ? Long.parseLong(Files.readString(checkpointFile, StandardCharsets.US_ASCII).trim()) : 0;
+        this.lastSeq = checkpoint;
+        this.recovered = readPending();
+        this.syncedSeq = lastSeq;
+        this.channel = FileChannel.open(journalFile, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.APPEND);
+    }
+
+    /**
+     * Entries that were accepted but not checkpointed when the journal was last closed, in order.
+     */
+    List<Entry> recovered() {
+        return recovered;
+    }
+
+    Entry append(String trackingId, User user, LocalDateTime acceptedAt) throws IOException {
+        Entry entry = new Entry(lastSeq + 1, trackingId, user.getName(), user.getEmail(), user.getCreatedAt(),
+                acceptedAt);
+        byte[] line = (entryWriter.writeValueAsString(entry) + "\n").getBytes(StandardCharsets.UTF_8);
+        ByteBuffer buffer = ByteBuffer.wrap(line);
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        lastSeq = entry.seq();
+        return entry;
+    }
+
+    /**
+     * Waits until the entry numbered {@code seq} is on disk. Callers that arrive while another one forces the file
+     * wait for it and are usually covered by its fsync or by the next one, which they then share.
+     */
+    void sync(long seq) throws IOException {
+        // Without this the line survives a process crash but not a power loss
+        if (!sync || syncedSeq >= seq) {
+            return;
+        }
+        syncLock.lock();
+        try {
+            if (syncedSeq >= seq) {
+                return;
+            }
+            // Everything appended up to here is written to the channel, so this fsync covers it
+            long appended = lastSeq;
+            channel.force(false);
+            syncedSeq = appended;
+            syncs++;
+        } finally {
+            syncLock.unlock();
+        }
+    }
+
+    long syncs() {
+        return syncs;
+    }
+
+    /**
+     * Records that every entry up to and including {@code seq} has been written to the database.
+     */
+    void checkpoint(long seq) throws IOException {
+        if (seq <= checkpoint) {
+            return;
+        }
+        Path temporary = checkpointFile.resolveSibling(CHECKPOINT_FILE + ".tmp");
+        Files.writeString(temporary, Long.toString(seq), StandardCharsets.US_ASCII);
+        try (FileChannel file = FileChannel.open(temporary, StandardOpenOption.WRITE)) {
+            file.force(true);
+        }
+        Files.move(temporary, checkpointFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        checkpoint = seq;
+
+        if (checkpoint == lastSeq && channel.size() > compactBytes) {
+            // Nothing pending, so nothing in the file is needed any more; numbering carries on from lastSeq
+            channel.truncate(0);
+            channel.force(true);
+            logger.debug("Ingest journal compacted at seq {}", seq);
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    private List<Entry> readPending() throws IOException {
+        List<Entry> pending = new ArrayList<>();
+        if (!Files.exists(journalFile)) {
+            return pending;
+        }
+        byte[] content = Files.readAllBytes(journalFile);
+        int lineStart = 0;
+        for (int i = 0; i < content.length; i++) {
+            if (content[i] != '\n') {
+                continue;
+            }
+            Entry entry = parse(content, lineStart, i - lineStart);
+            if (entry != null) {
+                lastSeq = Math.max(lastSeq, entry.seq());
+                if (entry.seq() > checkpoint) {
+                    pending.add(entry);
+                }
+            }
+            lineStart = i + 1;
+        }
+        if (lineStart < content.length) {
+            // A line cut short by a crash was never acknowledged; drop it so appends start on a clean line
+            logger.warn("Discarding {} bytes of incomplete ingest journal entry", content.length - lineStart);
+            try (FileChannel file = FileChannel.open(journalFile, StandardOpenOption.WRITE)) {
+                file.truncate(lineStart);
+                file.force(true);
+            }
+        }
+        if (!pending.isEmpty()) {
+            logger.info("Recovered {} accepted users from the ingest journal", pending.size());
+        }
+        return pending;
+    }
+
+    private Entry parse(byte[] content, int offset, int length) throws IOException {
+        try {
+            return entryReader.readValue(content, offset, length);
+        } catch (JsonProcessingException e) {
+            logger.warn("Unreadable ingest journal entry at byte {}: {}", offset, e.getOriginalMessage());
+            return null;
+        }
+    }
+
+    record Entry(long seq, String trackingId, String name, String email, LocalDateTime createdAt,
+                 LocalDateTime acceptedAt) {
+
+        User toUser() {
+            User user = new User(name, email);
+            user.setCreatedAt(createdAt);
+            return user;
+        }
+    }
+}
@@ -0,0 +1,453 @@
+package com.example.demo1.service;
+
+import com.example.demo1.dto.BulkOutcome;
+import com.example.demo1.dto.BulkRowResult;
+import com.example.demo1.dto.IngestState;
+import com.example.demo1.dto.IngestStatus;
+import com.example.demo1.entity.User;
+import com.example.demo1.exception.TooManyRequestsException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.dao.RecoverableDataAccessException;
+import org.springframework.dao.TransientDataAccessException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.CannotCreateTransactionException;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.sql.SQLException;
+import java.sql.SQLRecoverableException;
+import java.sql.SQLTransientException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Accept-then-persist user creation for sign-up bursts. {@link #submit} validates a user, journals it and queues
+ * it, without touching the connection pool; a single writer thread drains the queue in multi-row
+ * {@code INSERT ... ON CONFLICT DO NOTHING} batches through {@link UserBulkService}.
+ * <p>
+ * The queue is bounded: when {@code capacity} users are waiting, submissions are refused with 429 rather than
+ * piling up. Accepted users are in {@link UserIngestJournal} before the caller hears back, and whatever was not
+ * written before a crash or shutdown is written after the next start. A batch stays in the journal until it is
+ * committed or rejected for a reason of its own; while the database is unreachable it is retried with backoff and
+ * nothing behind it is written. A batch rejected for its own reason is halved until the offending rows are alone,
+ * so only they fail. Outcomes are kept per tracking id for {@code status-ttl-minutes}.
+ */
+@Component
+public class UserIngestQueue implements MeterBinder {
+
+    private static final Logger logger = LoggerFactory.getLogger(UserIngestQueue.class);
+    private static final int MAX_FIELD_LENGTH = 255;
+    private static final long MAX_BACKOFF_MS = 30_000;
+
+    private final UserBulkService userBulkService;
+    private final ObjectMapper objectMapper;
+    private final BlockingQueue<UserIngestJournal.Entry> queue = new LinkedBlockingQueue<>();
+    // Users accepted and not yet written, including the batch being written; this is what capacity bounds
+    private final AtomicInteger depth = new AtomicInteger();
+    // Journal order must match queue order, or a checkpoint could pass over an entry that is still queued
+    private final ReentrantLock journalLock = new ReentrantLock();
+    private Cache<String, IngestStatus> statuses;
+    private UserIngestJournal journal;
+    private Thread writer;
+    private volatile boolean running;
+    private volatile Timer flushTimer;
+
+    private final AtomicLong accepted = new AtomicLong();
+    private final AtomicLong rejected = new AtomicLong();
+    private final AtomicLong created = new AtomicLong();
+    private final AtomicLong conflicts = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+    private final AtomicLong retries = new AtomicLong();
+
+    @Value("${demo1.users.ingest.enabled:false}")
+    private boolean enabled;
+
+    @Value("${demo1.users.ingest.capacity:10000}")
+    private int capacity;
+
+    @Value("${demo1.users.ingest.batch-size:500}")
+    private int batchSize;
+
+    // How long the writer waits for a batch to fill once the first user has arrived
+    @Value("${demo1.users.ingest.linger-ms:20}")
+    private long lingerMs;
+
+    // Attempts at a batch that failed for a reason other than an unavailable database
+    @Value("${demo1.users.ingest.max-attempts:5}")
+    private int maxAttempts;
+
+    @Value("${demo1.users.ingest.retry-backoff-ms:500}")
+    private long retryBackoffMs;
+
+    @Value("${demo1.users.ingest.status-ttl-minutes:60}")
+    private long statusTtlMinutes;
+
+    @Value("${demo1.users.ingest.journal.dir:data/ingest}")
+    private String journalDir;
+
+    @Value("${demo1.users.ingest.journal.sync:true}")
+    private boolean syncJournal;
+
+    @Value("${demo1.users.ingest.journal.compact-bytes:67108864}")
+    private long compactBytes;
+
+    @Value("${demo1.users.ingest.shutdown-timeout-ms:10000}")
+    private long shutdownTimeoutMs;
+
+    @Autowired
+    public UserIngestQueue(UserBulkService userBulkService, ObjectMapper objectMapper) {
+        this.userBulkService = userBulkService;
+        this.objectMapper = objectMapper;
+    }
+
+    @PostConstruct
+    public void start() throws IOException {
+        if (!enabled) {
+            return;
+        }
+        statuses = Caffeine.newBuilder()
+                .expireAfterWrite(Duration.ofMinutes(statusTtlMinutes))
+                .maximumSize(Math.max(100_000L, capacity * 10L))
+                .build();
+        journal = new UserIngestJournal(Path.of(journalDir), syncJournal, compactBytes, objectMapper);
+        // Replayed past capacity: these were accepted already
+        for (UserIngestJournal.Entry entry : journal.recovered()) {
+            statuses.put(entry.trackingId(), IngestStatus.pending(entry.trackingId(), entry.email(), entry.acceptedAt()));
+            depth.incrementAndGet();
+            queue.add(entry);
+        }
+        running = true;
+        writer = new Thread(this::drain, "user-ingest-writer");
+        writer.setDaemon(true);
+        writer.start();
+        logger.info("User ingest queue started - capacity: {}, batch size: {}, journal: {}",
+                capacity, batchSize, Path.of(journalDir).toAbsolutePath());
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException, IOException {
+        if (writer == null) {
+            return;
+        }
+        // Give the writer a chance to empty the queue; anything left is still in the journal
+        running = false;
+        writer.join(shutdownTimeoutMs);
+        if (writer.isAlive()) {
+            logger.warn("User ingest writer still busy after {} ms, {} users stay in the journal",
+                    shutdownTimeoutMs, depth.get());
+            writer.interrupt();
+            writer.join(1000);
+        }
+        journalLock.lock();
+        try {
+            journal.close();
+        } finally {
+            journalLock.unlock();
+        }
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Queues a user for creation and returns its pending status.
+     * @throws TooManyRequestsException when {@code capacity} users are already waiting
+     */
+    public IngestStatus submit(User user) {
+        if (!running) {
+            throw new IllegalStateException("User ingest is not running");
+        }
+        validate(user);
+        if (depth.incrementAndGet() > capacity) {
+            depth.decrementAndGet();
+            rejected.incrementAndGet();
+            throw new TooManyRequestsException("User ingest queue is full, retry later", 1);
+        }
+
+        if (user.getCreatedAt() == null) {
+            user.setCreatedAt(LocalDateTime.now());
+        }
+        String trackingId = UUID.randomUUID().toString();
+        IngestStatus status = IngestStatus.pending(trackingId, user.getEmail(), LocalDateTime.now());
+        UserIngestJournal.Entry entry;
+        journalLock.lock();
+        try {
+            entry = journal.append(trackingId, user, status.acceptedAt());
+            statuses.put(trackingId, status);
+            queue.add(entry);
+        } catch (IOException e) {
+            depth.decrementAndGet();
+            throw new UncheckedIOException("Could not journal user for ingest", e);
+        } finally {
+            journalLock.unlock();
+        }
+        try {
+            // Outside the lock: one fsync covers every submit that appended while the previous one ran
+            journal.sync(entry.seq());
+        } catch (IOException e) {
+            // Already queued, so the user may still be written; a retry by the caller then sees a conflict
+            throw new UncheckedIOException("Could not journal user for ingest", e);
+        }
+        accepted.incrementAndGet();
+        return status;
+    }
+
+    public Optional<IngestStatus> status(String trackingId) {
+        return enabled ? Optional.ofNullable(statuses.getIfPresent(trackingId)) : Optional.empty();
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("demo1.users.ingest.queue.depth", depth, AtomicInteger::get)
+                .description("Users accepted for ingest and not yet written")
+                .register(registry);
+        FunctionCounter.builder("demo1.users.ingest.accepted", accepted, AtomicLong::get)
+                .description("Users accepted with 202 for asynchronous creation")
+                .register(registry);
+        FunctionCounter.builder("demo1.users.ingest.rejected", rejected, AtomicLong::get)
+                .description("Submissions refused with 429 because the ingest queue was full")
+                .register(registry);
+        FunctionCounter.builder("demo1.users.ingest.written", created, AtomicLong::get)
+                .tag("outcome", "created").description("Ingested users by outcome").register(registry);
+        FunctionCounter.builder("demo1.users.ingest.written", conflicts, AtomicLong::get)
+                .tag("outcome", "conflict").description("Ingested users by outcome").register(registry);
+        FunctionCounter.builder("demo1.users.ingest.written", failed, AtomicLong::get)
+                .tag("outcome", "failed").description("Ingested users by outcome").register(registry);
+        FunctionCounter.builder("demo1.users.ingest.retries", retries, AtomicLong::get)
+                .description("Failed batch writes that were retried")
+                .register(registry);
+        flushTimer = Timer.builder("demo1.users.ingest.flush")
+                .description("Time to write one ingest batch, retries included")
+                .publishPercentileHistogram()
+                .register(registry);
+    }
+
+    int depth() {
+        return depth.get();
+    }
+
+    private static void validate(User user) {
+        if (user == null || isBlank(user.getName()) || isBlank(user.getEmail())) {
+            throw new IllegalArgumentException("name and email are required");
+        }
+        if (user.getName().length() > MAX_FIELD_LENGTH || user.getEmail().length() > MAX_FIELD_LENGTH) {
+            throw new IllegalArgumentException("name and email must be at most " + MAX_FIELD_LENGTH + " characters");
+        }
+    }
+
+    private static boolean isBlank(String value) {
+        return value == null || value.isBlank();
+    }
+
+    private void drain() {
+        int maxBatch = Math.max(1, Math.min(batchSize, UserBulkService.MAX_BATCH_SIZE));
+        List<UserIngestJournal.Entry> batch = new ArrayList<>(maxBatch);
+        int attempt = 0;
+        // A batch that could not be written yet is retried before anything newer, so the checkpoint never passes it
+        while (running || !queue.isEmpty() || !batch.isEmpty()) {
+            try {
+                if (batch.isEmpty()) {
+                    attempt = 0;
+                    if (!fill(batch, maxBatch)) {
+                        continue;
+                    }
+                }
+                attempt++;
+                boolean done;
+                try {
+                    done = flush(batch, attempt);
+                } catch (RuntimeException e) {
+                    // Never let the writer die; the batch is still journaled and goes round again
+                    logger.error("User ingest writer failed on a batch of {}", batch.size(), e);
+                    done = false;
+                }
+                if (done) {
+                    batch.clear();
+                    continue;
+                }
+                if (!running) {
+                    logger.warn("Stopping with {} ingested users unwritten; they stay in the journal", depth.get());
+                    return;
+                }
+                // Meanwhile the queue fills up and new submissions get 429
+                Thread.sleep(Math.min(retryBackoffMs << Math.min(attempt - 1, 16), MAX_BACKOFF_MS));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+
+    /**
+     * Takes the next batch off the queue: waits up to 100 ms for a first user, then at most {@code lingerMs}
+     * for the batch to fill.
+     * @return false when no user arrived
+     */
+    private boolean fill(List<UserIngestJournal.Entry> batch, int maxBatch) throws InterruptedException {
+        UserIngestJournal.Entry first = queue.poll(100, TimeUnit.MILLISECONDS);
+        if (first == null) {
+            return false;
+        }
+        batch.add(first);
+        // Under a burst the batch fills at once; a trickle waits at most lingerMs
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(lingerMs);
+        while (batch.size() < maxBatch) {
+            queue.drainTo(batch, maxBatch - batch.size());
+            long remaining = deadline - System.nanoTime();
+            if (batch.size() >= maxBatch || remaining <= 0) {
+                break;
+            }
+            UserIngestJournal.Entry next = queue.poll(remaining, TimeUnit.NANOSECONDS);
+            if (next == null) {
+                break;
+            }
+            batch.add(next);
+        }
+        return true;
+    }
+
+    /**
+     * Writes a batch once, removing the entries it settles.
+     * @return true when the whole batch is settled: committed, or failed for good after {@code maxAttempts}
+     * attempts with an error that is not transient. False leaves the rest journaled for another attempt.
+     */
+    private boolean flush(List<UserIngestJournal.Entry> batch, int attempt) {
+        long started = System.nanoTime();
+        boolean settled = write(batch, batch.size(), attempt);
+        Timer timer = flushTimer;
+        if (settled && timer != null) {
+            timer.record(System.nanoTime() - started, TimeUnit.NANOSECONDS);
+        }
+        return settled;
+    }
+
+    /**
+     * Writes the first {@code count} entries of {@code pending} and removes them once settled. When they are
+     * rejected for a reason of their own, each half is written on its own, down to single rows, so that one bad row
+     * does not fail the users accepted with it. Stops at the first transient error, leaving the rest in place.
+     */
+    private boolean write(List<UserIngestJournal.Entry> pending, int count, int attempt) {
+        List<UserIngestJournal.Entry> run = new ArrayList<>(pending.subList(0, count));
+        List<User> users = new ArrayList<>(count);
+        for (UserIngestJournal.Entry entry : run) {
+            users.add(entry.toUser());
+        }
+
+        List<BulkRowResult> results;
+        try {
+            results = userBulkService.insertBatch(users);
+        } catch (RuntimeException e) {
+            // An unreachable database is waited out however long it takes; the users were promised a write
+            if (isTransient(e)) {
+                retries.incrementAndGet();
+                logger.warn("Writing {} ingested users failed (attempt {}), retrying: {}",
+                        count, attempt, e.getMessage());
+                return false;
+            }
+            if (count > 1) {
+                // Settled halves leave pending, so the second half is again at its front
+                int half = count / 2;
+                return write(pending, half, attempt) && write(pending, count - half, attempt);
+            }
+            if (attempt < maxAttempts) {
+                retries.incrementAndGet();
+                logger.warn("Writing ingested user {} failed (attempt {}), retrying: {}",
+                        run.get(0).trackingId(), attempt, e.getMessage());
+                return false;
+            }
+            logger.error("Giving up on ingested user {} after {} attempts", run.get(0).trackingId(), attempt, e);
+            settle(run, null, e.getMessage());
+            pending.subList(0, count).clear();
+            return true;
+        }
+        settle(run, results, null);
+        pending.subList(0, count).clear();
+        return true;
+    }
+
+    private void settle(List<UserIngestJournal.Entry> batch, List<BulkRowResult> results, String failure) {
+        try {
+            for (int i = 0; i < batch.size(); i++) {
+                UserIngestJournal.Entry entry = batch.get(i);
+                IngestStatus status = statuses.getIfPresent(entry.trackingId());
+                if (status == null) {
+                    status = IngestStatus.pending(entry.trackingId(), entry.email(), entry.acceptedAt());
+                }
+                if (results == null) {
+                    failed.incrementAndGet();
+                    statuses.put(entry.trackingId(), status.complete(IngestState.FAILED, null, failure));
+                } else if (results.get(i).status() == BulkOutcome.CREATED) {
+                    created.incrementAndGet();
+                    statuses.put(entry.trackingId(), status.complete(IngestState.CREATED, results.get(i).id(), null));
+                } else {
+                    conflicts.incrementAndGet();
+                    statuses.put(entry.trackingId(),
+                            status.complete(IngestState.CONFLICT, null, results.get(i).error()));
+                }
+            }
+        } finally {
+            // The database outcome is final, so the batch leaves the journal and the queue whatever happened above
+            journalLock.lock();
+            try {
+                journal.checkpoint(batch.get(batch.size() - 1).seq());
+            } catch (IOException e) {
+                // The rows are written; after a restart they are replayed and reported as conflicts
+                logger.warn("Could not checkpoint the ingest journal: {}", e.getMessage());
+            } finally {
+                journalLock.unlock();
+            }
+            depth.addAndGet(-batch.size());
+        }
+    }
+
+    /**
+     * Whether {@code e} says nothing about the batch itself: the database could not be reached, a connection
+     * broke, the pool timed out or the server is shutting down. Such a batch will succeed once the database is back.
+     */
+    static boolean isTransient(Throwable e) {
+        for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+            if (cause instanceof TransientDataAccessException || cause instanceof RecoverableDataAccessException
+                    || cause instanceof DataAccessResourceFailureException
+                    || cause instanceof CannotCreateTransactionException
+                    || cause instanceof SQLTransientException || cause instanceof SQLRecoverableException) {
+                return true;
+            }
+            // 08: connection exception, 40: rollback (serialization, deadlock), 53: insufficient resources,
+            // 57P: operator intervention (shutdown, restart)
+            if (cause instanceof SQLException sqlException && sqlException.getSQLState() != null) {
+                String state = sqlException.getSQLState();
+                if (state.startsWith("08") || state.startsWith("40") || state.startsWith("53")
+                        || state.startsWith("57P")) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,216 @@
+package com.example.demo1.service;
+
+import com.example.demo1.config.ReplicaRoutingDataSource;
+import com.example.demo1.dto.UserSnapshot;
+import com.example.demo1.entity.User;
+import com.example.demo1.repository.UserRepository;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Loads users by id, collapsing concurrent lookups of the same id into one in-flight query and
+ * gathering distinct ids that arrive within a short window into a single {@code WHERE id IN (...)}.
+ * <p>
+ * Batches run on their own threads, outside the request, so with the read replica on they read from it. A client
+ * that has just written must read its write back from the primary, so its lookups bypass the batches.
+ * <p>
+ * Callers pass the cache generation of the id they read before the lookup. A lookup joins an in-flight query only
+ * if that query was requested at the same or a later generation; one begun before a write may return the old row.
+ */
+@Component
+public class UserLookupBatcher implements MeterBinder {
+
+    private final UserRepository userRepository;
+    private final boolean enabled;
+    private final long windowMicros;
+    private final int maxBatchSize;
+    private final long timeoutMs;
+    private final long primaryStickinessMs;
+
+    private final Map<Long, Lookup> inFlight = new ConcurrentHashMap<>();
+    // Not synchronized: callers may be virtual threads, which must not pin their carrier while waiting
+    private final ReentrantLock pendingLock = new ReentrantLock();
+    private List<Lookup> pending = new ArrayList<>();
+
+    private final ScheduledExecutorService timer;
+    private final ExecutorService queryExecutor = Executors.newVirtualThreadPerTaskExecutor();
+
+    private final AtomicLong lookups = new AtomicLong();
+    private final AtomicLong coalesced = new AtomicLong();
+    private final AtomicLong queries = new AtomicLong();
+
+    @Autowired
+    public UserLookupBatcher(UserRepository userRepository,
+                             @Value("${demo1.users.lookup.batching-enabled:true}") boolean enabled,
+                             @Value("${demo1.users.lookup.window-micros:1000}") long windowMicros,
+                             @Value("${demo1.users.lookup.max-batch-size:100}") int maxBatchSize,
+                             @Value("${demo1.users.lookup.timeout-ms:5000}") long timeoutMs,
+                             @Value("${demo1.datasource.read-replica.enabled:false}") boolean readReplicaEnabled,
+                             @Value("${demo1.datasource.read-replica.stickiness-ms:5000}") long stickinessMs) {
+        this.userRepository = userRepository;
+        this.enabled = enabled;
+        this.windowMicros = windowMicros;
+        this.maxBatchSize = maxBatchSize;
+        this.timeoutMs = timeoutMs;
+        this.primaryStickinessMs = readReplicaEnabled ? stickinessMs : 0;
+        this.timer = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "user-lookup-batcher");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        timer.shutdownNow();
+        queryExecutor.shutdownNow();
+    }
+
+    public Optional<User> findById(Long id, long generation) {
+        // On the caller's thread, the routing data source sees its request and keeps the read on the primary
+        if (!enabled || ReplicaRoutingDataSource.clientWroteWithin(primaryStickinessMs)) {
+            return userRepository.findById(id);
+        }
+        Lookup lookup = new Lookup(id, generation, new CompletableFuture<>());
+        Lookup current = inFlight.compute(id,
+                (key, existing) -> existing != null && existing.generation() >= generation ? existing : lookup);
+        lookups.incrementAndGet();
+        if (current != lookup) {
+            coalesced.incrementAndGet();
+        } else {
+            enqueue(lookup);
+        }
+        // Every caller gets its own detached copy
+        return await(current.result()).map(UserSnapshot::toUser);
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        FunctionCounter.builder("demo1.users.lookups", lookups, AtomicLong::get)
+                .description("User lookups by id that missed the cache")
+                .register(registry);
+        FunctionCounter.builder("demo1.users.lookups.coalesced", coalesced, AtomicLong::get)
+                .description("Lookups that joined an in-flight query for the same id")
+                .register(registry);
+        FunctionCounter.builder("demo1.users.lookups.queries", queries, AtomicLong::get)
+                .description("Batched WHERE id IN (...) queries issued")
+                .register(registry);
+    }
+
+    long getLookups() {
+        return lookups.get();
+    }
+
+    long getCoalesced() {
+        return coalesced.get();
+    }
+
+    long getQueries() {
+        return queries.get();
+    }
+
+    private void enqueue(Lookup lookup) {
+        List<Lookup> fullBatch = null;
+        boolean startsBatch;
+        pendingLock.lock();
+        try {
+            pending.add(lookup);
+            startsBatch = pending.size() == 1;
+            if (pending.size() >= maxBatchSize) {
+                fullBatch = pending;
+                pending = new ArrayList<>();
+            }
+        } finally {
+            pendingLock.unlock();
+        }
+
+        if (fullBatch != null) {
+            List<Lookup> batch = fullBatch;
+            queryExecutor.execute(() -> load(batch));
+        } else if (startsBatch) {
+            // A stale timer from an already flushed batch only flushes the next one early
+            timer.schedule(this::flushPending, windowMicros, TimeUnit.MICROSECONDS);
+        }
+    }
+
+    private void flushPending() {
+        List<Lookup> batch;
+        pendingLock.lock();
+        try {
+            if (pending.isEmpty()) {
+                return;
+            }
+            batch = pending;
+            pending = new ArrayList<>();
+        } finally {
+            pendingLock.unlock();
+        }
+        queryExecutor.execute(() -> load(batch));
+    }
+
+    private void load(List<Lookup> batch) {
+        queries.incrementAndGet();
+        try {
+            // An id may appear twice when a later generation replaced a lookup still waiting here
+            List<Long> ids = batch.stream().map(Lookup::id).distinct().toList();
+            Map<Long, UserSnapshot> found = new HashMap<>();
+            for (User user : userRepository.findAllById(ids)) {
+                found.put(user.getId(), UserSnapshot.of(user));
+            }
+            for (Lookup lookup : batch) {
+                complete(lookup).complete(Optional.ofNullable(found.get(lookup.id())));
+            }
+        } catch (RuntimeException e) {
+            for (Lookup lookup : batch) {
+                complete(lookup).completeExceptionally(e);
+            }
+        }
+    }
+
+    // Removed before completion so a lookup arriving afterwards starts a fresh query instead of reusing a stale result
+    private CompletableFuture<Optional<UserSnapshot>> complete(Lookup lookup) {
+        inFlight.remove(lookup.id(), lookup);
+        return lookup.result();
+    }
+
+    private Optional<UserSnapshot> await(CompletableFuture<Optional<UserSnapshot>> lookup) {
+        try {
+            return lookup.get(timeoutMs, TimeUnit.MILLISECONDS);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw new IllegalStateException("User lookup failed", e.getCause());
+        } catch (TimeoutException e) {
+            throw new QueryTimeoutException("User lookup did not complete within " + timeoutMs + " ms");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for user lookup", e);
+        }
+    }
+
+    private record Lookup(Long id, long generation, CompletableFuture<Optional<UserSnapshot>> result) {
+    }
+}
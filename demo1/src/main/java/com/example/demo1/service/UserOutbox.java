@@ -0,0 +1,209 @@
+package com.example.demo1.service;
+
+import com.example.demo1.dto.UserChange;
+import com.example.demo1.dto.UserChangeFeed;
+import com.example.demo1.dto.UserSnapshotPage;
+import com.example.demo1.dto.UserVersion;
+import com.example.demo1.exception.CursorExpiredException;
+import com.example.userapi.UserCursor;
+import com.example.userapi.dto.UserChangeOperation;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.time.OffsetDateTime;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Transactional outbox of user changes ({@code demo.user_outbox}) and the feed that serves it.
+ * <p>
+ * Writes to {@code demo.users} add their change here in the same statement, through data-modifying CTEs in
+ * {@code UserRepository} and {@code UserBulkService}, so the feed never shows a change that was rolled back and
+ * never misses one that committed. The feed pages by writing transaction and holds
+ * back transactions newer than the oldest one still running, so a consumer that keeps the last cursor sees every
+ * change exactly once. Two changes to the same user can arrive out of commit order; {@code changeId} follows commit
+ * order per user, so a consumer applies a change only over an older one. Changes older than {@code retention-hours}
+ * are purged.
+ */
+@Service
+public class UserOutbox {
+
+    private static final Logger logger = LoggerFactory.getLogger(UserOutbox.class);
+    private static final int PURGE_BATCH_SIZE = 10_000;
+
+    // Stops at the oldest running transaction: anything it writes will sort after what is returned now
+    private static final String CHANGES_SQL = """
+            SELECT id, user_id, operation, name, email, created_at, occurred_at, txid::text AS txid
+            FROM demo.user_outbox
+            WHERE (txid, id) > (CAST(? AS xid8), ?) AND txid < pg_snapshot_xmin(pg_current_snapshot())
+            ORDER BY txid, id
+            LIMIT ?""";
+
+    private static final String SNAPSHOT_SQL = """
+            SELECT u.id, u.name, u.email, u.created_at,
+                   coalesce((SELECT max(o.id) FROM demo.user_outbox o WHERE o.user_id = u.id), 0) AS change_id
+            FROM demo.users u
+            WHERE u.id > ?
+            ORDER BY u.id
+            LIMIT ?""";
+
+    private static final String PURGE_SQL = """
+            WITH purged AS (
+                DELETE FROM demo.user_outbox WHERE id IN (
+                    SELECT id FROM demo.user_outbox
+                    WHERE occurred_at < now() - make_interval(hours => ?)
+                    ORDER BY occurred_at
+                    LIMIT ?)
+                RETURNING txid, id),
+            marked AS (
+                INSERT INTO demo.user_outbox_purge (singleton, txid, id)
+                SELECT true, txid, id FROM purged ORDER BY txid DESC, id DESC LIMIT 1
+                ON CONFLICT (singleton) DO UPDATE SET txid = EXCLUDED.txid, id = EXCLUDED.id
+                    WHERE (demo.user_outbox_purge.txid, demo.user_outbox_purge.id) < (EXCLUDED.txid, EXCLUDED.id))
+            SELECT count(*) FROM purged""";
+
+    private final JdbcTemplate jdbcTemplate;
+    private ScheduledExecutorService purger;
+
+    @Value("${demo1.users.outbox.enabled:true}")
+    private boolean enabled;
+
+    @Value("${demo1.users.outbox.max-page-size:1000}")
+    private int maxPageSize;
+
+    @Value("${demo1.users.outbox.retention-hours:168}")
+    private int retentionHours;
+
+    @Value("${demo1.users.outbox.purge-interval-ms:60000}")
+    private long purgeIntervalMs;
+
+    @Autowired
+    public UserOutbox(@Qualifier("renderJdbcTemplate") JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Changes committed after {@code cursor}, oldest first.
+     * @throws CursorExpiredException when changes after the cursor have already been purged
+     */
+    @Transactional(readOnly = true, transactionManager = "renderTransactionManager")
+    public UserChangeFeed changesAfter(String cursor, int limit) {
+        int pageSize = Math.min(limit, maxPageSize);
+        if (pageSize < 1) {
+            throw new IllegalArgumentException("Page size must not be less than one");
+        }
+        UserChangeCursor position = UserChangeCursor.decode(cursor);
+        List<UserChangeCursor> purgedThrough = jdbcTemplate.query(
+                "SELECT txid::text AS txid, id FROM demo.user_outbox_purge",
+                (resultSet, row) -> new UserChangeCursor(resultSet.getLong("txid"), resultSet.getLong("id")));
+        if (!purgedThrough.isEmpty() && position.compareTo(purgedThrough.get(0)) < 0) {
+            throw new CursorExpiredException("Changes after this cursor have been purged; "
+                    + "reload users from /api/users/changes/snapshot");
+        }
+
+        List<PositionedChange> rows = jdbcTemplate.query(CHANGES_SQL, (resultSet, row) -> new PositionedChange(
+                new UserChangeCursor(resultSet.getLong("txid"), resultSet.getLong("id")), toChange(resultSet)),
+                Long.toString(position.txid()), position.id(), pageSize + 1);
+        boolean hasMore = rows.size() > pageSize;
+        List<PositionedChange> content = hasMore ? rows.subList(0, pageSize) : rows;
+        UserChangeCursor next = content.isEmpty() ? position : content.get(content.size() - 1).position();
+        return new UserChangeFeed(content.stream().map(PositionedChange::change).toList(), next.encode(), hasMore);
+    }
+
+    /**
+     * One keyset page of all users with their latest change id, for seeding a replica.
+     */
+    @Transactional(readOnly = true, transactionManager = "renderTransactionManager")
+    public UserSnapshotPage snapshot(String cursor, int size) {
+        int pageSize = Math.min(size, maxPageSize);
+        if (pageSize < 1) {
+            throw new IllegalArgumentException("Page size must not be less than one");
+        }
+        long lastId = UserCursor.decode(cursor);
+        // Taken before the page is read: every transaction the page might miss is at or after this one
+        Long horizon = jdbcTemplate.queryForObject(
+                "SELECT pg_snapshot_xmin(pg_current_snapshot())::text::bigint", Long.class);
+
+        List<UserVersion> rows = jdbcTemplate.query(SNAPSHOT_SQL, (resultSet, row) -> new UserVersion(
+                resultSet.getLong("id"),
+                resultSet.getString("name"),
+                resultSet.getString("email"),
+                toLocalDateTime(resultSet.getTimestamp("created_at")),
+                resultSet.getLong("change_id")), lastId, pageSize + 1);
+        boolean hasMore = rows.size() > pageSize;
+        List<UserVersion> content = hasMore ? rows.subList(0, pageSize) : rows;
+        String nextCursor = hasMore ? UserCursor.encode(content.get(content.size() - 1).id()) : null;
+        return new UserSnapshotPage(content, nextCursor, hasMore, new UserChangeCursor(horizon, 0).encode());
+    }
+
+    public void startPurging() {
+        if (!enabled || purger != null) {
+            return;
+        }
+        purger = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "user-outbox-purge");
+            thread.setDaemon(true);
+            return thread;
+        });
+        purger.scheduleWithFixedDelay(this::purge, purgeIntervalMs, purgeIntervalMs, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (purger != null) {
+            purger.shutdownNow();
+        }
+    }
+
+    void purge() {
+        try {
+            long total = 0;
+            long purged;
+            do {
+                purged = jdbcTemplate.queryForObject(PURGE_SQL, Long.class, retentionHours, PURGE_BATCH_SIZE);
+                total += purged;
+            } while (purged == PURGE_BATCH_SIZE);
+            if (total > 0) {
+                logger.info("Purged {} user changes older than {} hours", total, retentionHours);
+            }
+        } catch (DataAccessException e) {
+            logger.warn("Could not purge the user outbox: {}", e.getMostSpecificCause().getMessage());
+        }
+    }
+
+    private static UserChange toChange(ResultSet resultSet) throws SQLException {
+        return new UserChange(
+                resultSet.getLong("id"),
+                UserChangeOperation.fromColumn(resultSet.getString("operation")),
+                resultSet.getLong("user_id"),
+                resultSet.getString("name"),
+                resultSet.getString("email"),
+                toLocalDateTime(resultSet.getTimestamp("created_at")),
+                resultSet.getObject("occurred_at", OffsetDateTime.class).toInstant());
+    }
+
+    private static LocalDateTime toLocalDateTime(Timestamp timestamp) {
+        return timestamp != null ? timestamp.toLocalDateTime() : null;
+    }
+
+    private record PositionedChange(UserChangeCursor position, UserChange change) {
+    }
+}
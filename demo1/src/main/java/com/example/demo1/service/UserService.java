@@ -1,10 +1,20 @@
 package com.example.demo1.service;
 
+import com.example.demo1.dto.UserSummary;
 import com.example.demo1.entity.User;
-import com.example.demo1.repository.UserRepository;
 import com.example.demo1.exception.ConflictException;
 import com.example.demo1.exception.ResourceNotFoundException;
+import com.example.demo1.repository.UserRepository;
+import com.example.userapi.TotalCountMode;
+import com.example.userapi.UserCursor;
+import com.example.userapi.dto.CursorPage;
+import com.example.userapi.dto.UserBatchEntry;
+import com.example.userapi.dto.UserBatchResult;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.NestedExceptionUtils;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
@@ -12,18 +22,47 @@ import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.sql.SQLException;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 @Service
 public class UserService {
 
     private final UserRepository userRepository;
+    private final UserCache userCache;
+    private final UserLookupBatcher userLookupBatcher;
+    private final UserOutbox userOutbox;
     private static final int DEFAULT_PAGE_SIZE = 1000;
+    private static final String UNIQUE_VIOLATION = "23505";
+
+    @Value("${demo1.users.count-cache-ttl-ms:30000}")
+    private long countCacheTtlMs;
+
+    @Value("${demo1.users.batch.max-ids:1000}")
+    private int maxBatchIds;
+
+    @Value("${demo1.users.search.max-page-size:100}")
+    private int maxSearchPageSize;
+
+    // Shorter substrings have no complete trigram, so the index cannot narrow them down
+    @Value("${demo1.users.search.min-contains-length:3}")
+    private int minContainsLength;
+
+    private volatile CachedCount cachedCount;
 
     @Autowired
-    public UserService(UserRepository userRepository) {
+    public UserService(UserRepository userRepository, UserCache userCache, UserLookupBatcher userLookupBatcher,
+                       UserOutbox userOutbox) {
         this.userRepository = userRepository;
+        this.userCache = userCache;
+        this.userLookupBatcher = userLookupBatcher;
+        this.userOutbox = userOutbox;
     }
 
     @Transactional(readOnly = true, transactionManager = "renderTransactionManager")
@@ -38,62 +77,206 @@ public class UserService {
     }
 
     @Transactional(readOnly = true, transactionManager = "renderTransactionManager")
+    public CursorPage<User> getUsersAfter(String cursor, int size, TotalCountMode totalMode) {
+        int pageSize = Math.min(size, DEFAULT_PAGE_SIZE);
+        if (pageSize < 1) {
+            throw new IllegalArgumentException("Page size must not be less than one");
+        }
+        long lastId = UserCursor.decode(cursor);
+
+        // Fetch one extra row to learn whether another page exists without a COUNT query
+        List<User> rows = userRepository.findByIdGreaterThanOrderByIdAsc(lastId, Limit.of(pageSize + 1));
+        boolean hasNext = rows.size() > pageSize;
+        List<User> content = hasNext ? rows.subList(0, pageSize) : rows;
+        String nextCursor = hasNext ? UserCursor.encode(content.get(content.size() - 1).getId()) : null;
+
+        Long totalItems = null;
+        boolean totalEstimated = false;
+        if (totalMode == TotalCountMode.ESTIMATE) {
+            Long estimate = userRepository.estimateCount();
+            // reltuples is -1 until the table has been analyzed at least once
+            if (estimate != null && estimate >= 0) {
+                totalItems = estimate;
+                totalEstimated = true;
+            } else {
+                totalItems = getCachedTotalUsers();
+            }
+        } else if (totalMode == TotalCountMode.CACHED) {
+            totalItems = getCachedTotalUsers();
+        }
+
+        return new CursorPage<>(content, pageSize, hasNext, nextCursor, totalItems, totalEstimated);
+    }
+
+    /**
+     * Keyset page of users whose name or email matches {@code term}. Page sizes above the configured maximum are
+     * capped, and substring terms too short for the trigram index are rejected rather than scanned.
+     */
+    @Transactional(readOnly = true, transactionManager = "renderTransactionManager")
+    public CursorPage<UserSummary> searchUsers(String term, SearchMatch match, String cursor, int size) {
+        String trimmed = term == null ? "" : term.strip();
+        if (trimmed.isEmpty()) {
+            throw new IllegalArgumentException("Search term must not be empty");
+        }
+        if (match == SearchMatch.CONTAINS && trimmed.length() < minContainsLength) {
+            throw new IllegalArgumentException("Substring search needs at least " + minContainsLength
+                    + " characters; use match=prefix for shorter terms");
+        }
+        int pageSize = Math.min(size, maxSearchPageSize);
+        if (pageSize < 1) {
+            throw new IllegalArgumentException("Page size must not be less than one");
+        }
+        long lastId = UserCursor.decode(cursor);
+
+        userRepository.forceCustomPlans();
+        List<UserSummary> rows = userRepository.searchAfter(match.toLikePattern(trimmed), lastId,
+                Limit.of(pageSize + 1));
+        boolean hasNext = rows.size() > pageSize;
+        List<UserSummary> content = hasNext ? rows.subList(0, pageSize) : rows;
+        String nextCursor = hasNext ? UserCursor.encode(content.get(content.size() - 1).id()) : null;
+        return new CursorPage<>(content, pageSize, hasNext, nextCursor, null, false);
+    }
+
+    // Not transactional: a cache hit must not borrow a pooled connection,
+    // and concurrent misses are coalesced and batched into shared queries by the lookup batcher
     public User getUserById(Long id) {
-        Optional<User> user = userRepository.findById(id);
+        Optional<User> cached = userCache.getById(id);
+        if (cached.isPresent()) {
+            return cached.get();
+        }
+
+        // Read before the lookup, so a write that commits meanwhile keeps its result out of the cache
+        long generation = userCache.generation(id);
+        Optional<User> user = userLookupBatcher.findById(id, generation);
         if (user.isPresent()) {
+            userCache.put(user.get(), generation);
             return user.get();
         } else {
             throw new ResourceNotFoundException("User not found with ID: " + id);
         }
     }
 
+    /**
+     * Looks up many users at once: cached users are served from memory and the rest with a single
+     * {@code WHERE id IN (...)} query. Entries follow the request order, duplicates included.
+     */
+    // Not transactional for the same reason as getUserById; findAllById runs in its own read-only transaction
+    public UserBatchResult getUsersByIds(List<Long> ids) {
+        if (ids == null || ids.isEmpty()) {
+            throw new IllegalArgumentException("At least one id is required");
+        }
+        if (ids.size() > maxBatchIds) {
+            throw new IllegalArgumentException("At most " + maxBatchIds + " ids may be requested at once");
+        }
+
+        Map<Long, User> found = new HashMap<>();
+        Map<Long, Long> toLoad = new LinkedHashMap<>();
+        for (Long id : ids) {
+            if (id == null) {
+                throw new IllegalArgumentException("Ids must not be null");
+            }
+            if (!found.containsKey(id) && !toLoad.containsKey(id)) {
+                userCache.getById(id).ifPresentOrElse(user -> found.put(id, user),
+                        () -> toLoad.put(id, userCache.generation(id)));
+            }
+        }
+        if (!toLoad.isEmpty()) {
+            for (User user : userRepository.findAllById(toLoad.keySet())) {
+                userCache.put(user, toLoad.get(user.getId()));
+                found.put(user.getId(), user);
+            }
+        }
+
+        List<UserBatchEntry> entries = new ArrayList<>(ids.size());
+        List<Long> missingIds = new ArrayList<>();
+        for (Long id : ids) {
+            User user = found.get(id);
+            if (user != null) {
+                entries.add(UserBatchEntry.found(user));
+            } else {
+                entries.add(UserBatchEntry.notFound(id));
+                missingIds.add(id);
+            }
+        }
+        return new UserBatchResult(ids.size(), ids.size() - missingIds.size(), missingIds, entries);
+    }
+
     @Transactional(transactionManager = "renderTransactionManager")
     public User createUser(User user) {
         // Set creation timestamp if not already set
         if (user.getCreatedAt() == null) {
             user.setCreatedAt(LocalDateTime.now());
         }
-        
-        // Check if email already exists
-        if (userRepository.findByEmail(user.getEmail()).isPresent()) {
-            throw new ConflictException("User with email " + user.getEmail() + " already exists");
+        // Always an INSERT; an id in the request body would otherwise turn save into select-then-merge
+        user.setId(null);
+
+        // One INSERT, with the outbox row folded in; the unique email constraint replaces a check-then-act lookup
+        User savedUser;
+        try {
+            savedUser = userOutbox.isEnabled()
+                    ? userRepository.insertRecordingChange(user.getName(), user.getEmail(), user.getCreatedAt())
+                    : userRepository.saveAndFlush(user);
+        } catch (DataIntegrityViolationException e) {
+            throw translateUniqueViolation(e, user.getEmail());
         }
-        
-        return userRepository.save(user);
+        userCache.putAfterCommit(savedUser);
+        return savedUser;
     }
 
     @Transactional(transactionManager = "renderTransactionManager")
     public User updateUser(User user) {
-        // Check if user exists
-        if (!userRepository.existsById(user.getId())) {
-            throw new ResourceNotFoundException("User not found with ID: " + user.getId());
+        // One UPDATE ... RETURNING; zero rows means the user does not exist
+        Optional<User> updated;
+        try {
+            updated = userOutbox.isEnabled()
+                    ? userRepository.updateReturningRecordingChange(user.getId(), user.getName(), user.getEmail())
+                    : userRepository.updateReturning(user.getId(), user.getName(), user.getEmail());
+        } catch (DataIntegrityViolationException e) {
+            throw translateUniqueViolation(e, user.getEmail());
         }
-        
-        // Check if email is being changed and if it already exists
-        Optional<User> existingUser = userRepository.findById(user.getId());
-        if (existingUser.isPresent()) {
-            User currentUser = existingUser.get();
-            if (!currentUser.getEmail().equals(user.getEmail())) {
-                // Email is being changed, check if new email already exists
-                if (userRepository.findByEmail(user.getEmail()).isPresent()) {
-                    throw new ConflictException("User with email " + user.getEmail() + " already exists");
-                }
-            }
+        if (updated.isEmpty()) {
+            throw new ResourceNotFoundException("User not found with ID: " + user.getId());
         }
-        
-        return userRepository.save(user);
+        // Evicting the id also drops the cached entry for the previous email
+        userCache.evict(user.getId(), user.getEmail());
+        return updated.get();
     }
 
     @Transactional(transactionManager = "renderTransactionManager")
     public void deleteUser(Long id) {
-        if (!userRepository.existsById(id)) {
+        // One DELETE ... RETURNING; zero rows means the user does not exist
+        Optional<String> deletedEmail = userOutbox.isEnabled()
+                ? userRepository.deleteReturningEmailRecordingChange(id)
+                : userRepository.deleteReturningEmail(id);
+        if (deletedEmail.isEmpty()) {
             throw new ResourceNotFoundException("User not found with ID: " + id);
         }
-        userRepository.deleteById(id);
+        userCache.evict(id, deletedEmail.get());
     }
 
     @Transactional(readOnly = true, transactionManager = "renderTransactionManager")
     public long getTotalUsers() {
         return userRepository.count();
     }
+
+    private static RuntimeException translateUniqueViolation(DataIntegrityViolationException e, String email) {
+        Throwable cause = NestedExceptionUtils.getMostSpecificCause(e);
+        if (cause instanceof SQLException sqlException && UNIQUE_VIOLATION.equals(sqlException.getSQLState())) {
+            return new ConflictException("User with email " + email + " already exists");
+        }
+        return e;
+    }
+
+    private long getCachedTotalUsers() {
+        CachedCount current = cachedCount;
+        long now = System.currentTimeMillis();
+        if (current == null || now - current.loadedAt() > countCacheTtlMs) {
+            current = new CachedCount(userRepository.count(), now);
+            cachedCount = current;
+        }
+        return current.value();
+    }
+
+    private record CachedCount(long value, long loadedAt) {
+    }
 } 
\ No newline at end of file
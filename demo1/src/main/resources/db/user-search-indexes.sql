@@ -0,0 +1,6 @@
+-- Indexes behind GET /api/users/search. Trigram GIN indexes serve case-insensitive LIKE patterns with a leading
+-- wildcard ('%term%') as well as prefixes ('term%'); a B-tree can only do the latter.
+-- Idempotent, and built CONCURRENTLY so writes to demo.users are not blocked while they build.
+CREATE EXTENSION IF NOT EXISTS pg_trgm;
+CREATE INDEX CONCURRENTLY IF NOT EXISTS users_name_trgm_idx ON demo.users USING gin (name gin_trgm_ops);
+CREATE INDEX CONCURRENTLY IF NOT EXISTS users_email_trgm_idx ON demo.users USING gin (email gin_trgm_ops);
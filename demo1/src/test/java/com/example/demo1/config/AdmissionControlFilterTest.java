@@ -0,0 +1,87 @@
+package com.example.demo1.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import jakarta.servlet.FilterChain;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class AdmissionControlFilterTest {
+
+    private static final long MS = TimeUnit.MILLISECONDS.toNanos(1);
+
+    @Test
+    void limitGrowsWhileLatencyHoldsAndShrinksWhenItRises() {
+        // Every sample closes a window
+        GradientConcurrencyLimit limit = new GradientConcurrencyLimit(20, 5, 200, 1.5, 0.2, 0.9, 0, 1);
+        long now = 0;
+
+        for (int i = 0; i < 20; i++) {
+            limit.onSample(now += MS, 10 * MS, limit.limit(), false);
+        }
+        int grown = limit.limit();
+        assertTrue(grown > 20, "limit should grow at steady latency, was " + grown);
+
+        for (int i = 0; i < 20; i++) {
+            limit.onSample(now += MS, 100 * MS, limit.limit(), false);
+        }
+        assertTrue(limit.limit() < grown / 2, "limit should shrink as latency rises, was " + limit.limit());
+    }
+
+    @Test
+    void requestsOverTheLimitAreShedWith503AndRetryAfter() throws Exception {
+        AdmissionControlFilter filter = filter(2);
+        MockHttpServletResponse nestedRead = new MockHttpServletResponse();
+        MockHttpServletResponse nestedWrite = new MockHttpServletResponse();
+
+        // The outer read holds its slot while the nested requests arrive
+        filter.doFilter(request("GET"), new MockHttpServletResponse(), (request, response) -> {
+            filter.doFilter(request("GET"), nestedRead, ok());
+            filter.doFilter(request("POST"), nestedWrite, ok());
+        });
+
+        // Reads may use half of 2, writes all of it
+        assertEquals(503, nestedRead.getStatus());
+        assertEquals("1", nestedRead.getHeader(HttpHeaders.RETRY_AFTER));
+        assertTrue(nestedRead.getContentAsString().contains("Too many concurrent requests"));
+        assertEquals(200, nestedWrite.getStatus());
+    }
+
+    @Test
+    void serverErrorsBackTheLimitOffUntilWritesAreShedToo() throws Exception {
+        AdmissionControlFilter filter = filter(4);
+        for (int i = 0; i < 3; i++) {
+            filter.doFilter(request("POST"), new MockHttpServletResponse(),
+                    (request, response) -> ((MockHttpServletResponse) response).setStatus(500));
+        }
+
+        // 4 halved three times is clamped to the minimum of 1: a second concurrent write no longer fits
+        MockHttpServletResponse nestedWrite = new MockHttpServletResponse();
+        filter.doFilter(request("POST"), new MockHttpServletResponse(),
+                (request, response) -> filter.doFilter(request("POST"), nestedWrite, ok()));
+
+        assertEquals(503, nestedWrite.getStatus());
+        assertEquals("1", nestedWrite.getHeader(HttpHeaders.RETRY_AFTER));
+    }
+
+    private static AdmissionControlFilter filter(int initialLimit) {
+        // One-sample windows and a 0.5 backoff make each request visible in the limit
+        return new AdmissionControlFilter(new ObjectMapper().registerModule(new JavaTimeModule()), true,
+                initialLimit, 1, 200, 0.5, 1.5, 0.2, 0.5, 0, 1, 1);
+    }
+
+    private static MockHttpServletRequest request(String method) {
+        return new MockHttpServletRequest(method, "/api/users");
+    }
+
+    private static FilterChain ok() {
+        return (request, response) -> ((MockHttpServletResponse) response).setStatus(200);
+    }
+}
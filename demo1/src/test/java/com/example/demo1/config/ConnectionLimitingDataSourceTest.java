@@ -0,0 +1,87 @@
+package com.example.demo1.config;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLTransientConnectionException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.mockito.Mockito.withSettings;
+
+class ConnectionLimitingDataSourceTest {
+
+    private final DataSource pool = mock(DataSource.class, withSettings().extraInterfaces(AutoCloseable.class));
+
+    @BeforeEach
+    void setUp() throws Exception {
+        when(pool.getConnection()).thenAnswer(invocation -> mock(Connection.class));
+    }
+
+    @Test
+    void callerOverTheLimitWaitsUntilAConnectionIsClosed() throws Exception {
+        ConnectionLimitingDataSource dataSource = new ConnectionLimitingDataSource(pool, 1, 5000);
+        Connection held = dataSource.getConnection();
+
+        CompletableFuture<Connection> waiting = CompletableFuture.supplyAsync(() -> {
+            try {
+                return dataSource.getConnection();
+            } catch (SQLException e) {
+                throw new IllegalStateException(e);
+            }
+        });
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (dataSource.getQueueLength() == 0 && System.nanoTime() < deadline) {
+            Thread.sleep(5);
+        }
+        assertEquals(1, dataSource.getQueueLength());
+        assertFalse(waiting.isDone());
+
+        held.close();
+        Connection next = waiting.get(5, TimeUnit.SECONDS);
+        assertNotNull(next);
+        assertEquals(0, dataSource.getAvailablePermits());
+
+        next.close();
+        // A second close does not hand out a second permit
+        next.close();
+        assertEquals(1, dataSource.getAvailablePermits());
+    }
+
+    @Test
+    void callerThatWaitsPastTheTimeoutGetsATransientError() throws Exception {
+        ConnectionLimitingDataSource dataSource = new ConnectionLimitingDataSource(pool, 1, 20);
+        Connection held = dataSource.getConnection();
+
+        assertThrows(SQLTransientConnectionException.class, dataSource::getConnection);
+
+        held.close();
+        assertEquals(1, dataSource.getAvailablePermits());
+    }
+
+    @Test
+    void permitIsReturnedWhenThePoolFails() throws Exception {
+        when(pool.getConnection()).thenThrow(new SQLException("Connection refused"));
+        ConnectionLimitingDataSource dataSource = new ConnectionLimitingDataSource(pool, 1, 20);
+
+        assertThrows(SQLException.class, dataSource::getConnection);
+        assertEquals(1, dataSource.getAvailablePermits());
+    }
+
+    @Test
+    void closingTheLimiterClosesThePool() throws Exception {
+        new ConnectionLimitingDataSource(pool, 1, 20).close();
+
+        verify((AutoCloseable) pool).close();
+    }
+}
@@ -0,0 +1,109 @@
+package com.example.demo1.config;
+
+import jakarta.servlet.http.Cookie;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class ReplicaRoutingDataSourceTest {
+
+    private final DataSource primary = mock(DataSource.class);
+    private final DataSource replica = mock(DataSource.class);
+    private final Connection primaryConnection = mock(Connection.class);
+    private final Connection replicaConnection = mock(Connection.class);
+
+    private ReplicaRoutingDataSource routingDataSource;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        when(primary.getConnection()).thenReturn(primaryConnection);
+        when(replica.getConnection()).thenReturn(replicaConnection);
+        ReplicaHealthMonitor healthMonitor = mock(ReplicaHealthMonitor.class);
+        when(healthMonitor.isUsable()).thenReturn(true);
+        routingDataSource = new ReplicaRoutingDataSource(primary, replica, healthMonitor, 5000);
+        TransactionSynchronizationManager.setActualTransactionActive(true);
+    }
+
+    @AfterEach
+    void tearDown() {
+        TransactionSynchronizationManager.clear();
+        RequestContextHolder.resetRequestAttributes();
+    }
+
+    @Test
+    void writeKeepsOnlyTheWritingClientOnThePrimary() throws Exception {
+        MockHttpServletResponse writeResponse = new MockHttpServletResponse();
+        inRequest(new MockHttpServletRequest(), writeResponse);
+        assertSame(primaryConnection, connection(false));
+        String setCookie = writeResponse.getHeader(HttpHeaders.SET_COOKIE);
+        assertNotNull(setCookie);
+        assertTrue(setCookie.startsWith(ReplicaRoutingDataSource.LAST_WRITE_COOKIE + "="));
+
+        // The writer's next request carries the cookie back
+        MockHttpServletRequest writerRead = new MockHttpServletRequest();
+        writerRead.setCookies(writeResponse.getCookie(ReplicaRoutingDataSource.LAST_WRITE_COOKIE));
+        inRequest(writerRead, new MockHttpServletResponse());
+        assertSame(primaryConnection, connection(true));
+
+        inRequest(new MockHttpServletRequest(), new MockHttpServletResponse());
+        assertSame(replicaConnection, connection(true));
+    }
+
+    @Test
+    void readsInTheWritingRequestStayOnThePrimary() throws Exception {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        inRequest(new MockHttpServletRequest(), response);
+
+        assertSame(primaryConnection, connection(false));
+        assertSame(primaryConnection, connection(true));
+        assertSame(primaryConnection, connection(false));
+        // One cookie per response, however many writes it made
+        assertEquals(1, response.getHeaders(HttpHeaders.SET_COOKIE).size());
+    }
+
+    @Test
+    void expiredWriteCookieReadsFromTheReplica() throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        request.setCookies(new Cookie(ReplicaRoutingDataSource.LAST_WRITE_COOKIE,
+                Long.toString(System.currentTimeMillis() - 6000)));
+        inRequest(request, new MockHttpServletResponse());
+
+        assertSame(replicaConnection, connection(true));
+    }
+
+    @Test
+    void writeOutsideARequestDoesNotPinReads() throws Exception {
+        assertSame(primaryConnection, connection(false));
+
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        inRequest(new MockHttpServletRequest(), response);
+        assertSame(replicaConnection, connection(true));
+        assertNull(response.getHeader(HttpHeaders.SET_COOKIE));
+    }
+
+    private Connection connection(boolean readOnly) throws Exception {
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(readOnly);
+        return routingDataSource.getConnection();
+    }
+
+    private static void inRequest(MockHttpServletRequest request, MockHttpServletResponse response) {
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(request, response));
+    }
+}
@@ -0,0 +1,63 @@
+package com.example.demo1.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.Mockito.verifyNoInteractions;
+
+@ExtendWith(MockitoExtension.class)
+class UserBulkServiceTest {
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    @Mock
+    private UserOutbox userOutbox;
+
+    private UserBulkService bulkService;
+
+    @BeforeEach
+    void setUp() {
+        bulkService = new UserBulkService(jdbcTemplate, new ObjectMapper().registerModule(new JavaTimeModule()),
+                new UserCache(true, 100, 60, 5000), userOutbox);
+        ReflectionTestUtils.setField(bulkService, "batchSize", 1);
+        ReflectionTestUtils.setField(bulkService, "maxRows", 3);
+    }
+
+    @Test
+    void malformedRowAfterFullBatchesWritesNothing() {
+        InputStream body = ndjson("{\"name\":\"A\",\"email\":\"a@x.com\"}",
+                "{\"name\":\"B\",\"email\":\"b@x.com\"}",
+                "{\"name\":");
+
+        assertThrows(IllegalArgumentException.class, () -> bulkService.importUsers(body, BulkConflictMode.SKIP));
+        verifyNoInteractions(jdbcTemplate);
+    }
+
+    @Test
+    void payloadOverMaxRowsWritesNothing() {
+        InputStream body = ndjson("{\"name\":\"A\",\"email\":\"a@x.com\"}",
+                "{\"name\":\"B\",\"email\":\"b@x.com\"}",
+                "{\"name\":\"C\",\"email\":\"c@x.com\"}",
+                "{\"name\":\"D\",\"email\":\"d@x.com\"}");
+
+        assertThrows(IllegalArgumentException.class, () -> bulkService.importUsers(body, BulkConflictMode.SKIP));
+        verifyNoInteractions(jdbcTemplate);
+    }
+
+    private static InputStream ndjson(String... lines) {
+        return new ByteArrayInputStream(String.join("\n", lines).getBytes(StandardCharsets.UTF_8));
+    }
+}
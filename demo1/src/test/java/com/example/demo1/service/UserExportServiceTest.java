@@ -0,0 +1,139 @@
+package com.example.demo1.service;
+
+import com.example.userapi.ExportFormat;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import io.zonky.test.db.postgres.embedded.EmbeddedPostgres;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Streams the users table from PostgreSQL and checks the bytes a client receives.
+ */
+class UserExportServiceTest {
+
+    // Stopped by its own shutdown hook when the test JVM exits
+    private static final EmbeddedPostgres postgres = startPostgres();
+
+    private final JdbcTemplate jdbcTemplate = new JdbcTemplate(postgres.getPostgresDatabase());
+    private final ObjectMapper objectMapper = new ObjectMapper().registerModule(new JavaTimeModule());
+    private UserExportService exportService;
+
+    @BeforeEach
+    void setUp() {
+        jdbcTemplate.execute("TRUNCATE demo.users RESTART IDENTITY");
+        exportService = new UserExportService(jdbcTemplate, objectMapper);
+        // Several cursor fetches and flushes even for a handful of rows
+        ReflectionTestUtils.setField(exportService, "fetchSize", 2);
+        ReflectionTestUtils.setField(exportService, "flushEvery", 2);
+    }
+
+    @Test
+    void csvQuotesOnlyFieldsThatNeedIt() throws IOException {
+        insert(1, "Plain", "plain@x.com", "2024-01-02 03:04:05");
+        insert(2, "Doe, \"JD\"", "jd@x.com", null);
+        insert(3, "Two\nLines", "two@x.com", "2024-12-31 23:59:59");
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        assertEquals(3, exportService.export(ExportFormat.CSV, out));
+
+        assertEquals("""
+                id,name,email,createdAt
+                1,Plain,plain@x.com,2024-01-02 03:04:05
+                2,"Doe, ""JD\"\"",jd@x.com,
+                3,"Two
+                Lines",two@x.com,2024-12-31 23:59:59
+                """, out.toString(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void ndjsonWritesOneCompactObjectPerLineInIdOrder() throws IOException {
+        for (int id = 5; id >= 1; id--) {
+            insert(id, "User " + id, "user" + id + "@x.com", "2024-01-0" + id + " 00:00:00");
+        }
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        assertEquals(5, exportService.export(ExportFormat.NDJSON, out));
+
+        String body = out.toString(StandardCharsets.UTF_8);
+        assertTrue(body.endsWith("}\n"), body);
+        String[] lines = body.split("\n");
+        assertEquals(5, lines.length);
+        List<Long> ids = new ArrayList<>();
+        for (String line : lines) {
+            JsonNode user = objectMapper.readTree(line);
+            ids.add(user.get("id").asLong());
+            assertEquals("User " + user.get("id").asLong(), user.get("name").asText());
+        }
+        assertEquals(List.of(1L, 2L, 3L, 4L, 5L), ids);
+        assertEquals("2024-01-01 00:00:00", objectMapper.readTree(lines[0]).get("createdAt").asText());
+    }
+
+    @Test
+    void emptyTableGivesAnEmptyNdjsonBodyAndACsvHeader() throws IOException {
+        ByteArrayOutputStream ndjson = new ByteArrayOutputStream();
+        assertEquals(0, exportService.export(ExportFormat.NDJSON, ndjson));
+        assertEquals("", ndjson.toString(StandardCharsets.UTF_8));
+
+        ByteArrayOutputStream csv = new ByteArrayOutputStream();
+        assertEquals(0, exportService.export(ExportFormat.CSV, csv));
+        assertEquals("id,name,email,createdAt\n", csv.toString(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void clientDisconnectEndsTheExportWithoutAnError() throws IOException {
+        for (int id = 1; id <= 10; id++) {
+            insert(id, "User " + id, "user" + id + "@x.com", null);
+        }
+
+        // Fails at the second flush, as a closed socket would
+        OutputStream disconnecting = new OutputStream() {
+            private int flushes;
+
+            @Override
+            public void write(int b) {
+            }
+
+            @Override
+            public void flush() throws IOException {
+                if (++flushes == 2) {
+                    throw new IOException("Broken pipe");
+                }
+            }
+        };
+
+        assertEquals(4, exportService.export(ExportFormat.NDJSON, disconnecting));
+        // The cursor's transaction was rolled back and the connection can be used again
+        assertEquals(10, jdbcTemplate.queryForObject("SELECT count(*) FROM demo.users", Integer.class));
+    }
+
+    private void insert(long id, String name, String email, String createdAt) {
+        jdbcTemplate.update("INSERT INTO demo.users (id, name, email, created_at) VALUES (?, ?, ?, ?::timestamp)",
+                id, name, email, createdAt);
+    }
+
+    private static EmbeddedPostgres startPostgres() {
+        try {
+            EmbeddedPostgres postgres = EmbeddedPostgres.builder().start();
+            new JdbcTemplate(postgres.getPostgresDatabase()).execute("CREATE SCHEMA demo; CREATE TABLE demo.users ("
+                    + "id bigserial PRIMARY KEY, name varchar(255), email varchar(255) UNIQUE, created_at timestamp)");
+            return postgres;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
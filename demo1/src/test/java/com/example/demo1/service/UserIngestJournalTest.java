@@ -0,0 +1,57 @@
+package com.example.demo1.service;
+
+import com.example.demo1.entity.User;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class UserIngestJournalTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper().registerModule(new JavaTimeModule());
+
+    @TempDir
+    Path journalDir;
+
+    @Test
+    void oneSyncCoversEveryEntryAppendedBeforeIt() throws Exception {
+        try (UserIngestJournal journal = new UserIngestJournal(journalDir, true, 1L << 20, objectMapper)) {
+            UserIngestJournal.Entry first = append(journal, "a@x.com");
+            UserIngestJournal.Entry second = append(journal, "b@x.com");
+            UserIngestJournal.Entry third = append(journal, "c@x.com");
+
+            journal.sync(third.seq());
+            journal.sync(first.seq());
+            journal.sync(second.seq());
+            assertEquals(1, journal.syncs());
+
+            journal.sync(append(journal, "d@x.com").seq());
+            assertEquals(2, journal.syncs());
+        }
+    }
+
+    @Test
+    void uncheckpointedEntriesAreRecoveredInOrder() throws Exception {
+        try (UserIngestJournal journal = new UserIngestJournal(journalDir, true, 1L << 20, objectMapper)) {
+            UserIngestJournal.Entry first = append(journal, "a@x.com");
+            append(journal, "b@x.com");
+            journal.sync(append(journal, "c@x.com").seq());
+            journal.checkpoint(first.seq());
+        }
+
+        try (UserIngestJournal reopened = new UserIngestJournal(journalDir, true, 1L << 20, objectMapper)) {
+            assertEquals(List.of("b@x.com", "c@x.com"),
+                    reopened.recovered().stream().map(UserIngestJournal.Entry::email).toList());
+        }
+    }
+
+    private static UserIngestJournal.Entry append(UserIngestJournal journal, String email) throws Exception {
+        return journal.append(email, new User("User", email), LocalDateTime.now());
+    }
+}
@@ -0,0 +1,171 @@
+package com.example.demo1.service;
+
+import com.example.demo1.dto.BulkOutcome;
+import com.example.demo1.dto.BulkRowResult;
+import com.example.demo1.dto.IngestState;
+import com.example.demo1.dto.IngestStatus;
+import com.example.demo1.entity.User;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.ArgumentCaptor;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.CannotGetJdbcConnectionException;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.atLeast;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class UserIngestQueueTest {
+
+    @TempDir
+    Path journalDir;
+
+    private final List<UserIngestQueue> queues = new ArrayList<>();
+
+    @AfterEach
+    void tearDown() throws Exception {
+        for (UserIngestQueue queue : queues) {
+            queue.stop();
+        }
+    }
+
+    @Test
+    void unavailableDatabaseIsWaitedOutPastMaxAttempts() throws Exception {
+        UserBulkService bulkService = mock(UserBulkService.class);
+        when(bulkService.insertBatch(anyList()))
+                .thenThrow(unavailable(), unavailable(), unavailable())
+                .thenReturn(List.of(created(7L)));
+        UserIngestQueue queue = start(bulkService);
+
+        IngestStatus status = queue.submit(new User("A", "a@x.com"));
+
+        await(() -> queue.depth() == 0);
+        assertEquals(IngestState.CREATED, queue.status(status.trackingId()).orElseThrow().state());
+        assertEquals(7L, queue.status(status.trackingId()).orElseThrow().id());
+        verify(bulkService, times(4)).insertBatch(anyList());
+    }
+
+    @Test
+    void usersNotWrittenBeforeShutdownAreWrittenAfterRestart() throws Exception {
+        UserBulkService unavailableBulkService = mock(UserBulkService.class);
+        when(unavailableBulkService.insertBatch(anyList())).thenThrow(unavailable());
+        UserIngestQueue first = start(unavailableBulkService);
+        first.submit(new User("A", "a@x.com"));
+        await(() -> {
+            verify(unavailableBulkService, atLeast(3)).insertBatch(anyList());
+            return true;
+        });
+        first.stop();
+        queues.remove(first);
+
+        UserBulkService bulkService = mock(UserBulkService.class);
+        when(bulkService.insertBatch(anyList())).thenReturn(List.of(created(1L)));
+        UserIngestQueue second = start(bulkService);
+
+        await(() -> second.depth() == 0);
+        ArgumentCaptor<List<User>> replayed = ArgumentCaptor.captor();
+        verify(bulkService).insertBatch(replayed.capture());
+        assertEquals("a@x.com", replayed.getValue().get(0).getEmail());
+    }
+
+    @Test
+    void batchRejectedForItsOwnReasonFailsAfterMaxAttempts() throws Exception {
+        UserBulkService bulkService = mock(UserBulkService.class);
+        when(bulkService.insertBatch(anyList())).thenThrow(new IllegalStateException("value too long"));
+        UserIngestQueue queue = start(bulkService);
+
+        IngestStatus status = queue.submit(new User("A", "a@x.com"));
+
+        await(() -> queue.depth() == 0);
+        assertEquals(IngestState.FAILED, queue.status(status.trackingId()).orElseThrow().state());
+        verify(bulkService, times(2)).insertBatch(anyList());
+    }
+
+    @Test
+    void rowRejectedForItsOwnReasonFailsAloneAndTheRestOfItsBatchIsWritten() throws Exception {
+        UserBulkService bulkService = mock(UserBulkService.class);
+        when(bulkService.insertBatch(anyList())).thenAnswer(invocation -> {
+            List<User> users = invocation.getArgument(0);
+            List<BulkRowResult> results = new ArrayList<>();
+            for (User user : users) {
+                if (user.getName().contains("\u0000")) {
+                    throw new DataIntegrityViolationException("invalid byte sequence for encoding \"UTF8\": 0x00");
+                }
+                results.add(new BulkRowResult(results.size(), user.getEmail(), 1L, BulkOutcome.CREATED, null));
+            }
+            return results;
+        });
+        UserIngestQueue queue = start(bulkService);
+        // One batch for all five
+        ReflectionTestUtils.setField(queue, "lingerMs", 500L);
+
+        List<IngestStatus> statuses = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            statuses.add(queue.submit(new User(i == 3 ? "Bad\u0000" : "User " + i, "user" + i + "@x.com")));
+        }
+
+        await(() -> queue.depth() == 0);
+        List<IngestState> states = statuses.stream()
+                .map(status -> queue.status(status.trackingId()).orElseThrow().state())
+                .toList();
+        assertEquals(List.of(IngestState.CREATED, IngestState.CREATED, IngestState.CREATED, IngestState.FAILED,
+                IngestState.CREATED), states);
+    }
+
+    private UserIngestQueue start(UserBulkService bulkService) throws Exception {
+        UserIngestQueue queue = new UserIngestQueue(bulkService, new ObjectMapper().registerModule(new JavaTimeModule()));
+        ReflectionTestUtils.setField(queue, "enabled", true);
+        ReflectionTestUtils.setField(queue, "capacity", 100);
+        ReflectionTestUtils.setField(queue, "batchSize", 10);
+        ReflectionTestUtils.setField(queue, "lingerMs", 1L);
+        ReflectionTestUtils.setField(queue, "maxAttempts", 2);
+        ReflectionTestUtils.setField(queue, "retryBackoffMs", 1L);
+        ReflectionTestUtils.setField(queue, "statusTtlMinutes", 60L);
+        ReflectionTestUtils.setField(queue, "journalDir", journalDir.toString());
+        ReflectionTestUtils.setField(queue, "syncJournal", false);
+        ReflectionTestUtils.setField(queue, "compactBytes", 1L << 20);
+        ReflectionTestUtils.setField(queue, "shutdownTimeoutMs", 1000L);
+        queue.start();
+        queues.add(queue);
+        return queue;
+    }
+
+    private static CannotGetJdbcConnectionException unavailable() {
+        return new CannotGetJdbcConnectionException("Connection refused");
+    }
+
+    private static BulkRowResult created(long id) {
+        return new BulkRowResult(0, "a@x.com", id, BulkOutcome.CREATED, null);
+    }
+
+    private static void await(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.nanoTime() + 5_000_000_000L;
+        while (true) {
+            AssertionError failure = null;
+            try {
+                if (condition.getAsBoolean()) {
+                    return;
+                }
+            } catch (AssertionError e) {
+                failure = e;
+            }
+            if (System.nanoTime() > deadline) {
+                throw failure != null ? failure : new AssertionError("Condition not met within 5 s");
+            }
+            Thread.sleep(10);
+        }
+    }
+}
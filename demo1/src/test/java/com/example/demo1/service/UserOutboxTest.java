@@ -0,0 +1,153 @@
+package com.example.demo1.service;
+
+import com.example.demo1.dto.UserChange;
+import com.example.demo1.dto.UserChangeFeed;
+import com.example.demo1.dto.UserSnapshotPage;
+import com.example.demo1.exception.CursorExpiredException;
+import io.zonky.test.db.postgres.embedded.EmbeddedPostgres;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.init.DatabasePopulatorUtils;
+import org.springframework.jdbc.datasource.init.ResourceDatabasePopulator;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Runs the feed, snapshot and purge SQL against PostgreSQL, with transactions that commit out of order.
+ */
+class UserOutboxTest {
+
+    // Stopped by its own shutdown hook when the test JVM exits
+    private static final EmbeddedPostgres postgres = startPostgres();
+
+    private final DataSource dataSource = postgres.getPostgresDatabase();
+    private final JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+    private UserOutbox outbox;
+
+    @BeforeEach
+    void setUp() {
+        jdbcTemplate.execute("TRUNCATE demo.users, demo.user_outbox, demo.user_outbox_purge RESTART IDENTITY");
+        outbox = new UserOutbox(jdbcTemplate);
+        ReflectionTestUtils.setField(outbox, "enabled", true);
+        ReflectionTestUtils.setField(outbox, "maxPageSize", 100);
+        ReflectionTestUtils.setField(outbox, "retentionHours", 0);
+    }
+
+    @Test
+    void changeOfATransactionStillRunningHoldsBackLaterCommits() throws Exception {
+        try (Connection early = dataSource.getConnection()) {
+            early.setAutoCommit(false);
+            // The early transaction gets the lower txid but commits last
+            write(early, 1, "created");
+            write(2, "created");
+
+            UserChangeFeed whileRunning = outbox.changesAfter(null, 10);
+            assertTrue(whileRunning.changes().isEmpty());
+
+            early.commit();
+            UserChangeFeed afterCommit = outbox.changesAfter(whileRunning.nextCursor(), 10);
+            assertEquals(List.of(1L, 2L), userIds(afterCommit));
+            assertFalse(afterCommit.hasMore());
+        }
+    }
+
+    @Test
+    void cursorResumesAfterTheLastChangeSeen() {
+        for (long userId = 1; userId <= 3; userId++) {
+            write(userId, "created");
+        }
+
+        UserChangeFeed first = outbox.changesAfter(null, 2);
+        assertEquals(List.of(1L, 2L), userIds(first));
+        assertTrue(first.hasMore());
+
+        write(4, "created");
+        UserChangeFeed second = outbox.changesAfter(first.nextCursor(), 2);
+        assertEquals(List.of(3L, 4L), userIds(second));
+        assertFalse(second.hasMore());
+
+        UserChangeFeed caughtUp = outbox.changesAfter(second.nextCursor(), 2);
+        assertTrue(caughtUp.changes().isEmpty());
+        assertEquals(second.nextCursor(), caughtUp.nextCursor());
+    }
+
+    @Test
+    void snapshotHorizonIsBeforeTransactionsStillRunning() throws Exception {
+        jdbcTemplate.update("INSERT INTO demo.users (id, name, email) VALUES (1, 'A', 'a@x.com')");
+        write(1, "created");
+
+        try (Connection running = dataSource.getConnection()) {
+            running.setAutoCommit(false);
+            write(running, 1, "updated");
+
+            UserSnapshotPage snapshot = outbox.snapshot(null, 10);
+            assertEquals(1, snapshot.users().size());
+            assertEquals(1L, snapshot.users().get(0).changeId());
+
+            running.commit();
+            // The update missed by the snapshot is replayed from its horizon
+            UserChangeFeed replay = outbox.changesAfter(snapshot.changesCursor(), 10);
+            assertEquals(List.of("updated"), replay.changes().stream().map(c -> c.operation().toJson()).toList());
+        }
+    }
+
+    @Test
+    void purgeExpiresOlderCursorsAndTheSnapshotHorizonResumesTheFeed() {
+        write(1, "created");
+        UserChangeFeed seen = outbox.changesAfter(null, 10);
+        write(2, "created");
+
+        outbox.purge();
+
+        assertThrows(CursorExpiredException.class, () -> outbox.changesAfter(seen.nextCursor(), 10));
+        // Reload: a fresh snapshot's horizon is past everything purged
+        UserSnapshotPage snapshot = outbox.snapshot(null, 10);
+        write(3, "created");
+        assertEquals(List.of(3L), userIds(outbox.changesAfter(snapshot.changesCursor(), 10)));
+    }
+
+    private void write(long userId, String operation) {
+        jdbcTemplate.update("INSERT INTO demo.user_outbox (user_id, operation) VALUES (?, ?)", userId, operation);
+    }
+
+    private static void write(Connection connection, long userId, String operation) throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement(
+                "INSERT INTO demo.user_outbox (user_id, operation) VALUES (?, ?)")) {
+            statement.setLong(1, userId);
+            statement.setString(2, operation);
+            statement.executeUpdate();
+        }
+    }
+
+    private static List<Long> userIds(UserChangeFeed feed) {
+        return feed.changes().stream().map(UserChange::userId).toList();
+    }
+
+    private static EmbeddedPostgres startPostgres() {
+        try {
+            EmbeddedPostgres postgres = EmbeddedPostgres.builder().start();
+            DataSource dataSource = postgres.getPostgresDatabase();
+            new JdbcTemplate(dataSource).execute("CREATE SCHEMA demo; CREATE TABLE demo.users ("
+                    + "id bigserial PRIMARY KEY, name varchar(255), email varchar(255) UNIQUE, created_at timestamp)");
+            DatabasePopulatorUtils.execute(new ResourceDatabasePopulator(new ClassPathResource("db/user-outbox.sql")),
+                    dataSource);
+            return postgres;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
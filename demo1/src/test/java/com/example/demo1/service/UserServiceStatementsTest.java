@@ -0,0 +1,116 @@
+package com.example.demo1.service;
+
+import com.example.demo1.entity.User;
+import io.zonky.test.db.postgres.embedded.EmbeddedPostgres;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Counts the statements Hibernate actually sends to PostgreSQL per write, so a select-before-merge, an extra flush
+ * or a dirty-check update shows up as a second statement. The outbox is on, as by default: its row is written by
+ * the same statement.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.NONE, properties = {
+        "eureka.client.enabled=false",
+        "demo1.users.outbox.enabled=true",
+        "demo1.users.search.create-indexes=false",
+        "demo1.jpa.statistics-enabled=true"})
+class UserServiceStatementsTest {
+
+    // Stopped by its own shutdown hook when the test JVM exits
+    private static final EmbeddedPostgres postgres = startPostgres();
+    private static final AtomicInteger emails = new AtomicInteger();
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private Statistics statistics;
+
+    @DynamicPropertySource
+    static void datasource(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url", () -> postgres.getJdbcUrl("postgres", "postgres"));
+        registry.add("spring.datasource.username", () -> "postgres");
+        registry.add("spring.datasource.password", () -> "");
+    }
+
+    @BeforeEach
+    void setUp() {
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+    }
+
+    @Test
+    void createUserSendsOneStatement() {
+        User user = newUser();
+        // An id in the request body must not turn the insert into select-then-merge
+        user.setId(42L);
+
+        statistics.clear();
+        userService.createUser(user);
+
+        assertEquals(1, statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    void updateUserSendsOneStatement() {
+        User created = userService.createUser(newUser());
+        User changes = newUser();
+        changes.setId(created.getId());
+
+        statistics.clear();
+        userService.updateUser(changes);
+
+        assertEquals(1, statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    void deleteUserSendsOneStatement() {
+        User created = userService.createUser(newUser());
+
+        statistics.clear();
+        userService.deleteUser(created.getId());
+
+        assertEquals(1, statistics.getPrepareStatementCount());
+    }
+
+    private static User newUser() {
+        int n = emails.incrementAndGet();
+        return new User("Statement Test " + n, "statements-" + n + "@example.com");
+    }
+
+    private static EmbeddedPostgres startPostgres() {
+        try {
+            EmbeddedPostgres postgres = EmbeddedPostgres.builder().start();
+            try (Connection connection = postgres.getPostgresDatabase().getConnection();
+                 Statement statement = connection.createStatement()) {
+                // As the compose database has it; demo1 does not create it (ddl-auto is none)
+                statement.execute("CREATE SCHEMA demo");
+                statement.execute("CREATE TABLE demo.users (id bigserial PRIMARY KEY, name varchar(255), "
+                        + "email varchar(255) UNIQUE, created_at timestamp)");
+            }
+            return postgres;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } catch (SQLException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
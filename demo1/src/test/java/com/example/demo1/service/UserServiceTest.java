@@ -1,18 +1,48 @@
 package com.example.demo1.service;
 
+import com.example.demo1.config.ReplicaRoutingDataSource;
+import com.example.demo1.dto.UserSummary;
 import com.example.demo1.entity.User;
 import com.example.demo1.exception.ConflictException;
 import com.example.demo1.exception.ResourceNotFoundException;
 import com.example.demo1.repository.UserRepository;
+import com.example.userapi.TotalCountMode;
+import com.example.userapi.dto.CursorPage;
+import com.example.userapi.dto.UserBatchResult;
+import jakarta.servlet.http.Cookie;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
-import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.Limit;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
 
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyIterable;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoMoreInteractions;
 import static org.mockito.Mockito.when;
 
 @ExtendWith(MockitoExtension.class)
@@ -21,12 +51,31 @@ class UserServiceTest {
     @Mock
     private UserRepository userRepository;
 
-    @InjectMocks
+    @Spy
+    private UserCache userCache = new UserCache(true, 100, 60, 5000);
+
+    @Mock
+    private UserOutbox userOutbox;
+
+    private UserLookupBatcher userLookupBatcher;
+
     private UserService userService;
 
+    @BeforeEach
+    void setUp() {
+        userLookupBatcher = new UserLookupBatcher(userRepository, true, 100, 100, 5000, true, 5000);
+        userService = new UserService(userRepository, userCache, userLookupBatcher, userOutbox);
+    }
+
+    @AfterEach
+    void tearDown() {
+        userLookupBatcher.shutdown();
+        RequestContextHolder.resetRequestAttributes();
+    }
+
     @Test
     void getUserByIdThrowsNotFound() {
-        when(userRepository.findById(99L)).thenReturn(Optional.empty());
+        when(userRepository.findAllById(List.of(99L))).thenReturn(List.of());
 
         assertThrows(ResourceNotFoundException.class, () -> userService.getUserById(99L));
     }
@@ -34,8 +83,274 @@ class UserServiceTest {
     @Test
     void createUserThrowsConflictWhenEmailExists() {
         User user = new User("A", "a@x.com");
-        when(userRepository.findByEmail("a@x.com")).thenReturn(Optional.of(new User("B", "a@x.com")));
+        when(userRepository.saveAndFlush(user)).thenThrow(uniqueViolation());
 
         assertThrows(ConflictException.class, () -> userService.createUser(user));
     }
+
+    @Test
+    void createUserIssuesSingleInsert() {
+        User user = new User("A", "a@x.com");
+        when(userRepository.saveAndFlush(user)).thenReturn(user(1L));
+
+        userService.createUser(user);
+
+        verify(userRepository).saveAndFlush(user);
+        verifyNoMoreInteractions(userRepository);
+    }
+
+    @Test
+    void updateUserIssuesSingleUpdate() {
+        User user = user(1L);
+        when(userRepository.updateReturning(1L, user.getName(), user.getEmail())).thenReturn(Optional.of(user(1L)));
+
+        userService.updateUser(user);
+
+        verify(userRepository).updateReturning(1L, user.getName(), user.getEmail());
+        verifyNoMoreInteractions(userRepository);
+    }
+
+    @Test
+    void updateUserThrowsNotFoundWhenNoRowIsUpdated() {
+        User user = user(99L);
+        when(userRepository.updateReturning(99L, user.getName(), user.getEmail())).thenReturn(Optional.empty());
+
+        assertThrows(ResourceNotFoundException.class, () -> userService.updateUser(user));
+    }
+
+    @Test
+    void updateUserThrowsConflictWhenEmailIsTaken() {
+        User user = user(1L);
+        when(userRepository.updateReturning(1L, user.getName(), user.getEmail())).thenThrow(uniqueViolation());
+
+        assertThrows(ConflictException.class, () -> userService.updateUser(user));
+    }
+
+    @Test
+    void getUserByIdAfterTheClientsOwnWriteReadsOnItsRequestThread() {
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        request.setCookies(new Cookie(ReplicaRoutingDataSource.LAST_WRITE_COOKIE,
+                Long.toString(System.currentTimeMillis())));
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(request));
+        when(userRepository.findById(1L)).thenReturn(Optional.of(user(1L)));
+
+        userService.getUserById(1L);
+
+        // A batch thread would not see the cookie and would read from the replica
+        verify(userRepository).findById(1L);
+        verify(userRepository, never()).findAllById(anyIterable());
+    }
+
+    @Test
+    void getUserByIdServesRepeatedReadsFromCache() {
+        when(userRepository.findAllById(List.of(1L))).thenReturn(List.of(user(1L)));
+
+        User first = userService.getUserById(1L);
+        User second = userService.getUserById(1L);
+
+        assertEquals(first.getEmail(), second.getEmail());
+        verify(userRepository, times(1)).findAllById(List.of(1L));
+    }
+
+    @Test
+    void concurrentLookupsAreCoalescedIntoOneQuery() throws Exception {
+        int callers = 40;
+        // Hold the query until every caller has joined, so all of them share it
+        when(userRepository.findAllById(anyIterable())).thenAnswer(invocation -> {
+            while (userLookupBatcher.getLookups() < callers) {
+                Thread.onSpinWait();
+            }
+            List<User> found = new ArrayList<>();
+            for (Long id : invocation.<Iterable<Long>>getArgument(0)) {
+                found.add(user(id));
+            }
+            return found;
+        });
+
+        ExecutorService executor = Executors.newFixedThreadPool(callers);
+        try {
+            List<CompletableFuture<User>> results = new ArrayList<>();
+            for (int i = 0; i < callers; i++) {
+                long id = 1 + i % 4;
+                results.add(CompletableFuture.supplyAsync(() -> userService.getUserById(id), executor));
+            }
+            for (int i = 0; i < callers; i++) {
+                assertEquals(1 + i % 4, results.get(i).get().getId());
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertEquals(callers - 4, userLookupBatcher.getCoalesced());
+        assertTrue(userLookupBatcher.getQueries() <= 4);
+        verify(userRepository, never()).findById(1L);
+    }
+
+    @Test
+    void getUserByIdDoesNotCacheARowReadBeforeAConcurrentUpdate() {
+        User changes = user(1L);
+        changes.setName("Renamed");
+        when(userRepository.updateReturning(1L, "Renamed", changes.getEmail())).thenReturn(Optional.of(changes));
+        when(userRepository.findAllById(List.of(1L))).thenAnswer(invocation -> {
+            // The update commits, and evicts, after this read saw the old row
+            userService.updateUser(changes);
+            return List.of(user(1L));
+        });
+
+        assertEquals("User 1", userService.getUserById(1L).getName());
+
+        assertTrue(userCache.getById(1L).isEmpty());
+    }
+
+    @Test
+    void userLoadedAcrossAnEvictionIsNotCached() {
+        long generation = userCache.generation(1L);
+        userCache.evict(1L, "user1@x.com");
+
+        userCache.put(user(1L), generation);
+        assertTrue(userCache.getById(1L).isEmpty());
+
+        userCache.put(user(1L), userCache.generation(1L));
+        assertTrue(userCache.getById(1L).isPresent());
+    }
+
+    @Test
+    void getUsersByIdsKeepsRequestOrderAndMarksMissingIds() {
+        ReflectionTestUtils.setField(userService, "maxBatchIds", 10);
+        userCache.put(user(2L), userCache.generation(2L));
+        when(userRepository.findAllById(Set.of(3L, 1L, 9L))).thenReturn(List.of(user(1L), user(3L)));
+
+        UserBatchResult result = userService.getUsersByIds(List.of(3L, 2L, 9L, 1L, 3L));
+
+        assertEquals(List.of(3L, 2L, 9L, 1L, 3L), result.users().stream().map(entry -> entry.id()).toList());
+        assertEquals(4, result.found());
+        assertEquals(List.of(9L), result.missingIds());
+        assertFalse(result.users().get(2).found());
+        verify(userRepository, times(1)).findAllById(Set.of(3L, 1L, 9L));
+    }
+
+    @Test
+    void getUsersByIdsRejectsTooManyIds() {
+        ReflectionTestUtils.setField(userService, "maxBatchIds", 2);
+
+        assertThrows(IllegalArgumentException.class, () -> userService.getUsersByIds(List.of(1L, 2L, 3L)));
+    }
+
+    @Test
+    void deleteUserEvictsCachedUser() {
+        when(userRepository.findAllById(List.of(1L))).thenReturn(List.of(user(1L)));
+        when(userRepository.deleteReturningEmail(1L)).thenReturn(Optional.of("user1@x.com"));
+        userService.getUserById(1L);
+
+        userService.deleteUser(1L);
+
+        assertTrue(userCache.getById(1L).isEmpty());
+    }
+
+    @Test
+    void writesDropRememberedListETags() {
+        User user = user(1L);
+        when(userRepository.updateReturning(1L, user.getName(), user.getEmail())).thenReturn(Optional.of(user(1L)));
+        long generation = userCache.listGeneration();
+        userCache.putListETag("0:10:null:none", "\"v1\"", generation);
+
+        userService.updateUser(user);
+        // A listing that started before the write must not be remembered either
+        userCache.putListETag("0:10:null:none", "\"v1\"", generation);
+
+        assertTrue(userCache.getListETag("0:10:null:none").isEmpty());
+    }
+
+    @Test
+    void deleteUserIssuesSingleDelete() {
+        when(userRepository.deleteReturningEmail(1L)).thenReturn(Optional.of("user1@x.com"));
+
+        userService.deleteUser(1L);
+
+        verify(userRepository).deleteReturningEmail(1L);
+        verifyNoMoreInteractions(userRepository);
+    }
+
+    @Test
+    void deleteUserThrowsNotFoundWhenNoRowIsDeleted() {
+        when(userRepository.deleteReturningEmail(99L)).thenReturn(Optional.empty());
+
+        assertThrows(ResourceNotFoundException.class, () -> userService.deleteUser(99L));
+    }
+
+    @Test
+    void writesRecordTheirChangeInTheSameStatementWhenTheOutboxIsOn() {
+        when(userOutbox.isEnabled()).thenReturn(true);
+        User user = user(1L);
+        when(userRepository.insertRecordingChange(user.getName(), user.getEmail(), user.getCreatedAt()))
+                .thenReturn(user(1L));
+        when(userRepository.updateReturningRecordingChange(1L, user.getName(), user.getEmail()))
+                .thenReturn(Optional.of(user(1L)));
+        when(userRepository.deleteReturningEmailRecordingChange(1L)).thenReturn(Optional.of("user1@x.com"));
+
+        userService.createUser(user);
+        user.setId(1L);
+        userService.updateUser(user);
+        userService.deleteUser(1L);
+
+        verify(userRepository).insertRecordingChange(user.getName(), user.getEmail(), user.getCreatedAt());
+        verify(userRepository).updateReturningRecordingChange(1L, user.getName(), user.getEmail());
+        verify(userRepository).deleteReturningEmailRecordingChange(1L);
+        verifyNoMoreInteractions(userRepository);
+    }
+
+    @Test
+    void getUsersAfterReturnsNextCursorWithoutCounting() {
+        when(userRepository.findByIdGreaterThanOrderByIdAsc(0L, Limit.of(3)))
+                .thenReturn(List.of(user(1L), user(2L), user(3L)));
+
+        CursorPage<User> firstPage = userService.getUsersAfter("", 2, TotalCountMode.NONE);
+
+        assertEquals(2, firstPage.content().size());
+        assertTrue(firstPage.hasNext());
+        assertNull(firstPage.totalItems());
+        verify(userRepository, never()).count();
+
+        when(userRepository.findByIdGreaterThanOrderByIdAsc(2L, Limit.of(3)))
+                .thenReturn(List.of(user(3L)));
+
+        CursorPage<User> lastPage = userService.getUsersAfter(firstPage.nextCursor(), 2, TotalCountMode.NONE);
+
+        assertEquals(1, lastPage.content().size());
+        assertFalse(lastPage.hasNext());
+        assertNull(lastPage.nextCursor());
+    }
+
+    @Test
+    void getUsersAfterRejectsMalformedCursor() {
+        assertThrows(IllegalArgumentException.class,
+                () -> userService.getUsersAfter("not-a-cursor", 10, TotalCountMode.NONE));
+    }
+
+    @Test
+    void searchUsersMatchesWildcardsLiterallyAndCapsPageSize() {
+        ReflectionTestUtils.setField(userService, "maxSearchPageSize", 2);
+        ReflectionTestUtils.setField(userService, "minContainsLength", 3);
+        when(userRepository.searchAfter("%50\\%\\_off%", 0L, Limit.of(3))).thenReturn(List.of(
+                new UserSummary(1L, "a", "a@x.com"), new UserSummary(2L, "b", "b@x.com"),
+                new UserSummary(3L, "c", "c@x.com")));
+
+        CursorPage<UserSummary> page = userService.searchUsers(" 50%_off ", SearchMatch.CONTAINS, null, 50);
+
+        assertEquals(2, page.content().size());
+        assertTrue(page.hasNext());
+        assertThrows(IllegalArgumentException.class,
+                () -> userService.searchUsers("ab", SearchMatch.CONTAINS, null, 10));
+    }
+
+    private static DataIntegrityViolationException uniqueViolation() {
+        return new DataIntegrityViolationException("duplicate key",
+                new SQLException("duplicate key value violates unique constraint", "23505"));
+    }
+
+    private static User user(long id) {
+        User user = new User("User " + id, "user" + id + "@x.com");
+        user.setId(id);
+        return user;
+    }
 }
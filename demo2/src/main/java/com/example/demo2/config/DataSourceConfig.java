@@ -1,8 +1,10 @@
 package com.example.demo2.config;
 
+import com.zaxxer.hikari.HikariDataSource;
 import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
 import org.springframework.boot.context.properties.ConfigurationProperties;
-import org.springframework.boot.jdbc.DataSourceBuilder;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.context.annotation.Primary;
@@ -13,17 +15,36 @@ import javax.sql.DataSource;
 @Configuration
 public class DataSourceConfig {
 
+    // Bound through DataSourceProperties so url/username/password are read as in the yml; bound directly onto
+    // Hikari only jdbc-url would be, and every connection attempt failed
     @Primary
-    @Bean(name = "renderDataSource")
+    @Bean
     @ConfigurationProperties(prefix = "spring.datasource")
-    public DataSource renderDataSource() {
-        return DataSourceBuilder.create().build();
+    public DataSourceProperties renderDataSourceProperties() {
+        return new DataSourceProperties();
     }
 
-    @Bean(name = "supabaseDataSource")
+    @Primary
+    @Bean(name = "renderDataSource")
+    @ConfigurationProperties(prefix = "spring.datasource.hikari")
+    public HikariDataSource renderDataSource(
+            @Qualifier("renderDataSourceProperties") DataSourceProperties properties) {
+        return properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+    }
+
+    // Optional; only created when configured
+    @Bean
+    @ConditionalOnProperty(name = "supabase.datasource.enabled", havingValue = "true")
     @ConfigurationProperties(prefix = "supabase.datasource")
-    public DataSource supabaseDataSource() {
-        return DataSourceBuilder.create().build();
+    public DataSourceProperties supabaseDataSourceProperties() {
+        return new DataSourceProperties();
+    }
+
+    @Bean(name = "supabaseDataSource")
+    @ConditionalOnProperty(name = "supabase.datasource.enabled", havingValue = "true")
+    public HikariDataSource supabaseDataSource(
+            @Qualifier("supabaseDataSourceProperties") DataSourceProperties properties) {
+        return properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
     }
 
     @Primary
@@ -33,6 +54,7 @@ public class DataSourceConfig {
     }
 
     @Bean(name = "supabaseJdbcTemplate")
+    @ConditionalOnProperty(name = "supabase.datasource.enabled", havingValue = "true")
     public JdbcTemplate supabaseJdbcTemplate(@Qualifier("supabaseDataSource") DataSource dataSource) {
         return new JdbcTemplate(dataSource);
     }
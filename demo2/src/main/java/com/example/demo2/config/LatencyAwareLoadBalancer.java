@@ -0,0 +1,42 @@
+package com.example.demo2.config;
+
+import com.example.demo2.service.InstanceLoadTracker;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.cloud.client.loadbalancer.DefaultResponse;
+import org.springframework.cloud.client.loadbalancer.EmptyResponse;
+import org.springframework.cloud.client.loadbalancer.Request;
+import org.springframework.cloud.client.loadbalancer.Response;
+import org.springframework.cloud.loadbalancer.core.NoopServiceInstanceListSupplier;
+import org.springframework.cloud.loadbalancer.core.ReactorServiceInstanceLoadBalancer;
+import org.springframework.cloud.loadbalancer.core.ServiceInstanceListSupplier;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+
+/**
+ * Spring Cloud LoadBalancer adapter over {@link InstanceLoadTracker}; the instance list comes from the
+ * same Eureka-backed supplier the default round-robin balancer uses.
+ */
+public class LatencyAwareLoadBalancer implements ReactorServiceInstanceLoadBalancer {
+
+    private final ObjectProvider<ServiceInstanceListSupplier> instanceListSupplier;
+    private final InstanceLoadTracker tracker;
+
+    public LatencyAwareLoadBalancer(ObjectProvider<ServiceInstanceListSupplier> instanceListSupplier,
+                                    InstanceLoadTracker tracker) {
+        this.instanceListSupplier = instanceListSupplier;
+        this.tracker = tracker;
+    }
+
+    @Override
+    public Mono<Response<ServiceInstance>> choose(Request request) {
+        ServiceInstanceListSupplier supplier = instanceListSupplier.getIfAvailable(NoopServiceInstanceListSupplier::new);
+        return supplier.get(request).next().map(this::choose);
+    }
+
+    private Response<ServiceInstance> choose(List<ServiceInstance> instances) {
+        ServiceInstance instance = tracker.choose(instances);
+        return instance != null ? new DefaultResponse(instance) : new EmptyResponse();
+    }
+}
@@ -0,0 +1,111 @@
+package com.example.demo2.config;
+
+import com.example.demo2.service.InstanceLoadTracker;
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.cloud.client.loadbalancer.CompletionContext;
+import org.springframework.cloud.client.loadbalancer.LoadBalancerLifecycle;
+import org.springframework.cloud.client.loadbalancer.Request;
+import org.springframework.cloud.client.loadbalancer.Response;
+import org.springframework.cloud.client.loadbalancer.ResponseData;
+import org.springframework.cloud.client.loadbalancer.TimedRequestContext;
+import org.springframework.cloud.loadbalancer.annotation.LoadBalancerClients;
+import org.springframework.cloud.loadbalancer.core.ReactorLoadBalancer;
+import org.springframework.cloud.loadbalancer.core.ServiceInstanceListSupplier;
+import org.springframework.cloud.loadbalancer.support.LoadBalancerClientFactory;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.http.client.ClientHttpResponse;
+
+import java.io.IOException;
+
+/**
+ * Replaces round robin with {@link LatencyAwareLoadBalancer} for every {@code @LoadBalanced} client and feeds
+ * the outcome of each load-balanced request back into {@link InstanceLoadTracker}.
+ */
+@Configuration
+@LoadBalancerClients(defaultConfiguration = LoadBalancerConfig.LatencyAwareConfiguration.class)
+public class LoadBalancerConfig {
+
+    /**
+     * Looked up by the load balancer from each service's child context; not a {@code @Configuration} so that
+     * component scanning does not also register it in the application context.
+     */
+    static class LatencyAwareConfiguration {
+
+        @Bean
+        public ReactorLoadBalancer<ServiceInstance> latencyAwareLoadBalancer(
+                Environment environment, LoadBalancerClientFactory loadBalancerClientFactory,
+                InstanceLoadTracker tracker) {
+            String serviceId = environment.getProperty(LoadBalancerClientFactory.PROPERTY_NAME);
+            return new LatencyAwareLoadBalancer(
+                    loadBalancerClientFactory.getLazyProvider(serviceId, ServiceInstanceListSupplier.class), tracker);
+        }
+    }
+
+    @Bean
+    public LoadBalancerLifecycle<Object, Object, ServiceInstance> instanceLoadLifecycle(InstanceLoadTracker tracker) {
+        return new InstanceLoadLifecycle(tracker);
+    }
+
+    static class InstanceLoadLifecycle implements LoadBalancerLifecycle<Object, Object, ServiceInstance> {
+
+        private final InstanceLoadTracker tracker;
+
+        InstanceLoadLifecycle(InstanceLoadTracker tracker) {
+            this.tracker = tracker;
+        }
+
+        @Override
+        public boolean supports(Class requestContextClass, Class responseClass, Class serverTypeClass) {
+            return ServiceInstance.class.isAssignableFrom(serverTypeClass);
+        }
+
+        @Override
+        public void onStart(Request<Object> request) {
+        }
+
+        @Override
+        public void onStartRequest(Request<Object> request, Response<ServiceInstance> lbResponse) {
+            if (!lbResponse.hasServer()) {
+                return;
+            }
+            if (request.getContext() instanceof TimedRequestContext context) {
+                context.setRequestStartTime(System.nanoTime());
+            }
+            tracker.begin(lbResponse.getServer());
+        }
+
+        @Override
+        public void onComplete(CompletionContext<Object, ServiceInstance, Object> completionContext) {
+            Response<ServiceInstance> lbResponse = completionContext.getLoadBalancerResponse();
+            if (lbResponse == null || !lbResponse.hasServer()
+                    || completionContext.status() == CompletionContext.Status.DISCARD) {
+                return;
+            }
+            long latencyNanos = 0;
+            if (completionContext.getLoadBalancerRequest().getContext() instanceof TimedRequestContext context
+                    && context.getRequestStartTime() != 0) {
+                latencyNanos = System.nanoTime() - context.getRequestStartTime();
+            }
+            boolean success = completionContext.status() == CompletionContext.Status.SUCCESS
+                    && !isServerError(completionContext.getClientResponse());
+            tracker.complete(lbResponse.getServer(), latencyNanos, success);
+        }
+
+        private static boolean isServerError(Object clientResponse) {
+            try {
+                HttpStatusCode status = null;
+                if (clientResponse instanceof ResponseData responseData) {
+                    status = responseData.getHttpStatus();
+                } else if (clientResponse instanceof ClientHttpResponse response) {
+                    status = response.getStatusCode();
+                }
+                return status != null && status.is5xxServerError();
+            } catch (IOException e) {
+                return true;
+            }
+        }
+    }
+}
@@ -1,15 +1,154 @@
 package com.example.demo2.config;
 
+import io.micrometer.common.KeyValue;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.apache.hc.client5.http.config.ConnectionConfig;
+import org.apache.hc.client5.http.config.RequestConfig;
+import org.apache.hc.client5.http.impl.classic.CloseableHttpClient;
+import org.apache.hc.client5.http.impl.classic.HttpClients;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManager;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManagerBuilder;
+import org.apache.hc.core5.pool.PoolConcurrencyPolicy;
+import org.apache.hc.core5.pool.PoolReusePolicy;
+import org.apache.hc.core5.util.TimeValue;
+import org.apache.hc.core5.util.Timeout;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.web.client.RestTemplateBuilder;
 import org.springframework.cloud.client.loadbalancer.LoadBalanced;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
+import org.springframework.http.client.observation.ClientRequestObservationContext;
+import org.springframework.http.client.observation.ClientRequestObservationConvention;
+import org.springframework.http.client.observation.DefaultClientRequestObservationConvention;
 import org.springframework.web.client.RestTemplate;
 
 @Configuration
 public class RestTemplateConfig {
+
+    @Value("${demo2.http-client.max-connections-total:200}")
+    private int maxConnectionsTotal;
+
+    // The load balancer resolves demo1-service to host:port, so this is the limit per demo1 instance
+    @Value("${demo2.http-client.max-connections-per-route:50}")
+    private int maxConnectionsPerRoute;
+
+    @Value("${demo2.http-client.connect-timeout-ms:1000}")
+    private long connectTimeoutMs;
+
+    @Value("${demo2.http-client.response-timeout-ms:5000}")
+    private long responseTimeoutMs;
+
+    // How long a request waits for a pooled connection before failing
+    @Value("${demo2.http-client.connection-request-timeout-ms:2000}")
+    private long connectionRequestTimeoutMs;
+
+    // Kept-alive connections are not reused beyond this, even if the server allows longer
+    @Value("${demo2.http-client.keep-alive-ms:30000}")
+    private long keepAliveMs;
+
+    @Value("${demo2.http-client.time-to-live-ms:300000}")
+    private long timeToLiveMs;
+
+    @Value("${demo2.http-client.validate-after-inactivity-ms:2000}")
+    private long validateAfterInactivityMs;
+
+    @Value("${demo2.http-client.compression-enabled:true}")
+    private boolean compressionEnabled;
+
+    @Bean(destroyMethod = "close")
+    public PoolingHttpClientConnectionManager demo1ConnectionManager() {
+        return PoolingHttpClientConnectionManagerBuilder.create()
+                .setMaxConnTotal(maxConnectionsTotal)
+                .setMaxConnPerRoute(maxConnectionsPerRoute)
+                // LIFO keeps a small set of connections warm instead of cycling through the whole pool
+                .setConnPoolPolicy(PoolReusePolicy.LIFO)
+                .setPoolConcurrencyPolicy(PoolConcurrencyPolicy.STRICT)
+                .setDefaultConnectionConfig(ConnectionConfig.custom()
+                        .setConnectTimeout(Timeout.ofMilliseconds(connectTimeoutMs))
+                        .setSocketTimeout(Timeout.ofMilliseconds(responseTimeoutMs))
+                        .setTimeToLive(TimeValue.ofMilliseconds(timeToLiveMs))
+                        .setValidateAfterInactivity(TimeValue.ofMilliseconds(validateAfterInactivityMs))
+                        .build())
+                .build();
+    }
+
+    @Bean(destroyMethod = "close")
+    public CloseableHttpClient demo1HttpClient(PoolingHttpClientConnectionManager demo1ConnectionManager) {
+        var builder = HttpClients.custom()
+                .setConnectionManager(demo1ConnectionManager)
+                .setDefaultRequestConfig(RequestConfig.custom()
+                        .setConnectionRequestTimeout(Timeout.ofMilliseconds(connectionRequestTimeoutMs))
+                        .setResponseTimeout(Timeout.ofMilliseconds(responseTimeoutMs))
+                        .build())
+                .setKeepAliveStrategy((response, context) -> TimeValue.ofMilliseconds(keepAliveMs))
+                .evictExpiredConnections()
+                .evictIdleConnections(TimeValue.ofMilliseconds(keepAliveMs));
+        if (!compressionEnabled) {
+            // Accept-Encoding: gzip and transparent decompression are on by default
+            builder.disableContentCompression();
+        }
+        return builder.build();
+    }
+
+    /**
+     * Pool totals as gauges; the per-route breakdown stays on {@code /http-client/pool}.
+     */
+    @Bean
+    public MeterBinder demo1ConnectionPoolMetrics(PoolingHttpClientConnectionManager demo1ConnectionManager) {
+        return registry -> {
+            Gauge.builder("demo2.http.client.pool.leased", demo1ConnectionManager,
+                            manager -> manager.getTotalStats().getLeased())
+                    .description("Connections currently in use").register(registry);
+            Gauge.builder("demo2.http.client.pool.pending", demo1ConnectionManager,
+                            manager -> manager.getTotalStats().getPending())
+                    .description("Requests waiting for a connection").register(registry);
+            Gauge.builder("demo2.http.client.pool.available", demo1ConnectionManager,
+                            manager -> manager.getTotalStats().getAvailable())
+                    .description("Idle kept-alive connections").register(registry);
+            Gauge.builder("demo2.http.client.pool.max", demo1ConnectionManager,
+                            manager -> manager.getTotalStats().getMax())
+                    .register(registry);
+        };
+    }
+
+    /**
+     * Callers build URLs with query strings and, for direct calls, instance hosts; keep only the path
+     * in the uri tag of http.client.requests so the metric does not grow a series per distinct URL.
+     */
+    @Bean
+    public ClientRequestObservationConvention pathOnlyClientRequestObservationConvention() {
+        return new DefaultClientRequestObservationConvention() {
+            @Override
+            protected KeyValue uri(ClientRequestObservationContext context) {
+                if (context.getCarrier() != null) {
+                    String path = context.getCarrier().getURI().getPath();
+                    return KeyValue.of("uri", path == null || path.isEmpty() ? "/" : path);
+                }
+                return super.uri(context);
+            }
+        };
+    }
+
+    @Primary
     @Bean
     @LoadBalanced
-    public RestTemplate restTemplate() {
-        return new RestTemplate();
+    public RestTemplate restTemplate(RestTemplateBuilder restTemplateBuilder, CloseableHttpClient demo1HttpClient) {
+        return restTemplateBuilder
+                .requestFactory(() -> new HttpComponentsClientHttpRequestFactory(demo1HttpClient))
+                .build();
+    }
+
+    /**
+     * Same pool, without the load balancer: for callers that pick the demo1 instance themselves (hedging, fan-out).
+     */
+    @Bean(name = "demo1DirectRestTemplate")
+    public RestTemplate demo1DirectRestTemplate(RestTemplateBuilder restTemplateBuilder,
+                                                CloseableHttpClient demo1HttpClient) {
+        return restTemplateBuilder
+                .requestFactory(() -> new HttpComponentsClientHttpRequestFactory(demo1HttpClient))
+                .build();
     }
-} 
\ No newline at end of file
+}
@@ -0,0 +1,79 @@
+package com.example.demo2.config;
+
+import io.netty.channel.ChannelOption;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cloud.client.loadbalancer.reactive.LoadBalancedExchangeFilterFunction;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.client.reactive.ReactorClientHttpConnector;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.resources.ConnectionProvider;
+
+import java.time.Duration;
+
+/**
+ * Non-blocking counterpart of {@link RestTemplateConfig}: a WebClient on Reactor Netty, sized by the same
+ * {@code demo2.http-client.*} settings and load balanced by the same {@link LatencyAwareLoadBalancer}.
+ */
+@Configuration
+public class WebClientConfig {
+
+    // Reactor Netty keeps one pool per remote address, so this is the limit per demo1 instance
+    @Value("${demo2.http-client.max-connections-per-route:50}")
+    private int maxConnectionsPerRoute;
+
+    @Value("${demo2.http-client.connect-timeout-ms:1000}")
+    private int connectTimeoutMs;
+
+    @Value("${demo2.http-client.response-timeout-ms:5000}")
+    private long responseTimeoutMs;
+
+    @Value("${demo2.http-client.connection-request-timeout-ms:2000}")
+    private long connectionRequestTimeoutMs;
+
+    @Value("${demo2.http-client.keep-alive-ms:30000}")
+    private long keepAliveMs;
+
+    @Value("${demo2.http-client.time-to-live-ms:300000}")
+    private long timeToLiveMs;
+
+    @Value("${demo2.http-client.compression-enabled:true}")
+    private boolean compressionEnabled;
+
+    @Value("${demo2.demo1-client.reactive.service-id:demo1-service}")
+    private String serviceId;
+
+    @Bean(destroyMethod = "dispose")
+    public ConnectionProvider demo1ReactiveConnectionProvider() {
+        return ConnectionProvider.builder("demo1-reactive-client")
+                .maxConnections(maxConnectionsPerRoute)
+                .pendingAcquireTimeout(Duration.ofMillis(connectionRequestTimeoutMs))
+                .maxIdleTime(Duration.ofMillis(keepAliveMs))
+                .maxLifeTime(Duration.ofMillis(timeToLiveMs))
+                // Same as the blocking pool: keep a few connections warm
+                .lifo()
+                // reactor.netty.connection.provider.* gauges
+                .metrics(true)
+                .build();
+    }
+
+    /**
+     * Requests go to {@code http://<service-id>}; the load balancer picks the instance for each one. The
+     * response timeout applies between reads, so long streams are not cut off while data keeps arriving.
+     */
+    @Bean
+    public WebClient demo1WebClient(WebClient.Builder webClientBuilder,
+                                    ConnectionProvider demo1ReactiveConnectionProvider,
+                                    LoadBalancedExchangeFilterFunction loadBalancerExchangeFilterFunction) {
+        HttpClient httpClient = HttpClient.create(demo1ReactiveConnectionProvider)
+                .option(ChannelOption.CONNECT_TIMEOUT_MILLIS, connectTimeoutMs)
+                .responseTimeout(Duration.ofMillis(responseTimeoutMs))
+                .compress(compressionEnabled);
+        return webClientBuilder
+                .baseUrl("http://" + serviceId)
+                .clientConnector(new ReactorClientHttpConnector(httpClient))
+                .filter(loadBalancerExchangeFilterFunction)
+                .build();
+    }
+}
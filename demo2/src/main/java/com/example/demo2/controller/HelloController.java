@@ -1,42 +1,70 @@
 package com.example.demo2.controller;
 
+import com.example.demo2.dto.Demo1ClientStatistics;
+import com.example.demo2.dto.Demo1User;
+import com.example.demo2.dto.Demo1UserPage;
+import com.example.demo2.dto.UserReplicaStatistics;
+import com.example.demo2.dto.UsersGatherResult;
+import com.example.demo2.service.Demo1Client;
+import com.example.demo2.service.ReactiveDemo1Client;
+import com.example.demo2.service.UserReplica;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
-import org.springframework.web.client.RestTemplate;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
 
-import java.util.Collections;
+import java.util.List;
 import java.util.Map;
 
 @RestController
 public class HelloController {
 
     private static final Logger logger = LoggerFactory.getLogger(HelloController.class);
-    private final RestTemplate restTemplate;
+    private final Demo1Client demo1Client;
+    private final ReactiveDemo1Client reactiveDemo1Client;
+    private final UserReplica userReplica;
+
+    @Value("${demo2.demo1-client.gather.deadline-ms:2000}")
+    private long defaultGatherDeadlineMs;
 
     @Autowired
-    public HelloController(RestTemplate restTemplate) {
-        this.restTemplate = restTemplate;
+    public HelloController(Demo1Client demo1Client, ReactiveDemo1Client reactiveDemo1Client,
+                           UserReplica userReplica) {
+        this.demo1Client = demo1Client;
+        this.reactiveDemo1Client = reactiveDemo1Client;
+        this.userReplica = userReplica;
     }
 
     @GetMapping("/hello")
     public String hello() {
-        logger.info("Hello from demo2");
+        logger.debug("Hello from demo2");
+
+        if (userReplica.isReady()) {
+            // No call to demo1; the replica may trail it by demo2.users.replica.staleness
+            List<Demo1User> users = userReplica.usersAfter(0, 10);
+            return "Hello from demo2! Read users from the local replica. Total items: " + userReplica.size()
+                    + ", Users: " + users;
+        }
 
         try {
-            String demo1ServiceUrl = "http://demo1-service/api/users?page=0&size=10";
-            logger.info("Fetching users from demo1 service: {}", demo1ServiceUrl);
+            logger.debug("Fetching users from demo1 service: page 0, size 10");
 
-            Map<String, Object> response = restTemplate.getForObject(demo1ServiceUrl, Map.class);
+            Demo1UserPage response = demo1Client.getUsersPage(0, 10);
 
             if (response != null) {
-                Map<String, Object> pagination = (Map<String, Object>) response.getOrDefault("pagination", Collections.emptyMap());
-                Object totalItems = pagination.getOrDefault("totalItems", 0);
-                Object users = response.getOrDefault("data", Collections.emptyList());
+                Object totalItems = response.pagination() != null ? response.pagination().totalItems() : 0;
+                List<Demo1User> users = response.data() != null ? response.data() : List.of();
 
-                logger.info("Successfully fetched users from demo1. Total items: {}", totalItems);
+                logger.debug("Successfully fetched users from demo1. Total items: {}", totalItems);
                 return "Hello from demo2! Fetched users from demo1. Total items: " + totalItems + ", Users: " + users;
             }
 
@@ -47,4 +75,71 @@ public class HelloController {
             return "Hello from demo2! Error fetching users from demo1: " + e.getMessage();
         }
     }
+
+    // Always asks demo1, through the non-blocking client; the request thread is released while it waits
+    @GetMapping("/hello/reactive")
+    public Mono<String> helloReactive() {
+        return reactiveDemo1Client.getUsersPage(0, 10)
+                .map(response -> {
+                    Object totalItems = response.pagination() != null ? response.pagination().totalItems() : 0;
+                    List<Demo1User> users = response.data() != null ? response.data() : List.of();
+                    return "Hello from demo2! Fetched users from demo1. Total items: " + totalItems
+                            + ", Users: " + users;
+                })
+                .onErrorResume(e -> {
+                    logger.error("Error fetching users from demo1: {}", e.getMessage(), e);
+                    return Mono.just("Hello from demo2! Error fetching users from demo1: " + e.getMessage());
+                });
+    }
+
+    // Relays demo1's export one user per line; a slow reader slows the download from demo1 instead of buffering it
+    @GetMapping(value = "/users/stream", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public Flux<Demo1User> streamUsers() {
+        return reactiveDemo1Client.streamUsers();
+    }
+
+    @GetMapping("/users/gather")
+    public ResponseEntity<?> gatherUsers(@RequestParam(defaultValue = "4") int pages,
+                                         @RequestParam(defaultValue = "50") int size,
+                                         @RequestParam(required = false) Long deadlineMs) {
+        try {
+            long deadline = deadlineMs != null ? deadlineMs : defaultGatherDeadlineMs;
+            UsersGatherResult result = demo1Client.gatherUsers(pages, size, deadline);
+            return ResponseEntity.ok(result);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
+    }
+
+    @GetMapping("/users/batch")
+    public ResponseEntity<?> getUsersByIds(@RequestParam List<Long> ids) {
+        try {
+            return ResponseEntity.ok(demo1Client.getUsersByIds(ids));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
+    }
+
+    // Served from the replica only; /users/batch asks demo1
+    @GetMapping("/users/{id}")
+    public ResponseEntity<?> getUser(@PathVariable long id) {
+        if (!userReplica.isReady()) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                    .body(Map.of("error", "User replica is not loaded yet"));
+        }
+        return userReplica.findById(id)
+                .<ResponseEntity<?>>map(ResponseEntity::ok)
+                .orElseGet(() -> ResponseEntity.status(HttpStatus.NOT_FOUND)
+                        .body(Map.of("error", "User not found with ID: " + id)));
+    }
+
+    @GetMapping("/users/replica/stats")
+    public UserReplicaStatistics userReplicaStatistics() {
+        return userReplica.statistics();
+    }
+
+    @GetMapping("/demo1-client/stats")
+    public Demo1ClientStatistics demo1ClientStatistics() {
+        return demo1Client.statistics();
+    }
 }
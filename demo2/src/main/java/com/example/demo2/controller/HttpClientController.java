@@ -0,0 +1,48 @@
+package com.example.demo2.controller;
+
+import com.example.demo2.dto.ConnectionPoolStatistics;
+import com.example.demo2.dto.InstanceLoadStatistics;
+import com.example.demo2.service.InstanceLoadTracker;
+import org.apache.hc.client5.http.HttpRoute;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManager;
+import org.apache.hc.core5.pool.PoolStats;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+@RestController
+public class HttpClientController {
+
+    private final PoolingHttpClientConnectionManager demo1ConnectionManager;
+    private final InstanceLoadTracker instanceLoadTracker;
+
+    @Autowired
+    public HttpClientController(PoolingHttpClientConnectionManager demo1ConnectionManager,
+                                InstanceLoadTracker instanceLoadTracker) {
+        this.demo1ConnectionManager = demo1ConnectionManager;
+        this.instanceLoadTracker = instanceLoadTracker;
+    }
+
+    @GetMapping("/http-client/pool")
+    public ConnectionPoolStatistics pool() {
+        Map<String, ConnectionPoolStatistics.Route> routes = new TreeMap<>();
+        for (HttpRoute route : demo1ConnectionManager.getRoutes()) {
+            routes.put(route.getTargetHost().toURI(), toRoute(demo1ConnectionManager.getStats(route)));
+        }
+        return new ConnectionPoolStatistics(toRoute(demo1ConnectionManager.getTotalStats()), routes);
+    }
+
+    @GetMapping("/load-balancer/instances")
+    public List<InstanceLoadStatistics> loadBalancerInstances() {
+        return instanceLoadTracker.statistics();
+    }
+
+    private static ConnectionPoolStatistics.Route toRoute(PoolStats stats) {
+        return new ConnectionPoolStatistics.Route(
+                stats.getLeased(), stats.getPending(), stats.getAvailable(), stats.getMax());
+    }
+}
@@ -0,0 +1,18 @@
+package com.example.demo2.dto;
+
+import java.util.Map;
+
+/**
+ * Point-in-time state of the outbound HTTP connection pool, overall and per route.
+ */
+public record ConnectionPoolStatistics(
+        Route total,
+        Map<String, Route> routes) {
+
+    public record Route(
+            int leased,
+            int pending,
+            int available,
+            int max) {
+    }
+}
@@ -0,0 +1,16 @@
+package com.example.demo2.dto;
+
+/**
+ * Counters and recent per-attempt latencies of the hedging demo1 client.
+ */
+public record Demo1ClientStatistics(
+        long calls,
+        long hedges,
+        long hedgeWins,
+        long notModified,
+        long hedgeDelayMs,
+        int latencySamples,
+        double p50Ms,
+        double p95Ms,
+        double p99Ms) {
+}
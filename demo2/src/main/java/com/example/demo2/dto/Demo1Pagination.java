@@ -0,0 +1,20 @@
+package com.example.demo2.dto;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+/**
+ * Pagination block of a demo1 user listing; offset pages fill the page fields, keyset pages {@code nextCursor}.
+ */
+@JsonIgnoreProperties(ignoreUnknown = true)
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public record Demo1Pagination(
+        Integer currentPage,
+        Long totalItems,
+        Boolean totalItemsEstimated,
+        Integer totalPages,
+        boolean hasNext,
+        Boolean hasPrevious,
+        int pageSize,
+        String nextCursor) {
+}
@@ -0,0 +1,17 @@
+package com.example.demo2.dto;
+
+import com.fasterxml.jackson.annotation.JsonFormat;
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+
+import java.time.LocalDateTime;
+
+/**
+ * A user as returned by demo1's {@code /api/users} endpoints.
+ */
+@JsonIgnoreProperties(ignoreUnknown = true)
+public record Demo1User(
+        Long id,
+        String name,
+        String email,
+        @JsonFormat(pattern = "yyyy-MM-dd HH:mm:ss") LocalDateTime createdAt) {
+}
@@ -0,0 +1,30 @@
+package com.example.demo2.dto;
+
+import com.fasterxml.jackson.annotation.JsonFormat;
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+
+/**
+ * One entry of demo1's {@code GET /api/users/changes}. {@code operation} is {@code created}, {@code updated} or
+ * {@code deleted}; a delete carries only the user id and the email it had.
+ */
+@JsonIgnoreProperties(ignoreUnknown = true)
+public record Demo1UserChange(
+        long changeId,
+        String operation,
+        Long userId,
+        String name,
+        String email,
+        @JsonFormat(pattern = "yyyy-MM-dd HH:mm:ss") LocalDateTime createdAt,
+        Instant occurredAt) {
+
+    public boolean isDelete() {
+        return "deleted".equals(operation);
+    }
+
+    public Demo1User toUser() {
+        return new Demo1User(userId, name, email, createdAt);
+    }
+}
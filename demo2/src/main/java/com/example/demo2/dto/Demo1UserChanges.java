@@ -0,0 +1,19 @@
+package com.example.demo2.dto;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+
+import java.util.List;
+
+/**
+ * A page of demo1's user changes feed, in its response envelope.
+ */
+@JsonIgnoreProperties(ignoreUnknown = true)
+public record Demo1UserChanges(
+        boolean success,
+        String message,
+        Feed data) {
+
+    @JsonIgnoreProperties(ignoreUnknown = true)
+    public record Feed(List<Demo1UserChange> changes, String nextCursor, boolean hasMore) {
+    }
+}
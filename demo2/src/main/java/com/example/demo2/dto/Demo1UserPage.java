@@ -0,0 +1,16 @@
+package com.example.demo2.dto;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+
+import java.util.List;
+
+/**
+ * One page of demo1's {@code GET /api/users}, read from either its JSON or its Smile encoding.
+ */
+@JsonIgnoreProperties(ignoreUnknown = true)
+public record Demo1UserPage(
+        boolean success,
+        String message,
+        List<Demo1User> data,
+        Demo1Pagination pagination) {
+}
@@ -0,0 +1,35 @@
+package com.example.demo2.dto;
+
+import com.fasterxml.jackson.annotation.JsonFormat;
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * A page of demo1's {@code GET /api/users/changes/snapshot}: users with the id of their latest change, and where
+ * to start reading the changes feed once all pages are loaded.
+ */
+@JsonIgnoreProperties(ignoreUnknown = true)
+public record Demo1UserSnapshot(
+        boolean success,
+        String message,
+        Page data) {
+
+    @JsonIgnoreProperties(ignoreUnknown = true)
+    public record Page(List<Entry> users, String nextCursor, boolean hasMore, String changesCursor) {
+    }
+
+    @JsonIgnoreProperties(ignoreUnknown = true)
+    public record Entry(
+            Long id,
+            String name,
+            String email,
+            @JsonFormat(pattern = "yyyy-MM-dd HH:mm:ss") LocalDateTime createdAt,
+            long changeId) {
+
+        public Demo1User toUser() {
+            return new Demo1User(id, name, email, createdAt);
+        }
+    }
+}
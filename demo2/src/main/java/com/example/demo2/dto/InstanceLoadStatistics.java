@@ -0,0 +1,14 @@
+package com.example.demo2.dto;
+
+/**
+ * Load-balancer view of one demo1 instance; latency and error rate are exponentially weighted averages.
+ */
+public record InstanceLoadStatistics(
+        String instance,
+        int inFlight,
+        long requests,
+        double latencyMs,
+        double errorRate,
+        boolean ejected,
+        long ejectedForMs) {
+}
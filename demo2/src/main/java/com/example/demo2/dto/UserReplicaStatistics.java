@@ -0,0 +1,18 @@
+package com.example.demo2.dto;
+
+import java.time.Instant;
+
+/**
+ * State of the local copy of demo1's users: whether it serves reads, its size, and how far behind the feed it is.
+ */
+public record UserReplicaStatistics(
+        boolean enabled,
+        boolean ready,
+        int users,
+        long changesApplied,
+        long changesSkipped,
+        long reloads,
+        long pollErrors,
+        Instant lastCaughtUpAt,
+        double stalenessSeconds) {
+}
@@ -0,0 +1,15 @@
+package com.example.demo2.dto;
+
+import java.util.List;
+
+/**
+ * Users merged from pages fetched in parallel from demo1, with the pages that missed the deadline.
+ */
+public record UsersGatherResult(
+        int pagesRequested,
+        int pagesReturned,
+        List<Integer> missingPages,
+        int totalUsers,
+        long elapsedMs,
+        List<Demo1User> users) {
+}
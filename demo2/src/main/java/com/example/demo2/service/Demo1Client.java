@@ -0,0 +1,459 @@
+package com.example.demo2.service;
+
+import com.example.demo2.dto.Demo1ClientStatistics;
+import com.example.demo2.dto.Demo1User;
+import com.example.demo2.dto.Demo1UserChanges;
+import com.example.demo2.dto.Demo1UserPage;
+import com.example.demo2.dto.Demo1UserSnapshot;
+import com.example.demo2.dto.UsersGatherResult;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.cloud.client.discovery.DiscoveryClient;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Service;
+import org.springframework.web.client.HttpClientErrorException;
+import org.springframework.web.client.HttpServerErrorException;
+import org.springframework.web.client.ResourceAccessException;
+import org.springframework.web.client.RestClientException;
+import org.springframework.web.client.RestTemplate;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Calls demo1 instances directly (resolved through Eureka) with hedging and parallel fan-out.
+ * <p>
+ * A hedged call goes to one instance; if it has not answered within the recent latency percentile,
+ * the same request is sent to a different instance and the first successful reply wins. Both instances are
+ * picked by {@link InstanceLoadTracker}, which steers away from slow, busy or ejected replicas. Only timeouts,
+ * I/O errors and 5xx responses are worth a second instance; any other failure, such as a 404 or 410, is the
+ * answer and goes straight to the caller.
+ * <p>
+ * GETs are conditional: the last body and entity tag per path are kept, and an unchanged resource comes back
+ * as a bodiless 304. Such bodies are shared between callers and must not be modified.
+ * <p>
+ * Responses are requested in Smile, demo1's binary encoding of the same JSON envelope, with JSON as the fallback;
+ * user pages are read into typed {@link Demo1UserPage} records rather than maps.
+ */
+@Service
+public class Demo1Client {
+
+    private static final Logger logger = LoggerFactory.getLogger(Demo1Client.class);
+    private static final int MIN_SAMPLES_FOR_PERCENTILE = 20;
+    private static final List<MediaType> SMILE_THEN_JSON =
+            MediaType.parseMediaTypes("application/x-jackson-smile, application/json;q=0.5");
+
+    private final DiscoveryClient discoveryClient;
+    private final RestTemplate restTemplate;
+    // Blocking HTTP calls; one virtual thread each
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+    private final InstanceLoadTracker loadTracker;
+    private final LatencyWindow latencies;
+    // GET path -> last body with its entity tag; demo1's tags are content-based, so valid on any instance
+    private final Cache<String, ConditionalBody> conditionalBodies;
+
+    private final AtomicLong calls = new AtomicLong();
+    private final AtomicLong hedges = new AtomicLong();
+    private final AtomicLong hedgeWins = new AtomicLong();
+    private final AtomicLong notModified = new AtomicLong();
+    private final Timer successfulCalls;
+    private final Timer failedCalls;
+    private final Counter hedgeCounter;
+    private final Counter hedgeWinCounter;
+    private final Counter notModifiedCounter;
+
+    @Value("${demo2.demo1-client.service-id:demo1-service}")
+    private String serviceId;
+
+    // Off requests plain JSON, e.g. to compare the two on the wire
+    @Value("${demo2.demo1-client.smile.enabled:true}")
+    private boolean smileEnabled;
+
+    @Value("${demo2.demo1-client.conditional.enabled:true}")
+    private boolean conditionalEnabled;
+
+    @Value("${demo2.demo1-client.hedge.enabled:true}")
+    private boolean hedgeEnabled;
+
+    // Used until enough latencies have been observed
+    @Value("${demo2.demo1-client.hedge.initial-delay-ms:100}")
+    private long initialHedgeDelayMs;
+
+    @Value("${demo2.demo1-client.hedge.min-delay-ms:10}")
+    private long minHedgeDelayMs;
+
+    // Upper bound on extra requests, as a fraction of all calls
+    @Value("${demo2.demo1-client.hedge.max-ratio:0.1}")
+    private double maxHedgeRatio;
+
+    // Larger id sets are POSTed to /api/users/batch
+    @Value("${demo2.demo1-client.batch.max-query-string-ids:100}")
+    private int maxQueryStringIds;
+
+    @Value("${demo2.demo1-client.gather.max-pages:20}")
+    private int maxGatherPages;
+
+    @Autowired
+    public Demo1Client(DiscoveryClient discoveryClient,
+                       @Qualifier("demo1DirectRestTemplate") RestTemplate restTemplate,
+                       InstanceLoadTracker loadTracker,
+                       @Value("${demo2.demo1-client.hedge.window-size:1000}") int windowSize,
+                       @Value("${demo2.demo1-client.hedge.percentile:95}") double percentile,
+                       @Value("${demo2.demo1-client.conditional.max-entries:1000}") long maxConditionalEntries,
+                       MeterRegistry meterRegistry) {
+        this.discoveryClient = discoveryClient;
+        this.restTemplate = restTemplate;
+        this.loadTracker = loadTracker;
+        this.latencies = new LatencyWindow(windowSize, percentile);
+        this.conditionalBodies = Caffeine.newBuilder().maximumSize(maxConditionalEntries).build();
+        // Logical calls including any hedge; single attempts show up in http.client.requests
+        this.successfulCalls = Timer.builder("demo2.demo1.calls").tag("outcome", "success")
+                .description("Calls from demo2 to demo1, including hedging").register(meterRegistry);
+        this.failedCalls = Timer.builder("demo2.demo1.calls").tag("outcome", "error")
+                .description("Calls from demo2 to demo1, including hedging").register(meterRegistry);
+        this.hedgeCounter = Counter.builder("demo2.demo1.hedges")
+                .description("Second requests sent to another demo1 instance").register(meterRegistry);
+        this.hedgeWinCounter = Counter.builder("demo2.demo1.hedge.wins")
+                .description("Hedged requests that answered first").register(meterRegistry);
+        this.notModifiedCounter = Counter.builder("demo2.demo1.not-modified")
+                .description("Conditional GETs answered with 304, served from the kept body").register(meterRegistry);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * GETs {@code path} from demo1, hedging to a second instance when the first is slow or fails.
+     */
+    public <T> T get(String path, Class<T> responseType) {
+        return join(getAsync(path, responseType));
+    }
+
+    public <T> CompletableFuture<T> getAsync(String path, Class<T> responseType) {
+        return hedged(path, url -> conditionalGet(path, url, responseType));
+    }
+
+    /**
+     * GETs one page of demo1's users, offset-paged.
+     */
+    public Demo1UserPage getUsersPage(int page, int size) {
+        return join(getUsersPageAsync(page, size));
+    }
+
+    public CompletableFuture<Demo1UserPage> getUsersPageAsync(int page, int size) {
+        return getAsync("/api/users?page=" + page + "&size=" + size, Demo1UserPage.class);
+    }
+
+    /**
+     * GETs the user changes committed after {@code cursor} (from the oldest kept change when null).
+     * @throws HttpClientErrorException.Gone when changes after the cursor have been purged
+     */
+    public Demo1UserChanges getUserChanges(String cursor, int limit) {
+        String after = cursor != null ? "&after=" + cursor : "";
+        return get("/api/users/changes?limit=" + limit + after, Demo1UserChanges.class);
+    }
+
+    /**
+     * GETs one keyset page of all users for seeding a replica; {@code cursor} is null for the first page.
+     */
+    public Demo1UserSnapshot getUserSnapshot(String cursor, int size) {
+        String from = cursor != null ? "&cursor=" + cursor : "";
+        return get("/api/users/changes/snapshot?size=" + size + from, Demo1UserSnapshot.class);
+    }
+
+    private <T> T conditionalGet(String path, String url, Class<T> responseType) {
+        HttpHeaders headers = requestHeaders();
+        if (!conditionalEnabled) {
+            return restTemplate.exchange(url, HttpMethod.GET, new HttpEntity<>(headers), responseType).getBody();
+        }
+        ConditionalBody cached = conditionalBodies.getIfPresent(path);
+        if (cached != null && responseType.isInstance(cached.body())) {
+            headers.setIfNoneMatch(cached.eTag());
+        } else {
+            cached = null;
+        }
+        ResponseEntity<T> response = restTemplate.exchange(url, HttpMethod.GET, new HttpEntity<>(headers), responseType);
+        if (cached != null && response.getStatusCode().isSameCodeAs(HttpStatus.NOT_MODIFIED)) {
+            notModified.incrementAndGet();
+            notModifiedCounter.increment();
+            return responseType.cast(cached.body());
+        }
+        String eTag = response.getHeaders().getETag();
+        if (eTag != null && response.getBody() != null) {
+            conditionalBodies.put(path, new ConditionalBody(eTag, response.getBody()));
+        }
+        return response.getBody();
+    }
+
+    // The response converter is picked by Content-Type, so a demo1 that only speaks JSON still works
+    private HttpHeaders requestHeaders() {
+        HttpHeaders headers = new HttpHeaders();
+        headers.setAccept(smileEnabled ? SMILE_THEN_JSON : List.of(MediaType.APPLICATION_JSON));
+        return headers;
+    }
+
+    /**
+     * Looks up users by id with one call to {@code /api/users/batch}: a GET for small sets, a POST when the
+     * ids would not fit comfortably in a query string. The lookup is read-only, so it is hedged like a GET.
+     */
+    @SuppressWarnings("unchecked")
+    public Map<String, Object> getUsersByIds(Collection<Long> ids) {
+        if (ids.isEmpty()) {
+            throw new IllegalArgumentException("At least one id is required");
+        }
+        if (ids.size() <= maxQueryStringIds) {
+            String joined = ids.stream().map(String::valueOf).collect(Collectors.joining(","));
+            return get("/api/users/batch?ids=" + joined, Map.class);
+        }
+        HttpEntity<Map<String, Object>> request = new HttpEntity<>(Map.of("ids", List.copyOf(ids)), requestHeaders());
+        return join(hedged("/api/users/batch", url -> restTemplate.postForObject(url, request, Map.class)));
+    }
+
+    private <T> CompletableFuture<T> hedged(String path, Function<String, T> exchange) {
+        List<ServiceInstance> instances = discoveryClient.getInstances(serviceId);
+        if (instances.isEmpty()) {
+            return CompletableFuture.failedFuture(
+                    new RestClientException("No instances of " + serviceId + " registered"));
+        }
+        calls.incrementAndGet();
+        long started = System.nanoTime();
+        return new HedgedCall<>(instances, path, exchange).start().whenComplete((body, error) ->
+                (error == null ? successfulCalls : failedCalls).record(System.nanoTime() - started, TimeUnit.NANOSECONDS));
+    }
+
+    private <T> T join(CompletableFuture<T> call) {
+        try {
+            return call.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw new RestClientException("Call to " + serviceId + " failed", e.getCause());
+        }
+    }
+
+    /**
+     * Fetches pages {@code 0..pages-1} of {@code /api/users} in parallel, spread across instances, and merges them
+     * in page order. Pages that do not arrive within {@code deadlineMs} are reported as missing.
+     */
+    public UsersGatherResult gatherUsers(int pages, int size, long deadlineMs) {
+        if (pages < 1 || pages > maxGatherPages) {
+            throw new IllegalArgumentException("pages must be between 1 and " + maxGatherPages);
+        }
+        long started = System.nanoTime();
+        List<CompletableFuture<Demo1UserPage>> futures = new ArrayList<>(pages);
+        for (int page = 0; page < pages; page++) {
+            futures.add(getUsersPageAsync(page, size));
+        }
+
+        try {
+            CompletableFuture.allOf(futures.toArray(CompletableFuture[]::new)).get(deadlineMs, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (Exception e) {
+            // Timeout or a failed page; whatever completed successfully is still merged below
+            logger.debug("Gather of {} pages incomplete: {}", pages, e.toString());
+        }
+
+        List<Demo1User> users = new ArrayList<>();
+        List<Integer> missingPages = new ArrayList<>();
+        for (int page = 0; page < pages; page++) {
+            CompletableFuture<Demo1UserPage> future = futures.get(page);
+            if (future.isDone() && !future.isCompletedExceptionally() && future.join() != null) {
+                List<Demo1User> data = future.join().data();
+                if (data != null) {
+                    users.addAll(data);
+                }
+            } else {
+                future.cancel(false);
+                missingPages.add(page);
+            }
+        }
+        long elapsedMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started);
+        if (!missingPages.isEmpty()) {
+            logger.warn("Gather returned {} of {} pages within {} ms, missing: {}",
+                    pages - missingPages.size(), pages, deadlineMs, missingPages);
+        }
+        return new UsersGatherResult(pages, pages - missingPages.size(), missingPages, users.size(), elapsedMs, users);
+    }
+
+    public Demo1ClientStatistics statistics() {
+        return new Demo1ClientStatistics(
+                calls.get(),
+                hedges.get(),
+                hedgeWins.get(),
+                notModified.get(),
+                currentHedgeDelayMs(),
+                latencies.size(),
+                microsToMillis(latencies.percentile(50)),
+                microsToMillis(latencies.percentile(95)),
+                microsToMillis(latencies.percentile(99)));
+    }
+
+    long currentHedgeDelayMs() {
+        long percentileMicros = latencies.currentMicros();
+        if (percentileMicros < 0 || latencies.size() < MIN_SAMPLES_FOR_PERCENTILE) {
+            return initialHedgeDelayMs;
+        }
+        return Math.max(minHedgeDelayMs, TimeUnit.MICROSECONDS.toMillis(percentileMicros));
+    }
+
+    private boolean hedgeBudgetAvailable() {
+        return hedges.get() < Math.max(1, calls.get() * maxHedgeRatio);
+    }
+
+    private static double microsToMillis(long micros) {
+        return micros < 0 ? 0 : micros / 1000.0;
+    }
+
+    private record ConditionalBody(String eTag, Object body) {
+    }
+
+    /**
+     * One logical request: a primary attempt and at most one hedge to another instance.
+     */
+    private final class HedgedCall<T> {
+
+        private final List<ServiceInstance> instances;
+        private final String path;
+        private final Function<String, T> exchange;
+        private final CompletableFuture<T> result = new CompletableFuture<>();
+        private final ServiceInstance primary;
+        // Guards outstanding and hedged; attempts complete on different threads
+        private final ReentrantLock lock = new ReentrantLock();
+        private int outstanding;
+        private boolean hedged;
+
+        HedgedCall(List<ServiceInstance> instances, String path, Function<String, T> exchange) {
+            this.instances = instances;
+            this.path = path;
+            this.exchange = exchange;
+            this.primary = loadTracker.choose(instances);
+        }
+
+        CompletableFuture<T> start() {
+            launch(primary, false);
+            if (canHedge()) {
+                CompletableFuture.delayedExecutor(currentHedgeDelayMs(), TimeUnit.MILLISECONDS, executor)
+                        .execute(this::hedge);
+            }
+            return result;
+        }
+
+        private boolean canHedge() {
+            return hedgeEnabled && instances.size() > 1;
+        }
+
+        private void hedge() {
+            lock.lock();
+            try {
+                if (hedged || result.isDone() || !hedgeBudgetAvailable()) {
+                    return;
+                }
+                hedged = true;
+            } finally {
+                lock.unlock();
+            }
+            hedges.incrementAndGet();
+            hedgeCounter.increment();
+            ServiceInstance other = loadTracker.choose(instances, primary);
+            logger.debug("Hedging {} to {}:{}", path, other.getHost(), other.getPort());
+            launch(other, true);
+        }
+
+        private void launch(ServiceInstance instance, boolean isHedge) {
+            lock.lock();
+            try {
+                outstanding++;
+            } finally {
+                lock.unlock();
+            }
+            String url = instance.getUri() + path;
+            CompletableFuture.supplyAsync(() -> {
+                loadTracker.begin(instance);
+                long started = System.nanoTime();
+                boolean healthy = false;
+                try {
+                    T body = exchange.apply(url);
+                    healthy = true;
+                    latencies.record(TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - started));
+                    return body;
+                } catch (HttpClientErrorException e) {
+                    // The instance answered; a 4xx says nothing about its health
+                    healthy = true;
+                    throw e;
+                } finally {
+                    loadTracker.complete(instance, System.nanoTime() - started, healthy);
+                }
+            }, executor).whenComplete((body, error) -> onAttemptComplete(body, error, isHedge));
+        }
+
+        private void onAttemptComplete(T body, Throwable error, boolean isHedge) {
+            if (error == null) {
+                if (result.complete(body) && isHedge) {
+                    hedgeWins.incrementAndGet();
+                    hedgeWinCounter.increment();
+                }
+                return;
+            }
+            Throwable cause = error instanceof CompletionException ? error.getCause() : error;
+            boolean retryable = isRetryable(cause);
+            boolean failNow;
+            lock.lock();
+            try {
+                outstanding--;
+                // A failed primary is retried on another instance right away instead of waiting for the delay
+                failNow = !retryable || (outstanding == 0 && (hedged || !canHedge()));
+            } finally {
+                lock.unlock();
+            }
+            if (failNow) {
+                result.completeExceptionally(cause);
+            } else if (!isHedge) {
+                hedge();
+                lock.lock();
+                try {
+                    if (outstanding == 0 && !hedged) {
+                        // Hedge budget exhausted; nothing else in flight
+                        result.completeExceptionally(cause);
+                    }
+                } finally {
+                    lock.unlock();
+                }
+            }
+        }
+    }
+
+    // Timeouts and I/O errors surface as ResourceAccessException; another instance may well answer those
+    private static boolean isRetryable(Throwable error) {
+        return error instanceof ResourceAccessException || error instanceof HttpServerErrorException;
+    }
+}
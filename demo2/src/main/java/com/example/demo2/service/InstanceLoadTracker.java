@@ -0,0 +1,271 @@
+package com.example.demo2.service;
+
+import com.example.demo2.dto.InstanceLoadStatistics;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Per-instance load of the demo1 instances we call: requests in flight, an exponentially weighted latency
+ * and error rate, and whether the instance is currently ejected.
+ * <p>
+ * {@link #choose} picks by power-of-two-choices: two random healthy instances are compared on
+ * latency &times; (in-flight + 1) and the cheaper one wins, so a slow or backed-up replica gets less traffic
+ * without every caller piling onto the same fastest one. An instance without recent samples, because it is new,
+ * idle or just back from ejection, is assumed to be as fast as the median of its peers rather than infinitely
+ * fast, so it is not flooded before its first replies come in. Used by the {@code @LoadBalanced} RestTemplate and by
+ * {@link Demo1Client} for its primary and hedge attempts.
+ */
+@Component
+public class InstanceLoadTracker implements MeterBinder {
+
+    private static final Logger logger = LoggerFactory.getLogger(InstanceLoadTracker.class);
+
+    private final Map<String, InstanceStats> stats = new ConcurrentHashMap<>();
+    private final AtomicInteger nextInstance = new AtomicInteger();
+    private final AtomicLong ejections = new AtomicLong();
+
+    // Off falls back to plain round robin
+    @Value("${demo2.load-balancer.latency-aware:true}")
+    private boolean latencyAware;
+
+    // Weight of each new sample in the latency and error averages
+    @Value("${demo2.load-balancer.ewma-alpha:0.1}")
+    private double alpha;
+
+    // An instance that has not been called for this long is scored afresh, so a once-slow replica is retried
+    @Value("${demo2.load-balancer.stale-after-ms:10000}")
+    private long staleAfterMs;
+
+    @Value("${demo2.load-balancer.ejection.min-requests:10}")
+    private long minRequests;
+
+    @Value("${demo2.load-balancer.ejection.error-rate:0.5}")
+    private double errorRateThreshold;
+
+    @Value("${demo2.load-balancer.ejection.latency-ms:2000}")
+    private long latencyThresholdMs;
+
+    @Value("${demo2.load-balancer.ejection.duration-ms:30000}")
+    private long ejectionMs;
+
+    public ServiceInstance choose(List<ServiceInstance> instances) {
+        return choose(instances, null);
+    }
+
+    /**
+     * Picks one of {@code instances}, avoiding {@code excluded} when there is any other choice.
+     */
+    public ServiceInstance choose(List<ServiceInstance> instances, ServiceInstance excluded) {
+        if (instances.isEmpty()) {
+            return null;
+        }
+        List<ServiceInstance> candidates = instances;
+        if (excluded != null && instances.size() > 1) {
+            String excludedKey = key(excluded);
+            candidates = instances.stream().filter(instance -> !key(instance).equals(excludedKey)).toList();
+        }
+        if (!latencyAware) {
+            return candidates.get(Math.floorMod(nextInstance.getAndIncrement(), candidates.size()));
+        }
+
+        long now = System.nanoTime();
+        List<ServiceInstance> healthy = new ArrayList<>(candidates.size());
+        for (ServiceInstance instance : candidates) {
+            if (!statsFor(instance).isEjected(now)) {
+                healthy.add(instance);
+            }
+        }
+        if (healthy.isEmpty()) {
+            // Every candidate is ejected; sending traffic somewhere beats failing every call
+            healthy = candidates;
+        }
+        if (healthy.size() == 1) {
+            return healthy.get(0);
+        }
+
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        int first = random.nextInt(healthy.size());
+        int second = random.nextInt(healthy.size() - 1);
+        if (second >= first) {
+            second++;
+        }
+        ServiceInstance a = healthy.get(first);
+        ServiceInstance b = healthy.get(second);
+        double priorNanos = medianLatencyNanos(healthy, now);
+        return statsFor(b).cost(now, priorNanos) < statsFor(a).cost(now, priorNanos) ? b : a;
+    }
+
+    /**
+     * Marks a request to {@code instance} as started; pair with {@link #complete}.
+     */
+    public void begin(ServiceInstance instance) {
+        statsFor(instance).inFlight.incrementAndGet();
+    }
+
+    /**
+     * Records a finished request. Failures are connection errors, timeouts and 5xx responses.
+     */
+    public void complete(ServiceInstance instance, long latencyNanos, boolean success) {
+        InstanceStats instanceStats = statsFor(instance);
+        instanceStats.inFlight.decrementAndGet();
+        if (instanceStats.record(latencyNanos, success, System.nanoTime())) {
+            ejections.incrementAndGet();
+        }
+    }
+
+    public List<InstanceLoadStatistics> statistics() {
+        long now = System.nanoTime();
+        return stats.entrySet().stream()
+                .sorted(Map.Entry.comparingByKey(Comparator.naturalOrder()))
+                .map(entry -> entry.getValue().snapshot(entry.getKey(), now))
+                .toList();
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        FunctionCounter.builder("demo2.loadbalancer.ejections", ejections, AtomicLong::get)
+                .description("demo1 instances taken out of rotation for errors or latency")
+                .register(registry);
+        Gauge.builder("demo2.loadbalancer.ejected", stats, this::countEjected)
+                .description("demo1 instances currently out of rotation")
+                .register(registry);
+    }
+
+    // 0 when no instance has samples yet: then in-flight counts alone decide
+    private double medianLatencyNanos(List<ServiceInstance> instances, long now) {
+        double[] latencies = new double[instances.size()];
+        int sampled = 0;
+        for (ServiceInstance instance : instances) {
+            double latency = statsFor(instance).sampledLatencyNanos(now);
+            if (latency >= 0) {
+                latencies[sampled++] = latency;
+            }
+        }
+        if (sampled == 0) {
+            return 0;
+        }
+        Arrays.sort(latencies, 0, sampled);
+        return sampled % 2 == 1 ? latencies[sampled / 2]
+                : (latencies[sampled / 2 - 1] + latencies[sampled / 2]) / 2;
+    }
+
+    private int countEjected(Map<String, InstanceStats> all) {
+        long now = System.nanoTime();
+        return (int) all.values().stream().filter(instanceStats -> instanceStats.isEjected(now)).count();
+    }
+
+    private InstanceStats statsFor(ServiceInstance instance) {
+        return stats.computeIfAbsent(key(instance), InstanceStats::new);
+    }
+
+    // Eureka instance ids are not guaranteed across discovery clients; host and port are
+    private static String key(ServiceInstance instance) {
+        return instance.getHost() + ":" + instance.getPort();
+    }
+
+    private final class InstanceStats {
+
+        private final String key;
+        private final AtomicInteger inFlight = new AtomicInteger();
+        // Guarded by this; updates are a few arithmetic operations, so a monitor is cheap
+        private double latencyNanos;
+        private double errorRate;
+        private long requests;
+        private long lastSampleNanos;
+        private long ejectedUntilNanos;
+
+        InstanceStats(String key) {
+            this.key = key;
+        }
+
+        synchronized boolean isEjected(long now) {
+            if (ejectedUntilNanos == 0) {
+                return false;
+            }
+            if (now - ejectedUntilNanos < 0) {
+                return true;
+            }
+            // Back in rotation with a clean slate; it is ejected again quickly if still unhealthy
+            logger.info("demo1 instance {} returned to rotation", key);
+            ejectedUntilNanos = 0;
+            reset();
+            return false;
+        }
+
+        // -1 without recent samples
+        synchronized double sampledLatencyNanos(long now) {
+            resetIfStale(now);
+            return requests > 0 ? latencyNanos : -1;
+        }
+
+        synchronized double cost(long now, double priorNanos) {
+            resetIfStale(now);
+            double latency = requests > 0 ? latencyNanos : priorNanos;
+            // +1 µs keeps in-flight counts meaningful when no instance has samples yet
+            return (latency / 1000.0 + 1) * (inFlight.get() + 1);
+        }
+
+        // Returns true when this sample got the instance ejected
+        synchronized boolean record(long sampleNanos, boolean success, long now) {
+            if (requests == 0) {
+                latencyNanos = sampleNanos;
+                errorRate = success ? 0 : 1;
+            } else {
+                latencyNanos += alpha * (sampleNanos - latencyNanos);
+                errorRate += alpha * ((success ? 0 : 1) - errorRate);
+            }
+            requests++;
+            lastSampleNanos = now;
+
+            if (ejectedUntilNanos != 0 || requests < minRequests) {
+                return false;
+            }
+            boolean tooManyErrors = errorRate >= errorRateThreshold;
+            boolean tooSlow = latencyNanos >= TimeUnit.MILLISECONDS.toNanos(latencyThresholdMs);
+            if (!tooManyErrors && !tooSlow) {
+                return false;
+            }
+            ejectedUntilNanos = now + TimeUnit.MILLISECONDS.toNanos(ejectionMs);
+            logger.warn("Ejecting demo1 instance {} for {} ms: error rate {}, latency {} ms",
+                    key, ejectionMs, String.format("%.2f", errorRate), String.format("%.1f", latencyNanos / 1e6));
+            return true;
+        }
+
+        private void resetIfStale(long now) {
+            if (requests > 0 && now - lastSampleNanos > TimeUnit.MILLISECONDS.toNanos(staleAfterMs)) {
+                reset();
+            }
+        }
+
+        private void reset() {
+            latencyNanos = 0;
+            errorRate = 0;
+            requests = 0;
+        }
+
+        synchronized InstanceLoadStatistics snapshot(String instance, long now) {
+            long ejectedForMs = ejectedUntilNanos != 0 && now - ejectedUntilNanos < 0
+                    ? TimeUnit.NANOSECONDS.toMillis(ejectedUntilNanos - now) : 0;
+            return new InstanceLoadStatistics(instance, inFlight.get(), requests, latencyNanos / 1e6, errorRate,
+                    ejectedForMs > 0, ejectedForMs);
+        }
+    }
+}
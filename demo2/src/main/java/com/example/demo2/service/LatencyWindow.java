@@ -0,0 +1,54 @@
+package com.example.demo2.service;
+
+import java.util.Arrays;
+
+/**
+ * Fixed-size ring of the most recent call latencies, used to derive the hedging delay.
+ */
+class LatencyWindow {
+
+    // Re-sorting on every call would cost more than the calls being measured
+    private static final int RECOMPUTE_EVERY = 32;
+
+    private final long[] samplesMicros;
+    private final double percentile;
+    private int next;
+    private int size;
+    private long recorded;
+    private volatile long percentileMicros = -1;
+
+    LatencyWindow(int capacity, double percentile) {
+        this.samplesMicros = new long[capacity];
+        this.percentile = percentile;
+    }
+
+    synchronized void record(long latencyMicros) {
+        samplesMicros[next] = latencyMicros;
+        next = (next + 1) % samplesMicros.length;
+        size = Math.min(size + 1, samplesMicros.length);
+        if (++recorded % RECOMPUTE_EVERY == 0) {
+            percentileMicros = percentile(percentile);
+        }
+    }
+
+    /**
+     * @return the configured percentile as of the last recompute, or -1 until enough samples were seen
+     */
+    long currentMicros() {
+        return percentileMicros;
+    }
+
+    synchronized long percentile(double p) {
+        if (size == 0) {
+            return -1;
+        }
+        long[] sorted = Arrays.copyOf(samplesMicros, size);
+        Arrays.sort(sorted);
+        int index = (int) Math.ceil(p / 100.0 * size) - 1;
+        return sorted[Math.max(0, Math.min(index, size - 1))];
+    }
+
+    synchronized int size() {
+        return size;
+    }
+}
@@ -0,0 +1,62 @@
+package com.example.demo2.service;
+
+import com.example.demo2.dto.Demo1User;
+import com.example.demo2.dto.Demo1UserPage;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Service;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+
+/**
+ * Calls demo1 (or demo1-reactive, which serves the same API) through the load-balanced WebClient, holding no
+ * thread while a response is outstanding.
+ * <p>
+ * Unlike {@link Demo1Client} there is no hedging and no conditional GET: one request per call, to the instance
+ * the load balancer picks.
+ */
+@Service
+public class ReactiveDemo1Client {
+
+    private static final List<MediaType> SMILE_THEN_JSON =
+            MediaType.parseMediaTypes("application/x-jackson-smile, application/json;q=0.5");
+
+    private final WebClient webClient;
+
+    @Value("${demo2.demo1-client.smile.enabled:true}")
+    private boolean smileEnabled;
+
+    @Autowired
+    public ReactiveDemo1Client(@Qualifier("demo1WebClient") WebClient webClient) {
+        this.webClient = webClient;
+    }
+
+    /**
+     * GETs one page of demo1's users, offset-paged.
+     */
+    public Mono<Demo1UserPage> getUsersPage(int page, int size) {
+        return webClient.get()
+                .uri("/api/users?page={page}&size={size}", page, size)
+                .accept(smileEnabled ? SMILE_THEN_JSON.toArray(new MediaType[0])
+                        : new MediaType[]{MediaType.APPLICATION_JSON})
+                .retrieve()
+                .bodyToMono(Demo1UserPage.class);
+    }
+
+    /**
+     * Every user, decoded line by line from demo1's NDJSON export. Rows are read from the connection only as
+     * fast as the subscriber requests them, and cancelling closes the connection, which stops demo1's query.
+     */
+    public Flux<Demo1User> streamUsers() {
+        return webClient.get()
+                .uri("/api/users/export?format=ndjson")
+                .accept(MediaType.APPLICATION_NDJSON)
+                .retrieve()
+                .bodyToFlux(Demo1User.class);
+    }
+}
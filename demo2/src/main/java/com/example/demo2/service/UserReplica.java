@@ -0,0 +1,363 @@
+package com.example.demo2.service;
+
+import com.example.demo2.dto.Demo1User;
+import com.example.demo2.dto.Demo1UserChange;
+import com.example.demo2.dto.Demo1UserChanges;
+import com.example.demo2.dto.Demo1UserSnapshot;
+import com.example.demo2.dto.UserReplicaStatistics;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.init.DatabasePopulatorUtils;
+import org.springframework.jdbc.datasource.init.ResourceDatabasePopulator;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.client.HttpClientErrorException;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Local copy of demo1's users, so demo2 reads them without calling demo1.
+ * <p>
+ * The copy is kept in {@code replica.users} in demo2's own database and, for reads, in memory. It is seeded from
+ * demo1's snapshot endpoint and then follows demo1's outbox feed ({@code GET /api/users/changes}) from a cursor that
+ * is stored in the same transaction as the changes it covers; after a restart or an outage the feed resumes from
+ * there. A change is applied only over an older one for the same user, since the feed may deliver two changes to a
+ * user out of order. When demo1 has purged changes the replica has not seen yet, it reloads from a new snapshot,
+ * serving the old copy meanwhile.
+ */
+@Service
+public class UserReplica implements MeterBinder {
+
+    private static final Logger logger = LoggerFactory.getLogger(UserReplica.class);
+    private static final String SCRIPT = "db/user-replica.sql";
+
+    private static final String UPSERT_SQL = """
+            INSERT INTO replica.users (id, name, email, created_at, change_id, deleted) VALUES (?, ?, ?, ?, ?, ?)
+            ON CONFLICT (id) DO UPDATE SET name = EXCLUDED.name, email = EXCLUDED.email,
+                created_at = EXCLUDED.created_at, change_id = EXCLUDED.change_id, deleted = EXCLUDED.deleted
+            WHERE replica.users.change_id < EXCLUDED.change_id""";
+
+    private static final String SAVE_CURSOR_SQL = """
+            INSERT INTO replica.feed_position (singleton, cursor, updated_at) VALUES (true, ?, now())
+            ON CONFLICT (singleton) DO UPDATE SET cursor = EXCLUDED.cursor, updated_at = EXCLUDED.updated_at""";
+
+    private final Demo1Client demo1Client;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+
+    // Replaced as a whole after a reload; readers always see one consistent copy
+    private volatile Index index = new Index();
+    private volatile boolean ready;
+    private volatile String cursor;
+    private volatile long lastCaughtUpNanos;
+    private volatile Instant lastCaughtUpAt;
+    private volatile Thread follower;
+    private volatile Timer propagationTimer;
+
+    private final AtomicLong applied = new AtomicLong();
+    private final AtomicLong skipped = new AtomicLong();
+    private final AtomicLong reloads = new AtomicLong();
+    private final AtomicLong pollErrors = new AtomicLong();
+
+    @Value("${demo2.user-replica.enabled:true}")
+    private boolean enabled;
+
+    @Value("${demo2.user-replica.create-table:true}")
+    private boolean createTable;
+
+    // Wait between polls once the feed is caught up; a backlog is read without pause
+    @Value("${demo2.user-replica.poll-interval-ms:1000}")
+    private long pollIntervalMs;
+
+    @Value("${demo2.user-replica.batch-size:500}")
+    private int batchSize;
+
+    @Value("${demo2.user-replica.snapshot-page-size:1000}")
+    private int snapshotPageSize;
+
+    // Upper bound of the doubling wait after failed polls
+    @Value("${demo2.user-replica.max-backoff-ms:30000}")
+    private long maxBackoffMs;
+
+    @Autowired
+    public UserReplica(Demo1Client demo1Client,
+                       @Qualifier("renderJdbcTemplate") JdbcTemplate jdbcTemplate,
+                       PlatformTransactionManager transactionManager) {
+        this.demo1Client = demo1Client;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        if (!enabled) {
+            return;
+        }
+        Thread thread = new Thread(this::follow, "user-replica");
+        thread.setDaemon(true);
+        follower = thread;
+        thread.start();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        Thread thread = follower;
+        follower = null;
+        if (thread != null) {
+            thread.interrupt();
+        }
+    }
+
+    /**
+     * True once a complete copy has been loaded; reads may lag demo1 by the staleness reported in
+     * {@link #statistics()}.
+     */
+    public boolean isReady() {
+        return ready;
+    }
+
+    public Optional<Demo1User> findById(long id) {
+        return Optional.ofNullable(index.byId.get(id));
+    }
+
+    public Optional<Demo1User> findByEmail(String email) {
+        Long id = index.idsByEmail.get(email);
+        return id != null ? findById(id) : Optional.empty();
+    }
+
+    /**
+     * Up to {@code size} users with ids above {@code afterId}, in id order.
+     */
+    public List<Demo1User> usersAfter(long afterId, int size) {
+        List<Demo1User> page = new ArrayList<>(Math.min(size, 1000));
+        for (Demo1User user : index.byId.tailMap(afterId, false).values()) {
+            if (page.size() >= size) {
+                break;
+            }
+            page.add(user);
+        }
+        return page;
+    }
+
+    public int size() {
+        return index.byId.size();
+    }
+
+    public UserReplicaStatistics statistics() {
+        return new UserReplicaStatistics(enabled, ready, size(), applied.get(), skipped.get(), reloads.get(),
+                pollErrors.get(), lastCaughtUpAt, stalenessSeconds());
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("demo2.users.replica.size", this, UserReplica::size)
+                .description("Users in the local replica").register(registry);
+        Gauge.builder("demo2.users.replica.staleness", this, UserReplica::stalenessSeconds)
+                .description("Seconds since the replica last caught up with demo1's changes feed")
+                .baseUnit("seconds").register(registry);
+        FunctionCounter.builder("demo2.users.replica.changes", applied, AtomicLong::get).tag("outcome", "applied")
+                .description("Changes read from demo1's feed").register(registry);
+        FunctionCounter.builder("demo2.users.replica.changes", skipped, AtomicLong::get).tag("outcome", "skipped")
+                .description("Changes read from demo1's feed").register(registry);
+        FunctionCounter.builder("demo2.users.replica.reloads", reloads, AtomicLong::get)
+                .description("Full reloads from demo1's snapshot").register(registry);
+        FunctionCounter.builder("demo2.users.replica.poll.errors", pollErrors, AtomicLong::get)
+                .description("Failed reads of demo1's changes feed").register(registry);
+        propagationTimer = Timer.builder("demo2.users.replica.lag")
+                .description("Time from a change committing in demo1 to it being applied here")
+                .register(registry);
+    }
+
+    double stalenessSeconds() {
+        long caughtUp = lastCaughtUpNanos;
+        return caughtUp == 0 ? Double.NaN : (System.nanoTime() - caughtUp) / 1e9;
+    }
+
+    private void follow() {
+        long backoffMs = pollIntervalMs;
+        try {
+            load();
+            while (follower != null) {
+                try {
+                    if (cursor == null) {
+                        reload();
+                    }
+                    boolean hasMore = poll();
+                    backoffMs = pollIntervalMs;
+                    if (!hasMore) {
+                        Thread.sleep(pollIntervalMs);
+                    }
+                } catch (HttpClientErrorException.Gone e) {
+                    logger.warn("User replica fell behind demo1's change retention, reloading");
+                    cursor = null;
+                } catch (RuntimeException e) {
+                    pollErrors.incrementAndGet();
+                    logger.warn("User replica could not follow demo1, retrying in {} ms: {}", backoffMs, e.getMessage());
+                    Thread.sleep(backoffMs);
+                    backoffMs = Math.min(backoffMs * 2, maxBackoffMs);
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (RuntimeException e) {
+            // Only load() gets here; demo2 keeps calling demo1 directly
+            logger.error("User replica disabled, could not open {}: {}", SCRIPT, e.getMessage(), e);
+        }
+    }
+
+    // Restores the copy kept from the previous run; without a stored cursor the first poll reloads instead
+    void load() {
+        if (createTable) {
+            DatabasePopulatorUtils.execute(new ResourceDatabasePopulator(new ClassPathResource(SCRIPT)),
+                    jdbcTemplate.getDataSource());
+        }
+        List<String> stored = jdbcTemplate.queryForList("SELECT cursor FROM replica.feed_position", String.class);
+        if (stored.isEmpty()) {
+            return;
+        }
+        Index loaded = new Index();
+        jdbcTemplate.query("SELECT id, name, email, created_at FROM replica.users WHERE NOT deleted",
+                resultSet -> {
+                    Timestamp createdAt = resultSet.getTimestamp("created_at");
+                    loaded.put(new Demo1User(resultSet.getLong("id"), resultSet.getString("name"),
+                            resultSet.getString("email"), createdAt != null ? createdAt.toLocalDateTime() : null));
+                });
+        index = loaded;
+        cursor = stored.get(0);
+        ready = true;
+        logger.info("User replica loaded {} users, resuming demo1's changes feed", loaded.byId.size());
+    }
+
+    void reload() {
+        long started = System.nanoTime();
+        Index loaded = new Index();
+        Demo1UserSnapshot.Page page = demo1Client.getUserSnapshot(null, snapshotPageSize).data();
+        // Changes from here on are replayed over the snapshot; those it already contains are skipped or rewritten
+        String changesCursor = page.changesCursor();
+        transactionTemplate.executeWithoutResult(status -> {
+            jdbcTemplate.update("DELETE FROM replica.feed_position");
+            jdbcTemplate.update("TRUNCATE replica.users");
+        });
+        while (true) {
+            List<Object[]> rows = new ArrayList<>(page.users().size());
+            for (Demo1UserSnapshot.Entry entry : page.users()) {
+                rows.add(new Object[]{entry.id(), entry.name(), entry.email(), timestamp(entry.createdAt()),
+                        entry.changeId(), false});
+                loaded.put(entry.toUser());
+            }
+            jdbcTemplate.batchUpdate(UPSERT_SQL, rows);
+            if (!page.hasMore()) {
+                break;
+            }
+            page = demo1Client.getUserSnapshot(page.nextCursor(), snapshotPageSize).data();
+        }
+        jdbcTemplate.update(SAVE_CURSOR_SQL, changesCursor);
+        index = loaded;
+        cursor = changesCursor;
+        ready = true;
+        reloads.incrementAndGet();
+        logger.info("User replica reloaded {} users from demo1 in {} ms", loaded.byId.size(),
+                TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started));
+    }
+
+    // Applies one page of changes; true when the feed has more right away
+    boolean poll() {
+        Demo1UserChanges.Feed feed = demo1Client.getUserChanges(cursor, batchSize).data();
+        List<Demo1UserChange> changes = feed.changes();
+        if (!changes.isEmpty()) {
+            List<Object[]> rows = new ArrayList<>(changes.size());
+            for (Demo1UserChange change : changes) {
+                rows.add(new Object[]{change.userId(), change.name(), change.email(), timestamp(change.createdAt()),
+                        change.changeId(), change.isDelete()});
+            }
+            int[] counts = transactionTemplate.execute(status -> {
+                int[] updated = jdbcTemplate.batchUpdate(UPSERT_SQL, rows);
+                jdbcTemplate.update(SAVE_CURSOR_SQL, feed.nextCursor());
+                return updated;
+            });
+
+            Instant now = Instant.now();
+            Index current = index;
+            for (int i = 0; i < changes.size(); i++) {
+                Demo1UserChange change = changes.get(i);
+                // 0 rows: an equal or newer change to this user is already applied
+                if (counts[i] == 0) {
+                    skipped.incrementAndGet();
+                    continue;
+                }
+                if (change.isDelete()) {
+                    current.remove(change.userId());
+                } else {
+                    current.put(change.toUser());
+                }
+                applied.incrementAndGet();
+                Timer timer = propagationTimer;
+                if (timer != null && change.occurredAt() != null) {
+                    timer.record(Duration.between(change.occurredAt(), now).abs());
+                }
+            }
+        }
+        cursor = feed.nextCursor();
+        if (!feed.hasMore()) {
+            lastCaughtUpNanos = System.nanoTime();
+            lastCaughtUpAt = Instant.now();
+        }
+        return feed.hasMore();
+    }
+
+    private static Timestamp timestamp(LocalDateTime value) {
+        return value != null ? Timestamp.valueOf(value) : null;
+    }
+
+    /**
+     * Users by id, in id order for paging, and ids by email. Only the follower thread writes.
+     */
+    private static final class Index {
+
+        private final NavigableMap<Long, Demo1User> byId = new ConcurrentSkipListMap<>();
+        private final Map<String, Long> idsByEmail = new ConcurrentHashMap<>();
+
+        void put(Demo1User user) {
+            Demo1User previous = byId.put(user.id(), user);
+            if (previous != null && previous.email() != null && !previous.email().equals(user.email())) {
+                idsByEmail.remove(previous.email(), user.id());
+            }
+            if (user.email() != null) {
+                idsByEmail.put(user.email(), user.id());
+            }
+        }
+
+        void remove(Long id) {
+            Demo1User previous = byId.remove(id);
+            if (previous != null && previous.email() != null) {
+                idsByEmail.remove(previous.email(), id);
+            }
+        }
+    }
+}
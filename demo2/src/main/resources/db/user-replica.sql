@@ -0,0 +1,18 @@
+-- demo2's copy of demo1's users, kept by UserReplica from demo1's changes feed. Deleted users stay as tombstones
+-- so that an older change replayed from the feed cannot bring them back. Idempotent.
+CREATE SCHEMA IF NOT EXISTS replica;
+CREATE TABLE IF NOT EXISTS replica.users (
+    id         bigint PRIMARY KEY,
+    name       varchar(255),
+    email      varchar(255),
+    created_at timestamp,
+    change_id  bigint NOT NULL,
+    deleted    boolean NOT NULL DEFAULT false
+);
+
+-- Where to resume demo1's feed; written in the same transaction as the changes it covers
+CREATE TABLE IF NOT EXISTS replica.feed_position (
+    singleton  boolean PRIMARY KEY DEFAULT true CHECK (singleton),
+    cursor     text NOT NULL,
+    updated_at timestamptz NOT NULL
+);
@@ -0,0 +1,149 @@
+package com.example.demo2.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.cloud.client.DefaultServiceInstance;
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.cloud.client.discovery.DiscoveryClient;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.client.HttpClientErrorException;
+import org.springframework.web.client.HttpServerErrorException;
+import org.springframework.web.client.ResourceAccessException;
+import org.springframework.web.client.RestTemplate;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class Demo1ClientTest {
+
+    private final DiscoveryClient discoveryClient = mock(DiscoveryClient.class);
+    private final RestTemplate restTemplate = mock(RestTemplate.class);
+    private final List<String> calledUrls = Collections.synchronizedList(new ArrayList<>());
+    private Demo1Client client;
+
+    @BeforeEach
+    void setUp() {
+        when(discoveryClient.getInstances("demo1-service")).thenReturn(List.of(instance("a"), instance("b")));
+        InstanceLoadTracker loadTracker = new InstanceLoadTracker();
+        ReflectionTestUtils.setField(loadTracker, "latencyAware", false);
+        client = new Demo1Client(discoveryClient, restTemplate, loadTracker, 100, 95, 100, new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(client, "serviceId", "demo1-service");
+        ReflectionTestUtils.setField(client, "conditionalEnabled", false);
+        ReflectionTestUtils.setField(client, "hedgeEnabled", true);
+        ReflectionTestUtils.setField(client, "initialHedgeDelayMs", 50L);
+        ReflectionTestUtils.setField(client, "minHedgeDelayMs", 10L);
+        ReflectionTestUtils.setField(client, "maxHedgeRatio", 1.0);
+    }
+
+    @AfterEach
+    void tearDown() {
+        client.shutdown();
+    }
+
+    @Test
+    void slowPrimaryIsHedgedToTheOtherInstanceAndTheFirstReplyWins() {
+        AtomicInteger attempts = new AtomicInteger();
+        respond(url -> {
+            if (attempts.incrementAndGet() == 1) {
+                Thread.sleep(2000);
+                return "primary";
+            }
+            return "hedge";
+        });
+
+        assertEquals("hedge", client.get("/api/users/1", String.class));
+        assertEquals(1, client.statistics().hedges());
+        assertEquals(1, client.statistics().hedgeWins());
+        assertNotEquals(host(calledUrls.get(0)), host(calledUrls.get(1)));
+    }
+
+    @Test
+    void fastPrimaryIsNotHedged() {
+        respond(url -> "primary");
+
+        assertEquals("primary", client.get("/api/users/1", String.class));
+        assertEquals(0, client.statistics().hedges());
+    }
+
+    @Test
+    void serverErrorIsRetriedOnTheOtherInstanceWithoutWaitingForTheDelay() {
+        ReflectionTestUtils.setField(client, "initialHedgeDelayMs", 60_000L);
+        AtomicInteger attempts = new AtomicInteger();
+        respond(url -> {
+            if (attempts.incrementAndGet() == 1) {
+                throw new HttpServerErrorException(HttpStatus.SERVICE_UNAVAILABLE);
+            }
+            return "hedge";
+        });
+
+        assertEquals("hedge", client.get("/api/users/1", String.class));
+        assertEquals(1, client.statistics().hedges());
+    }
+
+    @Test
+    void ioErrorIsRetriedOnTheOtherInstance() {
+        ReflectionTestUtils.setField(client, "initialHedgeDelayMs", 60_000L);
+        AtomicInteger attempts = new AtomicInteger();
+        respond(url -> {
+            if (attempts.incrementAndGet() == 1) {
+                throw new ResourceAccessException("Read timed out");
+            }
+            return "hedge";
+        });
+
+        assertEquals("hedge", client.get("/api/users/1", String.class));
+        assertNotEquals(host(calledUrls.get(0)), host(calledUrls.get(1)));
+    }
+
+    @Test
+    void clientErrorIsTheAnswerAndIsNotHedged() throws Exception {
+        respond(url -> {
+            throw HttpClientErrorException.create(HttpStatus.NOT_FOUND, "Not Found", null, null, null);
+        });
+
+        assertThrows(HttpClientErrorException.NotFound.class, () -> client.get("/api/users/99", String.class));
+        // Past the hedge delay: no second attempt was sent
+        Thread.sleep(100);
+        assertEquals(1, calledUrls.size());
+        assertEquals(0, client.statistics().hedges());
+    }
+
+    private void respond(Exchange exchange) {
+        when(restTemplate.exchange(anyString(), eq(HttpMethod.GET), any(HttpEntity.class), eq(String.class)))
+                .thenAnswer(invocation -> {
+                    String url = invocation.getArgument(0);
+                    calledUrls.add(url);
+                    return ResponseEntity.ok(exchange.apply(url));
+                });
+    }
+
+    private static String host(String url) {
+        return url.substring(0, url.indexOf('/', "http://".length()));
+    }
+
+    private static ServiceInstance instance(String host) {
+        return new DefaultServiceInstance(host, "demo1-service", host, 8080, false);
+    }
+
+    @FunctionalInterface
+    private interface Exchange {
+        String apply(String url) throws Exception;
+    }
+}
@@ -0,0 +1,109 @@
+package com.example.demo2.service;
+
+import com.example.demo2.dto.InstanceLoadStatistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.cloud.client.DefaultServiceInstance;
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class InstanceLoadTrackerTest {
+
+    private static final long MS = TimeUnit.MILLISECONDS.toNanos(1);
+
+    private final ServiceInstance a = instance("a");
+    private final ServiceInstance b = instance("b");
+    private final ServiceInstance c = instance("c");
+    private final InstanceLoadTracker tracker = new InstanceLoadTracker();
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(tracker, "latencyAware", true);
+        ReflectionTestUtils.setField(tracker, "alpha", 0.1);
+        ReflectionTestUtils.setField(tracker, "staleAfterMs", 10_000L);
+        ReflectionTestUtils.setField(tracker, "minRequests", 3L);
+        ReflectionTestUtils.setField(tracker, "errorRateThreshold", 0.5);
+        ReflectionTestUtils.setField(tracker, "latencyThresholdMs", 2000L);
+        ReflectionTestUtils.setField(tracker, "ejectionMs", 50L);
+    }
+
+    @Test
+    void cheaperOfTwoInstancesIsChosen() {
+        sample(a, 10 * MS, true);
+        sample(b, 50 * MS, true);
+
+        for (int i = 0; i < 100; i++) {
+            assertSame(a, tracker.choose(List.of(a, b)));
+        }
+    }
+
+    @Test
+    void newInstanceIsScoredAtItsPeersMedianLatencyNotAtZero() {
+        sample(a, 10 * MS, true);
+        sample(b, 10 * MS, true);
+        // Requests already sent to the new instance count against it as they would against a known one
+        for (int i = 0; i < 3; i++) {
+            tracker.begin(c);
+        }
+
+        for (int i = 0; i < 100; i++) {
+            assertSame(a, tracker.choose(List.of(a, c)));
+        }
+    }
+
+    @Test
+    void failingInstanceIsEjectedAndReturnsAfterTheEjection() throws Exception {
+        for (int i = 0; i < 3; i++) {
+            sample(a, MS, false);
+        }
+        sample(b, 10 * MS, true);
+
+        assertTrue(statistics(a).ejected());
+        for (int i = 0; i < 100; i++) {
+            assertSame(b, tracker.choose(List.of(a, b)));
+        }
+        // With every candidate ejected, traffic still goes somewhere
+        assertSame(a, tracker.choose(List.of(a)));
+
+        Thread.sleep(60);
+        Set<ServiceInstance> chosen = new HashSet<>();
+        for (int i = 0; i < 100; i++) {
+            chosen.add(tracker.choose(List.of(a, b)));
+        }
+        assertEquals(Set.of(a, b), chosen);
+        assertFalse(statistics(a).ejected());
+        assertEquals(0, statistics(a).requests());
+    }
+
+    @Test
+    void excludedInstanceIsAvoidedWhenThereIsAnotherChoice() {
+        sample(b, 50 * MS, true);
+
+        assertSame(b, tracker.choose(List.of(a, b), a));
+        assertSame(a, tracker.choose(List.of(a), a));
+    }
+
+    private void sample(ServiceInstance instance, long latencyNanos, boolean success) {
+        tracker.begin(instance);
+        tracker.complete(instance, latencyNanos, success);
+    }
+
+    private InstanceLoadStatistics statistics(ServiceInstance instance) {
+        String key = instance.getHost() + ":" + instance.getPort();
+        return tracker.statistics().stream().filter(stats -> stats.instance().equals(key)).findFirst().orElseThrow();
+    }
+
+    private static ServiceInstance instance(String host) {
+        return new DefaultServiceInstance(host, "demo1-service", host, 8080, false);
+    }
+}
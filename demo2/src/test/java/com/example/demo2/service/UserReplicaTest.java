@@ -0,0 +1,135 @@
+package com.example.demo2.service;
+
+import com.example.demo2.dto.Demo1User;
+import com.example.demo2.dto.Demo1UserChange;
+import com.example.demo2.dto.Demo1UserChanges;
+import com.example.demo2.dto.Demo1UserSnapshot;
+import io.zonky.test.db.postgres.embedded.EmbeddedPostgres;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.Instant;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Applies snapshots and feed pages to {@code replica.users} in PostgreSQL, with demo1 mocked.
+ */
+class UserReplicaTest {
+
+    // Stopped by its own shutdown hook when the test JVM exits
+    private static final EmbeddedPostgres postgres = startPostgres();
+
+    private final DataSource dataSource = postgres.getPostgresDatabase();
+    private final JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+    private final Demo1Client demo1Client = mock(Demo1Client.class);
+
+    @BeforeEach
+    void setUp() {
+        jdbcTemplate.execute("DROP SCHEMA IF EXISTS replica CASCADE");
+    }
+
+    @Test
+    void changeIsAppliedOnlyOverAnOlderOne() {
+        UserReplica replica = replica();
+        replica.load();
+        snapshot(null, "c0", List.of(entry(1, "A", "a@x.com", 5)));
+        replica.reload();
+
+        feed("c0", "c1", change(3, "updated", 1, "Stale", "stale@x.com"),
+                change(7, "updated", 1, "B", "b@x.com"),
+                change(8, "deleted", 2, null, "gone@x.com"));
+        replica.poll();
+        // Replayed after the delete it precedes: the tombstone keeps it out
+        feed("c1", "c2", change(6, "created", 2, "Old", "gone@x.com"));
+        replica.poll();
+
+        assertEquals("B", replica.findById(1).map(Demo1User::name).orElseThrow());
+        assertTrue(replica.findByEmail("a@x.com").isEmpty());
+        assertTrue(replica.findById(2).isEmpty());
+        assertEquals(2, replica.statistics().changesApplied());
+        assertEquals(2, replica.statistics().changesSkipped());
+        assertEquals(7L, jdbcTemplate.queryForObject("SELECT change_id FROM replica.users WHERE id = 1", Long.class));
+        assertEquals(Boolean.TRUE,
+                jdbcTemplate.queryForObject("SELECT deleted FROM replica.users WHERE id = 2", Boolean.class));
+        assertEquals("c2", storedCursor());
+    }
+
+    @Test
+    void reloadReplacesTheCopyAndARestartResumesFromItsCursor() {
+        UserReplica replica = replica();
+        replica.load();
+        snapshot(null, "c0", List.of(entry(1, "A", "a@x.com", 1), entry(2, "B", "b@x.com", 2)));
+        replica.reload();
+        feed("c0", "c1", change(3, "deleted", 2, null, "b@x.com"));
+        replica.poll();
+
+        // As after a purge: everything comes from the new snapshot, over two pages
+        when(demo1Client.getUserSnapshot(null, 1)).thenReturn(new Demo1UserSnapshot(true, null,
+                new Demo1UserSnapshot.Page(List.of(entry(3, "C", "c@x.com", 9)), "p1", true, "c9")));
+        snapshot("p1", "c10", List.of(entry(4, "D", "d@x.com", 10)));
+        replica.reload();
+
+        assertEquals(List.of(3L, 4L), replica.usersAfter(0, 10).stream().map(Demo1User::id).toList());
+        assertEquals(List.of(3L, 4L), jdbcTemplate.queryForList("SELECT id FROM replica.users ORDER BY id", Long.class));
+        // The changes cursor of the first page: later pages may already contain some of the replayed changes
+        assertEquals("c9", storedCursor());
+
+        UserReplica restarted = replica();
+        restarted.load();
+        assertTrue(restarted.isReady());
+        assertEquals(2, restarted.size());
+        feed("c9", "c11");
+        restarted.poll();
+        verify(demo1Client).getUserChanges("c9", 100);
+    }
+
+    private UserReplica replica() {
+        UserReplica replica = new UserReplica(demo1Client, jdbcTemplate, new DataSourceTransactionManager(dataSource));
+        ReflectionTestUtils.setField(replica, "createTable", true);
+        ReflectionTestUtils.setField(replica, "batchSize", 100);
+        ReflectionTestUtils.setField(replica, "snapshotPageSize", 1);
+        return replica;
+    }
+
+    private String storedCursor() {
+        return jdbcTemplate.queryForObject("SELECT cursor FROM replica.feed_position", String.class);
+    }
+
+    private void snapshot(String cursor, String changesCursor, List<Demo1UserSnapshot.Entry> users) {
+        when(demo1Client.getUserSnapshot(cursor, 1)).thenReturn(new Demo1UserSnapshot(true, null,
+                new Demo1UserSnapshot.Page(users, null, false, changesCursor)));
+    }
+
+    private void feed(String cursor, String nextCursor, Demo1UserChange... changes) {
+        when(demo1Client.getUserChanges(cursor, 100)).thenReturn(new Demo1UserChanges(true, null,
+                new Demo1UserChanges.Feed(List.of(changes), nextCursor, false)));
+    }
+
+    private static Demo1UserSnapshot.Entry entry(long id, String name, String email, long changeId) {
+        return new Demo1UserSnapshot.Entry(id, name, email, null, changeId);
+    }
+
+    private static Demo1UserChange change(long changeId, String operation, long userId, String name, String email) {
+        return new Demo1UserChange(changeId, operation, userId, name, email, null, Instant.now());
+    }
+
+    private static EmbeddedPostgres startPostgres() {
+        try {
+            return EmbeddedPostgres.builder().start();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
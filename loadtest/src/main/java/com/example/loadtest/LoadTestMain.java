@@ -0,0 +1,205 @@
+package com.example.loadtest;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * End-to-end load test that needs nothing but a JDK: starts PostgreSQL from bundled binaries, seeds
+ * {@code demo.users}, boots demo1 (and demo2, and optionally demo1-reactive and the Eureka server) in this JVM,
+ * runs each scenario at a fixed arrival rate and writes {@code report.json} and {@code report.html}.
+ * <p>
+ * Exits with 1 when a scenario regressed against {@code --baseline}, 2 on bad options.
+ */
+public final class LoadTestMain {
+
+    private static final Logger logger = LoggerFactory.getLogger(LoadTestMain.class);
+    private static final Duration READY_TIMEOUT = Duration.ofMinutes(2);
+
+    private LoadTestMain() {
+    }
+
+    public static void main(String[] args) {
+        if (Arrays.asList(args).contains("--help")) {
+            System.out.print(LoadTestOptions.USAGE);
+            return;
+        }
+        int status;
+        try {
+            status = run(LoadTestOptions.parse(args));
+        } catch (IllegalArgumentException e) {
+            System.err.println(e.getMessage());
+            System.err.print(LoadTestOptions.USAGE);
+            status = 2;
+        } catch (Exception e) {
+            logger.error("Load test failed", e);
+            status = 1;
+        }
+        // The services and PostgreSQL are stopped by their shutdown hooks
+        System.exit(status);
+    }
+
+    private static int run(LoadTestOptions options) throws Exception {
+        useLogConfigForServices(options.servicesDir());
+        UserDatabase database = UserDatabase.start(options.rows());
+        ServiceLauncher launcher = new ServiceLauncher(options.servicesDir());
+
+        List<String> services = new ArrayList<>();
+        List<String> discovery = new ArrayList<>();
+        if (options.withEureka()) {
+            // Logs with Logback, which does not read the Log4j2 configuration
+            URI eureka = launcher.start("eureka-server", join(
+                    List.of("--eureka.instance.hostname=localhost", "--logging.level.root=ERROR"),
+                    options.argumentsFor("eureka")));
+            services.add("eureka-server");
+            discovery.add("--eureka.client.serviceUrl.defaultZone=" + eureka + "/eureka/");
+        } else {
+            discovery.add("--eureka.client.enabled=false");
+        }
+
+        if (options.withReactive()) {
+            // Same seed data, but its own database so neither service sees the other's writes
+            database.copy("demo1_db", "demo1_reactive_db");
+        }
+        Map<String, URI> targets = new LinkedHashMap<>();
+        targets.put("demo1", launcher.start("demo1", join(datasource(database, "demo1_db"), discovery,
+                options.argumentsFor("demo1"))));
+        services.add("demo1");
+        if (options.withReactive()) {
+            targets.put("demo1-reactive", launcher.start("demo1-reactive", join(r2dbc(database, "demo1_reactive_db"),
+                    discovery, options.argumentsFor("demo1-reactive"))));
+            services.add("demo1-reactive");
+        }
+        if (options.withDemo2()) {
+            List<String> demo2Discovery = new ArrayList<>(discovery);
+            if (!options.withEureka()) {
+                demo2Discovery.add("--spring.cloud.discovery.client.simple.instances.demo1-service[0].uri="
+                        + targets.get("demo1"));
+            }
+            URI demo2 = launcher.start("demo2", join(datasource(database, "demo2_db"), demo2Discovery,
+                    options.argumentsFor("demo2")));
+            awaitDemo2Ready(demo2);
+            targets.put("demo2", demo2);
+            services.add("demo2");
+        }
+
+        OpenModelRunner runner = new OpenModelRunner(options.requestTimeout(), options.maxInFlight(), options.rows());
+        List<ScenarioResult> results = new ArrayList<>();
+        for (Map.Entry<Scenario, Integer> entry : options.rates().entrySet()) {
+            Scenario scenario = entry.getKey();
+            List<String> scenarioServices = new ArrayList<>(List.of(scenario.service()));
+            // demo1-reactive serves the same API; each demo1 scenario is repeated against it back to back
+            if (options.withReactive() && scenario.service().equals("demo1")) {
+                scenarioServices.add("demo1-reactive");
+            }
+            for (String service : scenarioServices) {
+                ScenarioResult result = runner.run(scenario, service, targets.get(service), entry.getValue(),
+                        options.warmup(), options.duration());
+                logger.info("{}: {} req/s, errors {}%, p50 {} ms, p99 {} ms, p99.9 {} ms", result.description(),
+                        String.format("%.1f", result.throughput()), String.format("%.2f", result.errorRate() * 100),
+                        result.latency().p50(), result.latency().p99(), result.latency().p999());
+                results.add(result);
+            }
+        }
+
+        LoadTestReport report = new LoadTestReport(Instant.now(), new LoadTestReport.Environment(
+                System.getProperty("java.version"),
+                Runtime.getRuntime().availableProcessors(),
+                Runtime.getRuntime().maxMemory() / (1024 * 1024),
+                database.serverVersion(),
+                options.rows(),
+                options.warmup().toMillis() / 1000.0,
+                services,
+                options.serviceArguments()), results);
+        List<LoadTestReport.Comparison> comparisons = options.baseline() != null
+                ? report.compareWith(LoadTestReport.read(options.baseline()), options.maxRegressionPercent())
+                : List.of();
+        report.write(options.outputDir(), comparisons);
+        logger.info("Report written to {}", options.outputDir().resolve("report.html").toAbsolutePath());
+
+        boolean regressed = false;
+        for (LoadTestReport.Comparison comparison : comparisons) {
+            if (comparison.regressed()) {
+                regressed = true;
+                logger.warn("{} regressed against {}: p99 {}%, error rate {}% -> {}%", comparison.scenario(),
+                        options.baseline(), String.format("%+.1f", comparison.p99Change()),
+                        String.format("%.2f", comparison.baselineErrorRate() * 100),
+                        String.format("%.2f", comparison.errorRate() * 100));
+            }
+        }
+        return regressed ? 1 : 0;
+    }
+
+    // Read by each service's own Log4j2 when its class loader first logs, before Spring Boot configures logging
+    private static void useLogConfigForServices(Path servicesDir) throws IOException {
+        Path config = servicesDir.resolve("log4j2-loadtest.xml");
+        Files.createDirectories(servicesDir);
+        try (InputStream in = LoadTestMain.class.getResourceAsStream("/log4j2.xml")) {
+            Files.copy(in, config, StandardCopyOption.REPLACE_EXISTING);
+        }
+        System.setProperty("log4j2.configurationFile", config.toAbsolutePath().toString());
+    }
+
+    private static List<String> datasource(UserDatabase database, String name) {
+        return List.of(
+                "--spring.datasource.url=" + database.jdbcUrl(name),
+                "--spring.datasource.username=postgres",
+                "--spring.datasource.password=");
+    }
+
+    private static List<String> r2dbc(UserDatabase database, String name) {
+        return List.of(
+                "--spring.r2dbc.url=" + database.r2dbcUrl(name),
+                "--spring.r2dbc.username=postgres",
+                "--spring.r2dbc.password=");
+    }
+
+    // /hello switches from calling demo1 to demo2's user replica once that has loaded; wait for the state it
+    // will be measured in
+    private static void awaitDemo2Ready(URI demo2) throws IOException, InterruptedException {
+        HttpClient client = HttpClient.newHttpClient();
+        HttpRequest hello = HttpRequest.newBuilder(demo2.resolve("/hello")).timeout(Duration.ofSeconds(5)).build();
+        HttpRequest replica = HttpRequest.newBuilder(demo2.resolve("/users/replica/stats"))
+                .timeout(Duration.ofSeconds(5)).build();
+        long deadline = System.nanoTime() + READY_TIMEOUT.toNanos();
+        while (true) {
+            String replicaStatistics = client.send(replica, HttpResponse.BodyHandlers.ofString()).body();
+            String body = client.send(hello, HttpResponse.BodyHandlers.ofString()).body();
+            boolean replicaSettled = replicaStatistics.contains("\"ready\":true")
+                    || replicaStatistics.contains("\"enabled\":false");
+            if (replicaSettled && body.contains("Total items")) {
+                return;
+            }
+            if (System.nanoTime() > deadline) {
+                throw new IOException("demo2 was not ready within " + READY_TIMEOUT.toSeconds() + " s: " + body
+                        + " " + replicaStatistics);
+            }
+            Thread.sleep(500);
+        }
+    }
+
+    @SafeVarargs
+    private static List<String> join(List<String>... parts) {
+        List<String> joined = new ArrayList<>();
+        for (List<String> part : parts) {
+            joined.addAll(part);
+        }
+        return joined;
+    }
+}
@@ -0,0 +1,152 @@
+package com.example.loadtest;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Command line of the load test, {@code --name=value} pairs. Every run with the same options does the same work:
+ * the seed data, the arrival schedule and the mix of ids requested are fixed, only the measured latencies differ.
+ */
+record LoadTestOptions(
+        boolean withDemo2,
+        boolean withEureka,
+        boolean withReactive,
+        int rows,
+        Duration warmup,
+        Duration duration,
+        Map<Scenario, Integer> rates,
+        int maxInFlight,
+        Duration requestTimeout,
+        Path servicesDir,
+        Path outputDir,
+        Path baseline,
+        double maxRegressionPercent,
+        Map<String, List<String>> serviceArguments) {
+
+    static final String USAGE = """
+            Usage: java -jar loadtest.jar [--name=value ...]
+
+              --services=demo1,demo2      services to boot: demo1, demo2, eureka (demo2 needs demo1), and
+                                          demo1-reactive, which also runs every demo1 scenario, right after demo1
+              --rows=100000               users seeded into demo.users
+              --warmup=10s                load before measuring, per scenario
+              --duration=30s              measured load, per scenario
+              --scenarios=list,get,create,hello
+              --rate.<scenario>=N         requests per second; list=50 get=200 create=20 hello=50
+              --max-in-flight=1000        requests past this many outstanding are counted as dropped
+              --timeout=10s               per request
+              --server-threads=N          Tomcat request threads of demo1 and event loops of demo1-reactive
+                                          (default: each service's own)
+              --services-dir=DIR          Boot jars of the services (default: services/ next to loadtest.jar)
+              --out=loadtest-report       report.json and report.html are written here
+              --baseline=FILE             report.json of an earlier run to compare against
+              --max-regression=10         exit with 1 when a p99 is this many percent slower than the baseline,
+                                          or the error rate is higher (needs --baseline)
+              --demo1:<property>=value    passed to demo1 as --<property>=value; likewise demo1-reactive:,
+                                          demo2: and eureka:
+            """;
+
+    private static final List<String> KNOWN = List.of("services", "rows", "warmup", "duration", "scenarios",
+            "max-in-flight", "timeout", "server-threads", "services-dir", "out", "baseline", "max-regression");
+
+    static LoadTestOptions parse(String[] args) {
+        Map<String, String> values = new LinkedHashMap<>();
+        Map<String, List<String>> serviceArguments = new LinkedHashMap<>();
+        for (String arg : args) {
+            int separator = arg.indexOf('=');
+            if (!arg.startsWith("--") || separator < 0) {
+                throw new IllegalArgumentException("Expected --name=value, got " + arg);
+            }
+            String name = arg.substring(2, separator);
+            String value = arg.substring(separator + 1);
+            int service = name.indexOf(':');
+            if (service > 0) {
+                serviceArguments.computeIfAbsent(name.substring(0, service), key -> new ArrayList<>())
+                        .add("--" + name.substring(service + 1) + "=" + value);
+            } else {
+                values.put(name, value);
+            }
+        }
+
+        List<String> services = List.of(values.getOrDefault("services", "demo1,demo2").split(","));
+        if (!services.contains("demo1")) {
+            throw new IllegalArgumentException("--services must include demo1");
+        }
+        Map<Scenario, Integer> rates = new LinkedHashMap<>();
+        for (String name : values.getOrDefault("scenarios", "list,get,create,hello").split(",")) {
+            Scenario scenario = Scenario.fromName(name.trim());
+            if (scenario == Scenario.HELLO && !services.contains("demo2")) {
+                continue;
+            }
+            int rate = Integer.parseInt(values.getOrDefault("rate." + scenario.id(),
+                    Integer.toString(scenario.defaultRate())));
+            if (rate < 1) {
+                throw new IllegalArgumentException("--rate." + scenario.id() + " must be at least 1");
+            }
+            rates.put(scenario, rate);
+        }
+        values.keySet().stream().filter(name -> !name.startsWith("rate.") && !KNOWN.contains(name)).findFirst()
+                .ifPresent(name -> {
+                    throw new IllegalArgumentException("Unknown option --" + name);
+                });
+
+        String baseline = values.get("baseline");
+        String serverThreads = values.get("server-threads");
+        if (serverThreads != null) {
+            if (Integer.parseInt(serverThreads) < 1) {
+                throw new IllegalArgumentException("--server-threads must be at least 1");
+            }
+            // Ahead of any --demo1: arguments, and reported with them
+            serviceArguments.computeIfAbsent("demo1", key -> new ArrayList<>()).addAll(0, List.of(
+                    "--server.tomcat.threads.max=" + serverThreads,
+                    "--server.tomcat.threads.min-spare=" + serverThreads));
+            serviceArguments.computeIfAbsent("demo1-reactive", key -> new ArrayList<>())
+                    .add(0, "--demo1.reactive.event-loop-threads=" + serverThreads);
+        }
+        return new LoadTestOptions(
+                services.contains("demo2"),
+                services.contains("eureka"),
+                services.contains("demo1-reactive"),
+                Integer.parseInt(values.getOrDefault("rows", "100000")),
+                parseDuration(values.getOrDefault("warmup", "10s")),
+                parseDuration(values.getOrDefault("duration", "30s")),
+                rates,
+                Integer.parseInt(values.getOrDefault("max-in-flight", "1000")),
+                parseDuration(values.getOrDefault("timeout", "10s")),
+                values.containsKey("services-dir") ? Path.of(values.get("services-dir")) : defaultServicesDir(),
+                Path.of(values.getOrDefault("out", "loadtest-report")),
+                baseline != null ? Path.of(baseline) : null,
+                Double.parseDouble(values.getOrDefault("max-regression", "10")),
+                serviceArguments);
+    }
+
+    List<String> argumentsFor(String service) {
+        return serviceArguments.getOrDefault(service, List.of());
+    }
+
+    // 500ms, 30s, 2m
+    private static Duration parseDuration(String value) {
+        if (value.endsWith("ms")) {
+            return Duration.ofMillis(Long.parseLong(value.substring(0, value.length() - 2)));
+        }
+        long amount = Long.parseLong(value.substring(0, value.length() - 1));
+        return switch (value.charAt(value.length() - 1)) {
+            case 's' -> Duration.ofSeconds(amount);
+            case 'm' -> Duration.ofMinutes(amount);
+            default -> throw new IllegalArgumentException("Invalid duration: " + value);
+        };
+    }
+
+    private static Path defaultServicesDir() {
+        try {
+            Path jar = Path.of(LoadTestMain.class.getProtectionDomain().getCodeSource().getLocation().toURI());
+            return jar.resolveSibling("services");
+        } catch (Exception e) {
+            return Path.of("loadtest", "target", "services");
+        }
+    }
+}
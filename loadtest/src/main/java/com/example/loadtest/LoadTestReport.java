@@ -0,0 +1,197 @@
+package com.example.loadtest;
+
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Results of a run, written as {@code report.json} (which a later run reads back as its baseline) and as a
+ * self-contained {@code report.html}.
+ */
+record LoadTestReport(Instant generatedAt, Environment environment, List<ScenarioResult> scenarios) {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper()
+            .registerModule(new JavaTimeModule())
+            .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+            .disable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES)
+            .enable(SerializationFeature.INDENT_OUTPUT);
+
+    /**
+     * What the numbers depend on besides the code under test; compare runs only when these match.
+     */
+    record Environment(
+            String javaVersion,
+            int processors,
+            long maxHeapMb,
+            String postgresVersion,
+            int rows,
+            double warmupSeconds,
+            List<String> services,
+            Map<String, List<String>> serviceArguments) {
+    }
+
+    /**
+     * Change of one scenario against the baseline, in percent; positive latency changes are slower.
+     */
+    record Comparison(
+            String scenario,
+            double p50Change,
+            double p99Change,
+            double p999Change,
+            double throughputChange,
+            double baselineErrorRate,
+            double errorRate,
+            boolean regressed) {
+    }
+
+    static LoadTestReport read(Path file) throws IOException {
+        return MAPPER.readValue(file.toFile(), LoadTestReport.class);
+    }
+
+    /**
+     * A scenario regressed when its p99 is more than {@code maxRegressionPercent} slower than in the baseline,
+     * or its error rate went up. Scenarios missing from either report are left out.
+     */
+    List<Comparison> compareWith(LoadTestReport baseline, double maxRegressionPercent) {
+        Map<String, ScenarioResult> before = baseline.scenarios().stream()
+                .collect(Collectors.toMap(ScenarioResult::scenario, Function.identity()));
+        List<Comparison> comparisons = new ArrayList<>();
+        for (ScenarioResult after : scenarios) {
+            ScenarioResult previous = before.get(after.scenario());
+            if (previous == null) {
+                continue;
+            }
+            double p99Change = change(previous.latency().p99(), after.latency().p99());
+            comparisons.add(new Comparison(
+                    after.scenario(),
+                    change(previous.latency().p50(), after.latency().p50()),
+                    p99Change,
+                    change(previous.latency().p999(), after.latency().p999()),
+                    change(previous.throughput(), after.throughput()),
+                    previous.errorRate(),
+                    after.errorRate(),
+                    p99Change > maxRegressionPercent || after.errorRate() > previous.errorRate()));
+        }
+        return comparisons;
+    }
+
+    void write(Path directory, List<Comparison> comparisons) throws IOException {
+        Files.createDirectories(directory);
+        MAPPER.writeValue(directory.resolve("report.json").toFile(), this);
+        Files.writeString(directory.resolve("report.html"), html(comparisons));
+    }
+
+    private String html(List<Comparison> comparisons) {
+        StringBuilder html = new StringBuilder("""
+                <!DOCTYPE html>
+                <html lang="en">
+                <head>
+                <meta charset="utf-8">
+                <title>Load test report</title>
+                <style>
+                  body { font-family: system-ui, sans-serif; margin: 2em; color: #222; }
+                  table { border-collapse: collapse; margin-bottom: 2em; }
+                  th, td { border: 1px solid #ccc; padding: 4px 10px; text-align: right; }
+                  th:first-child, td:first-child { text-align: left; }
+                  th { background: #f3f3f3; }
+                  .worse { color: #b00020; font-weight: bold; }
+                  .better { color: #0a7d32; }
+                  .bar { background: #4a78c2; height: 10px; display: inline-block; }
+                </style>
+                </head>
+                <body>
+                """);
+        html.append("<h1>Load test report</h1>\n<p>").append(escape(generatedAt.toString())).append(" &middot; ")
+                .append(environment.rows()).append(" seeded users &middot; services: ")
+                .append(escape(String.join(", ", environment.services()))).append(" &middot; Java ")
+                .append(escape(environment.javaVersion())).append(", ").append(environment.processors())
+                .append(" CPUs, ").append(environment.maxHeapMb()).append(" MB heap &middot; PostgreSQL ")
+                .append(escape(environment.postgresVersion())).append("</p>\n");
+        if (!environment.serviceArguments().isEmpty()) {
+            html.append("<p>Service arguments: ").append(escape(environment.serviceArguments().toString()))
+                    .append("</p>\n");
+        }
+
+        html.append("<h2>Summary</h2>\n<table>\n<tr><th>Scenario</th><th>Target/s</th><th>Throughput/s</th>"
+                + "<th>Requests</th><th>Error rate</th><th>p50 ms</th><th>p90 ms</th><th>p99 ms</th>"
+                + "<th>p99.9 ms</th><th>Max ms</th><th>Outcomes</th></tr>\n");
+        for (ScenarioResult result : scenarios) {
+            ScenarioResult.Latency latency = result.latency();
+            html.append("<tr><td>").append(escape(result.description())).append("</td>")
+                    .append(cell(result.targetRate())).append(cell(result.throughput()))
+                    .append(cell(result.scheduled())).append(cell(format("%.2f%%", result.errorRate() * 100)))
+                    .append(cell(latency.p50())).append(cell(latency.p90())).append(cell(latency.p99()))
+                    .append(cell(latency.p999())).append(cell(latency.max()))
+                    .append(cell(escape(result.outcomes().toString()))).append("</tr>\n");
+        }
+        html.append("</table>\n");
+
+        if (!comparisons.isEmpty()) {
+            html.append("<h2>Against the baseline</h2>\n<table>\n<tr><th>Scenario</th><th>p50</th><th>p99</th>"
+                    + "<th>p99.9</th><th>Throughput</th><th>Error rate</th><th>Verdict</th></tr>\n");
+            for (Comparison comparison : comparisons) {
+                html.append("<tr><td>").append(escape(comparison.scenario())).append("</td>")
+                        .append(changeCell(comparison.p50Change(), false))
+                        .append(changeCell(comparison.p99Change(), false))
+                        .append(changeCell(comparison.p999Change(), false))
+                        .append(changeCell(comparison.throughputChange(), true))
+                        .append(cell(format("%.2f%% &rarr; %.2f%%", comparison.baselineErrorRate() * 100,
+                                comparison.errorRate() * 100)))
+                        .append(comparison.regressed() ? "<td class=\"worse\">regressed</td>" : "<td>ok</td>")
+                        .append("</tr>\n");
+            }
+            html.append("</table>\n");
+        }
+
+        html.append("<h2>Latency distribution</h2>\n");
+        for (ScenarioResult result : scenarios) {
+            double max = Math.max(result.latency().max(), 0.001);
+            html.append("<h3>").append(escape(result.description())).append("</h3>\n<table>\n")
+                    .append("<tr><th>Percentile</th><th>ms</th><th></th></tr>\n");
+            for (ScenarioResult.Percentile point : result.distribution()) {
+                // Log scale, so the body of the distribution is still visible next to a long tail
+                double width = 300 * Math.log1p(point.millis()) / Math.log1p(max);
+                html.append("<tr><td>").append(format("%s", point.percentile())).append("</td>")
+                        .append(cell(point.millis()))
+                        .append("<td style=\"text-align:left\"><span class=\"bar\" style=\"width:")
+                        .append(format("%.0f", width)).append("px\"></span></td></tr>\n");
+            }
+            html.append("</table>\n");
+        }
+        return html.append("</body>\n</html>\n").toString();
+    }
+
+    private static double change(double before, double after) {
+        return before == 0 ? 0 : (after - before) * 100 / before;
+    }
+
+    private static String changeCell(double change, boolean higherIsBetter) {
+        boolean worse = higherIsBetter ? change < 0 : change > 0;
+        String css = Math.abs(change) < 1 ? "" : worse ? " class=\"worse\"" : " class=\"better\"";
+        return "<td" + css + ">" + format("%+.1f%%", change) + "</td>";
+    }
+
+    private static String cell(Object value) {
+        return "<td>" + (value instanceof Double number ? format("%.2f", number) : value) + "</td>";
+    }
+
+    private static String format(String pattern, Object... args) {
+        return String.format(Locale.ROOT, pattern, args);
+    }
+
+    private static String escape(String text) {
+        return text.replace("&", "&amp;").replace("<", "&lt;").replace(">", "&gt;").replace("\"", "&quot;");
+    }
+}
@@ -0,0 +1,176 @@
+package com.example.loadtest;
+
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.net.http.HttpTimeoutException;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Sends requests at a constant arrival rate, whether or not earlier ones have completed (an open model, like
+ * traffic from many independent users). A closed loop of N clients slows down with the service and so hides
+ * exactly the queueing that shows up in production tail latency.
+ * <p>
+ * Request {@code i} is due at {@code start + i / rate}. Each is sent on its own virtual thread and its latency is
+ * taken from when it was due, not from when it was sent, so a stall in the service or in this JVM is charged to
+ * every request that should have gone out during it. Requests due while {@code maxInFlight} are outstanding are not
+ * sent and count as dropped errors.
+ */
+final class OpenModelRunner {
+
+    private static final Logger logger = LoggerFactory.getLogger(OpenModelRunner.class);
+    private static final double[] DISTRIBUTION = {0, 50, 75, 90, 95, 99, 99.5, 99.9, 99.95, 99.99, 100};
+
+    private final HttpClient client;
+    private final Duration requestTimeout;
+    private final int maxInFlight;
+    private final int rows;
+
+    OpenModelRunner(Duration requestTimeout, int maxInFlight, int rows) {
+        this.client = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofSeconds(5))
+                .build();
+        this.requestTimeout = requestTimeout;
+        this.maxInFlight = maxInFlight;
+        this.rows = rows;
+    }
+
+    ScenarioResult run(Scenario scenario, URI baseUri, int rate, Duration warmup, Duration duration)
+            throws InterruptedException {
+        return run(scenario, scenario.service(), baseUri, rate, warmup, duration);
+    }
+
+    /**
+     * Runs {@code scenario} against another service with the same API; its result is reported as
+     * {@code <scenario>@<service>}.
+     */
+    ScenarioResult run(Scenario scenario, String service, URI baseUri, int rate, Duration warmup, Duration duration)
+            throws InterruptedException {
+        boolean ownService = service.equals(scenario.service());
+        String id = ownService ? scenario.id() : scenario.id() + "@" + service;
+        String description = ownService ? scenario.description() : scenario.description() + " (" + service + ")";
+        long periodNanos = 1_000_000_000L / rate;
+        long warmupCount = warmup.toNanos() / periodNanos;
+        long measuredCount = Math.max(1, duration.toNanos() / periodNanos);
+        // The same ids in the same order on every run
+        SplittableRandom random = new SplittableRandom(scenario.ordinal() + 1);
+
+        Histogram latencies = new ConcurrentHistogram(3);
+        Map<String, LongAdder> outcomes = new ConcurrentHashMap<>();
+        AtomicInteger inFlight = new AtomicInteger();
+
+        logger.info("{}: {} requests/s, {} s warm-up, {} s measured", description, rate,
+                warmup.toSeconds(), duration.toSeconds());
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            long start = System.nanoTime();
+            for (long i = 0; i < warmupCount + measuredCount; i++) {
+                long due = start + i * periodNanos;
+                long wait;
+                while ((wait = due - System.nanoTime()) > 0) {
+                    LockSupport.parkNanos(wait);
+                }
+                if (Thread.interrupted()) {
+                    throw new InterruptedException();
+                }
+                boolean measured = i >= warmupCount;
+                HttpRequest request = scenario.request(baseUri, i, random, rows).timeout(requestTimeout).build();
+                if (inFlight.get() >= maxInFlight) {
+                    if (measured) {
+                        count(outcomes, "dropped");
+                    }
+                    continue;
+                }
+                inFlight.incrementAndGet();
+                executor.execute(() -> {
+                    String outcome = send(request);
+                    if (measured) {
+                        latencies.recordValue((System.nanoTime() - due) / 1_000);
+                        count(outcomes, outcome);
+                    }
+                    inFlight.decrementAndGet();
+                });
+            }
+        }
+
+        Map<String, Long> totals = new TreeMap<>();
+        outcomes.forEach((outcome, count) -> totals.put(outcome, count.sum()));
+        long errors = totals.entrySet().stream().filter(entry -> !isSuccess(entry.getKey()))
+                .mapToLong(Map.Entry::getValue).sum();
+        double seconds = measuredCount * periodNanos / 1e9;
+        return new ScenarioResult(
+                id,
+                description,
+                service,
+                rate,
+                seconds,
+                measuredCount,
+                latencies.getTotalCount(),
+                errors,
+                (double) errors / measuredCount,
+                (measuredCount - errors) / seconds,
+                new ScenarioResult.Latency(
+                        millis(latencies.getValueAtPercentile(50)),
+                        millis(latencies.getValueAtPercentile(90)),
+                        millis(latencies.getValueAtPercentile(99)),
+                        millis(latencies.getValueAtPercentile(99.9)),
+                        millis(latencies.getMaxValue()),
+                        latencies.getMean() / 1_000),
+                totals,
+                distribution(latencies));
+    }
+
+    /**
+     * Sends one request and waits for the whole response body.
+     * @return the status code, or {@code timeout} / {@code io-error}
+     */
+    private String send(HttpRequest request) {
+        try {
+            return Integer.toString(client.send(request, HttpResponse.BodyHandlers.discarding()).statusCode());
+        } catch (HttpTimeoutException e) {
+            return "timeout";
+        } catch (IOException e) {
+            return "io-error";
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return "interrupted";
+        }
+    }
+
+    static boolean isSuccess(String outcome) {
+        return outcome.length() == 3 && (outcome.charAt(0) == '2' || outcome.charAt(0) == '3');
+    }
+
+    private static void count(Map<String, LongAdder> outcomes, String outcome) {
+        outcomes.computeIfAbsent(outcome, key -> new LongAdder()).increment();
+    }
+
+    private static List<ScenarioResult.Percentile> distribution(Histogram latencies) {
+        return Arrays.stream(DISTRIBUTION)
+                .mapToObj(percentile -> new ScenarioResult.Percentile(percentile,
+                        millis(latencies.getValueAtPercentile(percentile))))
+                .toList();
+    }
+
+    private static double millis(long micros) {
+        return micros / 1_000.0;
+    }
+}
@@ -0,0 +1,83 @@
+package com.example.loadtest;
+
+import java.net.URI;
+import java.net.http.HttpRequest;
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+/**
+ * One workload: an endpoint, the service behind it and how each request in the run is built.
+ */
+enum Scenario {
+
+    // Pages of 20 at random offsets, as a paging UI would ask for them
+    LIST("list", "demo1", "GET /api/users", 50) {
+        @Override
+        HttpRequest.Builder request(URI baseUri, long sequence, SplittableRandom random, int rows) {
+            long page = random.nextLong(Math.max(1, rows / LIST_PAGE_SIZE));
+            return HttpRequest.newBuilder(baseUri.resolve("/api/users?size=" + LIST_PAGE_SIZE + "&page=" + page))
+                    .GET();
+        }
+    },
+    // Uniformly random seeded ids; most of them miss demo1's user cache at the default row count
+    GET("get", "demo1", "GET /api/users/{id}", 200) {
+        @Override
+        HttpRequest.Builder request(URI baseUri, long sequence, SplittableRandom random, int rows) {
+            return HttpRequest.newBuilder(baseUri.resolve("/api/users/" + (1 + random.nextInt(rows)))).GET();
+        }
+    },
+    CREATE("create", "demo1", "POST /api/users", 20) {
+        @Override
+        HttpRequest.Builder request(URI baseUri, long sequence, SplittableRandom random, int rows) {
+            // Unique per request and unlike any seeded email, so every create inserts a row
+            String body = "{\"name\":\"Load Test " + sequence + "\",\"email\":\"loadtest-" + sequence
+                    + "@example.com\"}";
+            return HttpRequest.newBuilder(baseUri.resolve("/api/users"))
+                    .header("Content-Type", "application/json")
+                    .POST(HttpRequest.BodyPublishers.ofString(body));
+        }
+    },
+    HELLO("hello", "demo2", "GET /hello (demo2)", 50) {
+        @Override
+        HttpRequest.Builder request(URI baseUri, long sequence, SplittableRandom random, int rows) {
+            return HttpRequest.newBuilder(baseUri.resolve("/hello")).GET();
+        }
+    };
+
+    static final int LIST_PAGE_SIZE = 20;
+
+    private final String id;
+    private final String service;
+    private final String description;
+    private final int defaultRate;
+
+    Scenario(String id, String service, String description, int defaultRate) {
+        this.id = id;
+        this.service = service;
+        this.description = description;
+        this.defaultRate = defaultRate;
+    }
+
+    abstract HttpRequest.Builder request(URI baseUri, long sequence, SplittableRandom random, int rows);
+
+    String id() {
+        return id;
+    }
+
+    String service() {
+        return service;
+    }
+
+    String description() {
+        return description;
+    }
+
+    int defaultRate() {
+        return defaultRate;
+    }
+
+    static Scenario fromName(String name) {
+        return Arrays.stream(values()).filter(scenario -> scenario.id.equals(name)).findFirst()
+                .orElseThrow(() -> new IllegalArgumentException("Unknown scenario: " + name));
+    }
+}
@@ -0,0 +1,30 @@
+package com.example.loadtest;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Measured part of one scenario run. Latencies are in milliseconds, from the time each request was scheduled to
+ * the end of its response, so time a request spent waiting behind a slow one counts against the service.
+ */
+record ScenarioResult(
+        String scenario,
+        String description,
+        String service,
+        int targetRate,
+        double durationSeconds,
+        long scheduled,
+        long completed,
+        long errors,
+        double errorRate,
+        double throughput,
+        Latency latency,
+        Map<String, Long> outcomes,
+        List<Percentile> distribution) {
+
+    record Latency(double p50, double p90, double p99, double p999, double max, double mean) {
+    }
+
+    record Percentile(double percentile, double millis) {
+    }
+}
@@ -0,0 +1,148 @@
+package com.example.loadtest;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.reflect.InvocationTargetException;
+import java.net.MalformedURLException;
+import java.net.ServerSocket;
+import java.net.URI;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Enumeration;
+import java.util.List;
+import java.util.jar.JarEntry;
+import java.util.jar.JarFile;
+
+/**
+ * Boots a service in this JVM from its Spring Boot jar.
+ * <p>
+ * The jar is unpacked next to itself and its classes and libraries get a class loader of their own, parented to the
+ * platform class loader, so each service sees exactly its own dependencies and {@code application.yml}, as it does
+ * when run with {@code java -jar}. The main class is called on the calling thread and returns once the application
+ * is ready.
+ */
+final class ServiceLauncher {
+
+    private static final Logger logger = LoggerFactory.getLogger(ServiceLauncher.class);
+
+    private final Path servicesDir;
+
+    ServiceLauncher(Path servicesDir) {
+        this.servicesDir = servicesDir;
+    }
+
+    /**
+     * Starts {@code <name>.jar} from the services directory on a free port.
+     * @return where the service listens, e.g. {@code http://localhost:40123}
+     */
+    URI start(String name, List<String> arguments) throws IOException {
+        Path jar = servicesDir.resolve(name + ".jar");
+        if (!Files.isRegularFile(jar)) {
+            throw new IOException(jar + " not found; build it with mvn package, or point --services-dir at the jars");
+        }
+        int port = freePort();
+        List<String> args = new ArrayList<>();
+        args.add("--server.port=" + port);
+        args.add("--spring.main.banner-mode=off");
+        args.addAll(arguments);
+
+        long started = System.nanoTime();
+        Path exploded = unpack(jar);
+        String startClass;
+        try (JarFile jarFile = new JarFile(jar.toFile())) {
+            startClass = jarFile.getManifest().getMainAttributes().getValue("Start-Class");
+        }
+        ClassLoader classLoader = new URLClassLoader(name, classPath(exploded), ClassLoader.getPlatformClassLoader());
+        Thread thread = Thread.currentThread();
+        ClassLoader previous = thread.getContextClassLoader();
+        thread.setContextClassLoader(classLoader);
+        try {
+            disableTomcatUrlHandlers(classLoader);
+            classLoader.loadClass(startClass).getMethod("main", String[].class)
+                    .invoke(null, (Object) args.toArray(new String[0]));
+        } catch (InvocationTargetException e) {
+            throw new IOException("Could not start " + name, e.getCause());
+        } catch (ReflectiveOperationException e) {
+            throw new IOException("Could not start " + name + " from " + startClass, e);
+        } finally {
+            thread.setContextClassLoader(previous);
+        }
+        logger.info("Started {} on port {} in {} ms", name, port, (System.nanoTime() - started) / 1_000_000);
+        return URI.create("http://localhost:" + port);
+    }
+
+    // Every embedded Tomcat installs the JVM-wide URL stream handler factory, which can only be set once. It serves
+    // war: URLs, which none of the services use, so only the first service would get it anyway
+    private static void disableTomcatUrlHandlers(ClassLoader classLoader) throws ReflectiveOperationException {
+        try {
+            classLoader.loadClass("org.apache.catalina.webresources.TomcatURLStreamHandlerFactory")
+                    .getMethod("disable").invoke(null);
+        } catch (ClassNotFoundException e) {
+            // Not a Tomcat service
+        }
+    }
+
+    // Reused while it is newer than the jar, so only the first run after a build pays for unpacking
+    private Path unpack(Path jar) throws IOException {
+        String fileName = jar.getFileName().toString();
+        Path target = servicesDir.resolve(fileName.substring(0, fileName.length() - ".jar".length()));
+        Path marker = target.resolve(".unpacked");
+        if (Files.exists(marker)
+                && Files.getLastModifiedTime(marker).compareTo(Files.getLastModifiedTime(jar)) >= 0) {
+            return target;
+        }
+        Path root = target.toAbsolutePath().normalize();
+        try (JarFile jarFile = new JarFile(jar.toFile())) {
+            Enumeration<JarEntry> entries = jarFile.entries();
+            while (entries.hasMoreElements()) {
+                JarEntry entry = entries.nextElement();
+                Path path = root.resolve(entry.getName()).normalize();
+                if (!path.startsWith(root)) {
+                    throw new IOException("Entry outside the jar root: " + entry.getName());
+                }
+                if (entry.isDirectory()) {
+                    Files.createDirectories(path);
+                } else {
+                    Files.createDirectories(path.getParent());
+                    try (InputStream in = jarFile.getInputStream(entry)) {
+                        Files.copy(in, path, StandardCopyOption.REPLACE_EXISTING);
+                    }
+                }
+            }
+        }
+        Files.writeString(marker, fileName);
+        return target;
+    }
+
+    // BOOT-INF/classes first, then the libraries in the order Boot's own launcher uses
+    private static URL[] classPath(Path exploded) throws IOException {
+        List<URL> urls = new ArrayList<>();
+        urls.add(toUrl(exploded.resolve("BOOT-INF/classes")));
+        for (String line : Files.readAllLines(exploded.resolve("BOOT-INF/classpath.idx"))) {
+            // - "BOOT-INF/lib/spring-boot-3.2.0.jar"
+            String entry = line.trim();
+            if (entry.startsWith("- \"") && entry.endsWith("\"")) {
+                urls.add(toUrl(exploded.resolve(entry.substring(3, entry.length() - 1))));
+            }
+        }
+        return urls.toArray(new URL[0]);
+    }
+
+    private static URL toUrl(Path path) throws MalformedURLException {
+        return path.toUri().toURL();
+    }
+
+    private static int freePort() throws IOException {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            socket.setReuseAddress(true);
+            return socket.getLocalPort();
+        }
+    }
+}
@@ -0,0 +1,106 @@
+package com.example.loadtest;
+
+import io.zonky.test.db.postgres.embedded.EmbeddedPostgres;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+/**
+ * Local PostgreSQL standing in for the compose database: real server binaries, started in a temporary directory and
+ * removed by a shutdown hook when the JVM exits, with {@code demo1_db} seeded and an empty {@code demo2_db}.
+ */
+final class UserDatabase {
+
+    private static final Logger logger = LoggerFactory.getLogger(UserDatabase.class);
+    private static final String USERS_SCRIPT = "/db/users.sql";
+
+    private final EmbeddedPostgres postgres;
+
+    private UserDatabase(EmbeddedPostgres postgres) {
+        this.postgres = postgres;
+    }
+
+    static UserDatabase start(int rows) throws IOException, SQLException {
+        String script = readScript();
+        long started = System.nanoTime();
+        // The builder turns synchronous commits off; back to the server default the compose Postgres runs with
+        EmbeddedPostgres postgres = EmbeddedPostgres.builder()
+                .setServerConfig("synchronous_commit", "on")
+                .start();
+        UserDatabase database = new UserDatabase(postgres);
+        try {
+            try (Connection connection = database.connect("postgres");
+                 Statement statement = connection.createStatement()) {
+                statement.execute("CREATE DATABASE demo1_db");
+                statement.execute("CREATE DATABASE demo2_db");
+            }
+            try (Connection connection = database.connect("demo1_db")) {
+                try (PreparedStatement seed = connection.prepareStatement(script)) {
+                    seed.setInt(1, rows);
+                    seed.execute();
+                }
+                try (Statement statement = connection.createStatement()) {
+                    statement.execute("ANALYZE demo.users");
+                }
+            }
+        } catch (SQLException | RuntimeException e) {
+            postgres.close();
+            throw e;
+        }
+        logger.info("PostgreSQL on port {} with {} users, ready in {} ms", postgres.getPort(), rows,
+                (System.nanoTime() - started) / 1_000_000);
+        return database;
+    }
+
+    String jdbcUrl(String database) {
+        return "jdbc:postgresql://localhost:" + postgres.getPort() + "/" + database;
+    }
+
+    String r2dbcUrl(String database) {
+        return "r2dbc:postgresql://localhost:" + postgres.getPort() + "/" + database;
+    }
+
+    /**
+     * Creates {@code target} as a file-level copy of {@code source}, seed data and statistics included; nothing
+     * may be connected to {@code source} meanwhile.
+     */
+    void copy(String source, String target) throws SQLException {
+        try (Connection connection = connect("postgres");
+             Statement statement = connection.createStatement()) {
+            statement.execute("CREATE DATABASE " + target + " TEMPLATE " + source);
+        }
+    }
+
+    String serverVersion() {
+        try (Connection connection = connect("postgres");
+             Statement statement = connection.createStatement();
+             ResultSet resultSet = statement.executeQuery("SHOW server_version")) {
+            resultSet.next();
+            return resultSet.getString(1);
+        } catch (SQLException e) {
+            return "unknown";
+        }
+    }
+
+    private Connection connect(String database) throws SQLException {
+        return DriverManager.getConnection(jdbcUrl(database), "postgres", "");
+    }
+
+    private static String readScript() throws IOException {
+        try (InputStream script = UserDatabase.class.getResourceAsStream(USERS_SCRIPT)) {
+            if (script == null) {
+                throw new IOException(USERS_SCRIPT + " is missing from the classpath");
+            }
+            return new String(script.readAllBytes(), StandardCharsets.UTF_8);
+        }
+    }
+}
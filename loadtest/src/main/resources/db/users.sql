@@ -0,0 +1,22 @@
+-- demo.users as the services expect it (neither creates it: spring.jpa.hibernate.ddl-auto is none),
+-- seeded with the same names and emails as search-benchmark.sh. The row count is bound as a parameter.
+CREATE SCHEMA IF NOT EXISTS demo;
+CREATE TABLE IF NOT EXISTS demo.users (
+    id bigserial PRIMARY KEY,
+    name varchar(255),
+    email varchar(255) UNIQUE,
+    created_at timestamp
+);
+INSERT INTO demo.users (name, email, created_at)
+SELECT first || ' ' || last,
+       lower(first) || '.' || lower(last) || g || '@' || domain,
+       timestamp '2024-01-01' - g * interval '1 second'
+FROM generate_series(1, ?) g,
+     LATERAL (SELECT (ARRAY['James', 'Mary', 'Robert', 'Patricia', 'John', 'Jennifer', 'Michael', 'Linda',
+                            'David', 'Elizabeth', 'William', 'Barbara', 'Wei', 'Priya', 'Mohammed', 'Olga',
+                            'Hiroshi', 'Fatima', 'Carlos', 'Anna', 'Lukas', 'Amara', 'Sofia', 'Mateo'])[1 + g % 24] AS first,
+                     (ARRAY['Smith', 'Johnson', 'Williams', 'Brown', 'Jones', 'Garcia', 'Miller', 'Davis',
+                            'Kowalski', 'Sharma', 'Chen', 'Tanaka', 'Okafor', 'Ivanova', 'Haddad', 'Rossi',
+                            'Novak', 'Silva', 'Muller', 'Dubois', 'Nielsen', 'Kim', 'Nguyen', 'Cohen',
+                            'Andersen', 'Moreau', 'Costa', 'Fischer', 'Yilmaz'])[1 + g % 29] AS last,
+                     (ARRAY['example.com', 'mail.test', 'corp.io'])[1 + g % 3] AS domain) parts;
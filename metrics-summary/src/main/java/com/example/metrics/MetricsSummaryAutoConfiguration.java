@@ -0,0 +1,26 @@
+package com.example.metrics;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.AutoConfiguration;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.context.annotation.Bean;
+
+import java.util.List;
+
+/**
+ * Registers {@link MetricsSummaryEndpoint} in every service with this module on its classpath.
+ */
+@AutoConfiguration
+public class MetricsSummaryAutoConfiguration {
+
+    @Bean
+    @ConditionalOnMissingBean
+    public MetricsSummaryEndpoint metricsSummaryEndpoint(
+            MeterRegistry registry,
+            // Comma separated; the default covers what every Spring Boot service records
+            @Value("${management.endpoint.summary.prefixes:http.server.requests,jvm.gc.,jvm.memory.used,jvm.threads.live}")
+            List<String> prefixes) {
+        return new MetricsSummaryEndpoint(registry, prefixes);
+    }
+}
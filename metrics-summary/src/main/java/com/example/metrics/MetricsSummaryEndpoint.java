@@ -0,0 +1,100 @@
+package com.example.metrics;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.Meter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tag;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.distribution.HistogramSnapshot;
+import io.micrometer.core.instrument.distribution.ValueAtPercentile;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.web.annotation.WebEndpoint;
+
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Plain-text overview of the meters that matter for quick checks, at {@code /actuator/summary}: those whose name
+ * starts with one of {@code management.endpoint.summary.prefixes}, set per service.
+ * The full set stays available in Prometheus format at {@code /actuator/prometheus}.
+ */
+@WebEndpoint(id = "summary")
+public class MetricsSummaryEndpoint {
+
+    private final MeterRegistry registry;
+    private final List<String> prefixes;
+
+    public MetricsSummaryEndpoint(MeterRegistry registry, List<String> prefixes) {
+        this.registry = registry;
+        this.prefixes = List.copyOf(prefixes);
+    }
+
+    @ReadOperation(produces = "text/plain")
+    public String summary() {
+        List<Meter> meters = registry.getMeters().stream()
+                .filter(meter -> prefixes.stream().anyMatch(meter.getId().getName()::startsWith))
+                // Already part of the timer's own line
+                .filter(meter -> !meter.getId().getName().endsWith(".percentile"))
+                .sorted(Comparator.comparing((Meter meter) -> meter.getId().getName())
+                        .thenComparing(meter -> describeTags(meter.getId().getTags())))
+                .toList();
+
+        StringBuilder out = new StringBuilder();
+        for (Meter meter : meters) {
+            String line = format(meter);
+            if (line != null) {
+                out.append(meter.getId().getName()).append(describeTags(meter.getId().getTags()))
+                        .append("  ").append(line).append('\n');
+            }
+        }
+        return out.toString();
+    }
+
+    // Zero counters and unused timers are left out to keep the view short
+    private static String format(Meter meter) {
+        if (meter instanceof Timer timer) {
+            if (timer.count() == 0) {
+                return null;
+            }
+            HistogramSnapshot snapshot = timer.takeSnapshot();
+            StringBuilder line = new StringBuilder(String.format(Locale.ROOT, "count=%d mean=%.2fms max=%.2fms",
+                    timer.count(), timer.mean(TimeUnit.MILLISECONDS), timer.max(TimeUnit.MILLISECONDS)));
+            for (ValueAtPercentile percentile : snapshot.percentileValues()) {
+                line.append(String.format(Locale.ROOT, " p%s=%.2fms",
+                        formatPercentile(percentile.percentile()), percentile.value(TimeUnit.MILLISECONDS)));
+            }
+            return line.toString();
+        }
+        if (meter instanceof Counter counter) {
+            return counter.count() > 0 ? String.format(Locale.ROOT, "count=%.0f", counter.count()) : null;
+        }
+        if (meter instanceof FunctionCounter counter) {
+            return counter.count() > 0 ? String.format(Locale.ROOT, "count=%.0f", counter.count()) : null;
+        }
+        if (meter instanceof Gauge gauge) {
+            return String.format(Locale.ROOT, "value=%.2f", gauge.value());
+        }
+        return null;
+    }
+
+    private static String formatPercentile(double percentile) {
+        String value = String.format(Locale.ROOT, "%.3f", percentile * 100).replaceAll("\\.?0+$", "");
+        return value.replace('.', '_');
+    }
+
+    private static String describeTags(List<Tag> tags) {
+        // The common application tag is the same on every line
+        List<Tag> shown = tags.stream().filter(tag -> !"application".equals(tag.getKey())).toList();
+        if (shown.isEmpty()) {
+            return "";
+        }
+        return shown.stream()
+                .map(tag -> tag.getKey() + "=" + tag.getValue())
+                .collect(Collectors.joining(",", "{", "}"));
+    }
+}
@@ -16,7 +16,7 @@ echo Waiting for Eureka Server to start...
 timeout /t 10
 
 echo Starting Demo1 Service...
-start "Demo1 Service" cmd /k "cd demo1 && java -jar target/demo1-0.0.1-SNAPSHOT.jar"
+start "Demo1 Service" cmd /k "cd demo1 && java -jar target/demo1-0.0.1-SNAPSHOT-exec.jar"
 
 echo Starting Demo2 Service...
 start "Demo2 Service" cmd /k "cd demo2 && java -jar target/demo2-0.0.1-SNAPSHOT.jar"
@@ -0,0 +1,119 @@
+#!/usr/bin/env bash
+# Compares the query behind GET /api/users/search with and without the pg_trgm indexes from
+# demo1/src/main/resources/db/user-search-indexes.sql, on a seeded copy of demo.users.
+#
+#   ./search-benchmark.sh [rows] [runs]    defaults: 3000000 rows, 5 runs per term
+#
+# Works in a scratch schema (search_bench) of the demo1 database, which is dropped afterwards; demo.users is not
+# touched. Uses psql with the connection settings from .env, or psql inside the compose postgres container when
+# psql is not installed locally.
+
+set -euo pipefail
+cd "$(dirname "$0")"
+
+ROWS=${1:-3000000}
+RUNS=${2:-5}
+
+if [ -f .env ]; then
+    set -a; source .env; set +a
+fi
+DB_NAME=${DEMO1_DB_NAME:-demo1_db}
+if command -v psql > /dev/null; then
+    export PGPASSWORD=${DB_PASSWORD:-postgres}
+    PSQL=(psql -h "${DB_HOST:-localhost}" -p "${DB_PORT:-5432}" -U "${DB_USERNAME:-postgres}" -d "$DB_NAME")
+else
+    PSQL=(docker compose exec -T postgres psql -U "${DB_USERNAME:-postgres}" -d "$DB_NAME")
+fi
+
+psql_run() {
+    "${PSQL[@]}" -v ON_ERROR_STOP=1 -q -X "$@"
+}
+
+cleanup() {
+    psql_run -c "DROP SCHEMA IF EXISTS search_bench CASCADE" > /dev/null 2>&1 || true
+}
+trap cleanup EXIT
+trap 'exit 130' INT TERM
+
+echo "Seeding search_bench.users with $ROWS rows..."
+psql_run <<SQL
+SET client_min_messages = warning;
+DROP SCHEMA IF EXISTS search_bench CASCADE;
+CREATE SCHEMA search_bench;
+CREATE TABLE search_bench.users (
+    id bigserial PRIMARY KEY,
+    name varchar(255),
+    email varchar(255) UNIQUE,
+    created_at timestamp
+);
+-- Names repeat like real ones do; emails are unique through the row number
+INSERT INTO search_bench.users (name, email, created_at)
+SELECT first || ' ' || last,
+       lower(first) || '.' || lower(last) || g || '@' || domain,
+       now() - g * interval '1 second'
+FROM generate_series(1, $ROWS) g,
+     LATERAL (SELECT (ARRAY['James', 'Mary', 'Robert', 'Patricia', 'John', 'Jennifer', 'Michael', 'Linda',
+                            'David', 'Elizabeth', 'William', 'Barbara', 'Wei', 'Priya', 'Mohammed', 'Olga',
+                            'Hiroshi', 'Fatima', 'Carlos', 'Anna', 'Lukas', 'Amara', 'Sofia', 'Mateo'])[1 + g % 24] AS first,
+                     (ARRAY['Smith', 'Johnson', 'Williams', 'Brown', 'Jones', 'Garcia', 'Miller', 'Davis',
+                            'Kowalski', 'Sharma', 'Chen', 'Tanaka', 'Okafor', 'Ivanova', 'Haddad', 'Rossi',
+                            'Novak', 'Silva', 'Muller', 'Dubois', 'Nielsen', 'Kim', 'Nguyen', 'Cohen',
+                            'Andersen', 'Moreau', 'Costa', 'Fischer', 'Yilmaz'])[1 + g % 29] AS last,
+                     (ARRAY['example.com', 'mail.test', 'corp.io'])[1 + g % 3] AS domain) parts;
+ANALYZE search_bench.users;
+
+-- Times the application's search statement for each term: median of $RUNS runs after one warm-up, in ms
+CREATE FUNCTION search_bench.run(label text) RETURNS void LANGUAGE plpgsql AS \$\$
+DECLARE
+    term record;
+    samples double precision[];
+    started timestamptz;
+    matches int;
+BEGIN
+    FOR term IN SELECT * FROM (VALUES
+            ('prefix',   'jam',             'jam%'),
+            ('prefix',   'priya.sharma13',  'priya.sharma13%'),
+            ('prefix',   'zzz',             'zzz%'),
+            ('contains', 'son',             '%son%'),
+            ('contains', 'kowalski4242',    '%kowalski4242%'),
+            ('contains', '99999@',          '%99999@%'),
+            ('contains', 'nomatch',         '%nomatch%')) AS t(mode, q, pattern) LOOP
+        samples := '{}';
+        FOR i IN 0..$RUNS LOOP
+            started := clock_timestamp();
+            -- Same shape as UserRepository.searchAfter for the first page of size 20
+            EXECUTE 'SELECT count(*) FROM (SELECT id, name, email FROM search_bench.users '
+                    || 'WHERE (name ILIKE \$1 ESCAPE ''\\'' OR email ILIKE \$1 ESCAPE ''\\'') AND id > 0 '
+                    || 'ORDER BY id LIMIT 21) page'
+                INTO matches USING term.pattern;
+            IF i > 0 THEN
+                samples := samples || extract(epoch FROM clock_timestamp() - started) * 1000;
+            END IF;
+        END LOOP;
+        RAISE NOTICE '%  %  %  % rows  % ms', rpad(label, 8), rpad(term.mode, 8), rpad(term.q, 15), lpad(matches::text, 2),
+            lpad(to_char((SELECT percentile_cont(0.5) WITHIN GROUP (ORDER BY s) FROM unnest(samples) s), 'FM99990.00'), 9);
+    END LOOP;
+END
+\$\$;
+SQL
+
+echo
+echo "Median of $RUNS runs per term, first page (20 rows):"
+psql_run -c "SELECT search_bench.run('no index')" 2>&1 | sed -n 's/^NOTICE:  /  /p'
+
+echo
+echo "Building trigram indexes..."
+started=$(date +%s%N)
+# Same definitions as user-search-indexes.sql, on the scratch table
+psql_run <<SQL
+CREATE EXTENSION IF NOT EXISTS pg_trgm;
+CREATE INDEX users_name_trgm_idx ON search_bench.users USING gin (name gin_trgm_ops);
+CREATE INDEX users_email_trgm_idx ON search_bench.users USING gin (email gin_trgm_ops);
+ANALYZE search_bench.users;
+SQL
+echo "  built in $(( ($(date +%s%N) - started) / 1000000 )) ms," \
+    "$(psql_run -tA -c "SELECT pg_size_pretty(sum(pg_relation_size(indexrelid))) FROM pg_index
+        WHERE indexrelid::regclass::text LIKE 'search_bench.users_%_trgm_idx'") on disk"
+
+echo
+psql_run -c "SELECT search_bench.run('trigram')" 2>&1 | sed -n 's/^NOTICE:  /  /p'
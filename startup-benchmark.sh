@@ -0,0 +1,109 @@
+#!/usr/bin/env bash
+# Measures time-to-first-request of eureka-server, demo1 and demo2: from process/container start until the
+# first successful response from the service.
+#
+#   ./startup-benchmark.sh jar [runs]      fat jars from target/ (run `mvn package` first); needs Postgres per .env
+#   ./startup-benchmark.sh docker [runs]   the docker compose images, with their CDS archives
+#
+# Services start in dependency order (eureka-server, demo1, demo2) and are stopped after each run.
+
+set -euo pipefail
+cd "$(dirname "$0")"
+
+MODE=${1:-jar}
+RUNS=${2:-3}
+TIMEOUT_S=180
+
+if [ -f .env ]; then
+    set -a; source .env; set +a
+fi
+# Outside docker the services reach each other and the database on localhost
+if [ "$MODE" = "jar" ]; then
+    export DB_HOST=localhost SUPABASE_DB_HOST=localhost EUREKA_SERVER_HOST=localhost
+    unset DEMO1_DATASOURCE_URL DEMO2_DATASOURCE_URL EUREKA_CLIENT_SERVICEURL_DEFAULTZONE
+fi
+
+SERVICES=(eureka-server demo1-service demo2-service)
+declare -A JARS=(
+    [eureka-server]=eureka-server/target/eureka-server-0.0.1-SNAPSHOT.jar
+    [demo1-service]=demo1/target/demo1-0.0.1-SNAPSHOT-exec.jar
+    [demo2-service]=demo2/target/demo2-0.0.1-SNAPSHOT.jar
+)
+declare -A URLS=(
+    [eureka-server]=http://localhost:${EUREKA_SERVER_PORT:-8761}/actuator/health
+    [demo1-service]="http://localhost:${DEMO1_SERVICE_PORT:-8081}/api/users?page=0&size=1"
+    [demo2-service]=http://localhost:${DEMO2_SERVICE_PORT:-8082}/actuator/health
+)
+declare -A RESULTS
+PIDS=()
+
+now_ms() {
+    echo $(( $(date +%s%N) / 1000000 ))
+}
+
+start() {
+    local service=$1
+    if [ "$MODE" = "docker" ]; then
+        docker compose up -d --no-deps --force-recreate "$service" > /dev/null
+    else
+        local dir
+        dir=$(dirname "$(dirname "${JARS[$service]}")")
+        # Relative log paths in log4j2.xml resolve against the module directory, as with run-jars.bat
+        (cd "$dir" && exec java -jar "target/$(basename "${JARS[$service]}")" > /dev/null 2>&1) &
+        PIDS+=($!)
+    fi
+}
+
+stop_all() {
+    if [ "$MODE" = "docker" ]; then
+        docker compose stop "${SERVICES[@]}" > /dev/null 2>&1 || true
+    else
+        for pid in "${PIDS[@]}"; do
+            kill "$pid" 2> /dev/null || true
+            wait "$pid" 2> /dev/null || true
+        done
+        PIDS=()
+    fi
+}
+trap stop_all EXIT
+trap 'exit 130' INT TERM
+
+wait_for_first_request() {
+    local url=$1 started=$2
+    while ! curl -sf -o /dev/null "$url"; do
+        if (( $(now_ms) - started > TIMEOUT_S * 1000 )); then
+            echo "timeout"
+            return
+        fi
+        sleep 0.05
+    done
+    echo $(( $(now_ms) - started ))
+}
+
+if [ "$MODE" = "docker" ]; then
+    docker compose up -d postgres > /dev/null
+fi
+
+for run in $(seq 1 "$RUNS"); do
+    for service in "${SERVICES[@]}"; do
+        started=$(now_ms)
+        start "$service"
+        elapsed=$(wait_for_first_request "${URLS[$service]}" "$started")
+        RESULTS[$service]="${RESULTS[$service]:-} $elapsed"
+        echo "run $run  $service  ${elapsed} ms"
+    done
+    stop_all
+done
+
+echo
+echo "Time to first request ($MODE, $RUNS runs), ms:"
+for service in "${SERVICES[@]}"; do
+    sorted=$(tr ' ' '\n' <<< "${RESULTS[$service]}" | grep -E '^[0-9]+$' | sort -n || true)
+    if [ -z "$sorted" ]; then
+        printf '  %-15s no successful start\n' "$service"
+        continue
+    fi
+    count=$(wc -l <<< "$sorted")
+    printf '  %-15s min %6s  median %6s  max %6s\n' "$service" \
+        "$(head -1 <<< "$sorted")" "$(sed -n "$(( (count + 1) / 2 ))p" <<< "$sorted")" "$(tail -1 <<< "$sorted")"
+done
@@ -0,0 +1,26 @@
+package com.example.userapi;
+
+import java.util.Locale;
+
+/**
+ * How the total item count is resolved for keyset pages.
+ */
+public enum TotalCountMode {
+    /** No total, the page costs a single range query. */
+    NONE,
+    /** Planner estimate from pg_class.reltuples. */
+    ESTIMATE,
+    /** Exact COUNT(*), reused for a configurable time-to-live. */
+    CACHED;
+
+    public static TotalCountMode fromParameter(String value) {
+        if (value == null || value.isBlank()) {
+            return NONE;
+        }
+        try {
+            return valueOf(value.trim().toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Unknown total mode: " + value + " (expected none, estimate or cached)");
+        }
+    }
+}
@@ -0,0 +1,37 @@
+package com.example.userapi;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * Encodes the keyset position of a user page as an opaque, URL-safe token.
+ */
+public final class UserCursor {
+
+    private static final String PREFIX = "id:";
+
+    private UserCursor() {
+    }
+
+    public static String encode(long lastId) {
+        byte[] raw = (PREFIX + lastId).getBytes(StandardCharsets.US_ASCII);
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw);
+    }
+
+    public static long decode(String cursor) {
+        // An empty cursor starts from the beginning of the table
+        if (cursor == null || cursor.isBlank()) {
+            return 0L;
+        }
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor.trim()), StandardCharsets.US_ASCII);
+            if (!raw.startsWith(PREFIX)) {
+                throw new IllegalArgumentException("Invalid cursor: " + cursor);
+            }
+            return Long.parseLong(raw.substring(PREFIX.length()));
+        } catch (IllegalArgumentException e) {
+            // Also covers NumberFormatException and malformed Base64
+            throw new IllegalArgumentException("Invalid cursor: " + cursor);
+        }
+    }
+}
@@ -0,0 +1,18 @@
+package com.example.userapi;
+
+import java.time.LocalDateTime;
+
+/**
+ * The user fields the API serves, whichever way a service maps {@code demo.users}; both services' entities
+ * implement it.
+ */
+public interface UserData {
+
+    Long getId();
+
+    String getName();
+
+    String getEmail();
+
+    LocalDateTime getCreatedAt();
+}
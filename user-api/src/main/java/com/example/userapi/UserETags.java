@@ -0,0 +1,70 @@
+package com.example.userapi;
+
+import com.example.userapi.dto.PaginationInfo;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.List;
+
+/**
+ * Entity tags for user responses, computed from the row values rather than the serialized body.
+ * <p>
+ * The same data yields the same tag on every demo1 and demo1-reactive instance, so a client may revalidate against any of them,
+ * and the tag can be compared before anything is serialized.
+ */
+public final class UserETags {
+
+    private static final byte SEPARATOR = 0x1f;
+    private static final byte NULL_MARKER = 0x00;
+
+    private UserETags() {
+    }
+
+    public static String of(UserData user) {
+        MessageDigest digest = newDigest();
+        update(digest, user);
+        return format(digest);
+    }
+
+    public static String of(List<? extends UserData> users, PaginationInfo pagination) {
+        MessageDigest digest = newDigest();
+        for (UserData user : users) {
+            update(digest, user);
+        }
+        // Totals and cursors are part of the response, so a change there is a new version too
+        update(digest, pagination.currentPage(), pagination.totalItems(), pagination.totalItemsEstimated(),
+                pagination.totalPages(), pagination.hasNext(), pagination.hasPrevious(), pagination.pageSize(),
+                pagination.nextCursor());
+        return format(digest);
+    }
+
+    private static void update(MessageDigest digest, UserData user) {
+        update(digest, user.getId(), user.getName(), user.getEmail(), user.getCreatedAt());
+    }
+
+    private static void update(MessageDigest digest, Object... values) {
+        for (Object value : values) {
+            if (value == null) {
+                digest.update(NULL_MARKER);
+            } else {
+                digest.update(value.toString().getBytes(StandardCharsets.UTF_8));
+            }
+            digest.update(SEPARATOR);
+        }
+    }
+
+    private static String format(MessageDigest digest) {
+        return "\"" + HexFormat.of().formatHex(digest.digest()) + "\"";
+    }
+
+    private static MessageDigest newDigest() {
+        try {
+            // Not a security boundary, only change detection; MD5 is what Spring's ShallowEtagHeaderFilter uses too
+            return MessageDigest.getInstance("MD5");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("MD5 not available", e);
+        }
+    }
+}
@@ -0,0 +1,37 @@
+package com.example.userapi.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import org.springframework.http.HttpStatus;
+
+import java.time.LocalDateTime;
+
+/**
+ * Response envelope shared by every user API endpoint and error response. Absent parts are omitted from the JSON.
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public record ApiResponse<T>(
+        boolean success,
+        LocalDateTime timestamp,
+        Integer status,
+        String error,
+        String message,
+        T data,
+        PaginationInfo pagination,
+        Long deletedId) {
+
+    public static <T> ApiResponse<T> ok(String message, T data) {
+        return new ApiResponse<>(true, LocalDateTime.now(), null, null, message, data, null, null);
+    }
+
+    public static <T> ApiResponse<T> page(String message, T data, PaginationInfo pagination) {
+        return new ApiResponse<>(true, LocalDateTime.now(), null, null, message, data, pagination, null);
+    }
+
+    public static <T> ApiResponse<T> deleted(String message, Long deletedId) {
+        return new ApiResponse<>(true, LocalDateTime.now(), null, null, message, null, null, deletedId);
+    }
+
+    public static <T> ApiResponse<T> error(HttpStatus status, String error) {
+        return new ApiResponse<>(false, LocalDateTime.now(), status.value(), error, null, null, null, null);
+    }
+}
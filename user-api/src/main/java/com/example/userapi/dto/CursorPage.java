@@ -0,0 +1,15 @@
+package com.example.userapi.dto;
+
+import java.util.List;
+
+/**
+ * One keyset page of results. {@code totalItems} is only populated when a total was requested.
+ */
+public record CursorPage<T>(
+        List<T> content,
+        int pageSize,
+        boolean hasNext,
+        String nextCursor,
+        Long totalItems,
+        boolean totalEstimated) {
+}
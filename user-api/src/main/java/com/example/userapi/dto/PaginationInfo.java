@@ -0,0 +1,31 @@
+package com.example.userapi.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import org.springframework.data.domain.Page;
+
+/**
+ * Pagination block of a listing response. Offset pages fill the page/total fields,
+ * keyset pages fill {@code nextCursor} and only carry a total when one was requested.
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public record PaginationInfo(
+        Integer currentPage,
+        Long totalItems,
+        Boolean totalItemsEstimated,
+        Integer totalPages,
+        boolean hasNext,
+        Boolean hasPrevious,
+        int pageSize,
+        String nextCursor) {
+
+    public static PaginationInfo of(Page<?> page) {
+        return new PaginationInfo(page.getNumber(), page.getTotalElements(), null, page.getTotalPages(),
+                page.hasNext(), page.hasPrevious(), page.getSize(), null);
+    }
+
+    public static PaginationInfo of(CursorPage<?> page) {
+        Boolean estimated = page.totalItems() != null ? page.totalEstimated() : null;
+        return new PaginationInfo(null, page.totalItems(), estimated, null,
+                page.hasNext(), null, page.pageSize(), page.nextCursor());
+    }
+}
@@ -0,0 +1,19 @@
+package com.example.userapi.dto;
+
+import com.example.userapi.UserData;
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+/**
+ * One requested id of a multi-get, in request position; {@code user} is omitted when the id was not found.
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public record UserBatchEntry(Long id, boolean found, UserData user) {
+
+    public static UserBatchEntry found(UserData user) {
+        return new UserBatchEntry(user.getId(), true, user);
+    }
+
+    public static UserBatchEntry notFound(Long id) {
+        return new UserBatchEntry(id, false, null);
+    }
+}
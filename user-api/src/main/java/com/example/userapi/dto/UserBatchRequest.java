@@ -0,0 +1,9 @@
+package com.example.userapi.dto;
+
+import java.util.List;
+
+/**
+ * Body of {@code POST /api/users/batch}, for id sets too large for a query string.
+ */
+public record UserBatchRequest(List<Long> ids) {
+}
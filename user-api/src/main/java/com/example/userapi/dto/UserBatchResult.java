@@ -0,0 +1,13 @@
+package com.example.userapi.dto;
+
+import java.util.List;
+
+/**
+ * Result of a multi-get: one entry per requested id, in request order, plus the ids that do not exist.
+ */
+public record UserBatchResult(
+        int requested,
+        int found,
+        List<Long> missingIds,
+        List<UserBatchEntry> users) {
+}
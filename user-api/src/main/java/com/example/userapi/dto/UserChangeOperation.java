@@ -0,0 +1,23 @@
+package com.example.userapi.dto;
+
+import com.fasterxml.jackson.annotation.JsonValue;
+
+import java.util.Locale;
+
+/**
+ * Kind of change recorded in the user outbox; stored and served in lower case by both services.
+ */
+public enum UserChangeOperation {
+    CREATED,
+    UPDATED,
+    DELETED;
+
+    @JsonValue
+    public String toJson() {
+        return name().toLowerCase(Locale.ROOT);
+    }
+
+    public static UserChangeOperation fromColumn(String value) {
+        return valueOf(value.toUpperCase(Locale.ROOT));
+    }
+}